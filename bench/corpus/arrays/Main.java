@@ -0,0 +1,67 @@
+package arrays;
+
+/*
+ * Objects stored in arrays, arrays of arrays, arrays held in fields and
+ * arrays that are copied or returned.
+ */
+public class Main {
+	static Object[] shared = new Object[4];
+
+	static class Point {
+		int x, y;
+
+		Point(int x, int y) {
+			this.x = x;
+			this.y = y;
+		}
+	}
+
+	static class Polygon {
+		Point[] points;
+
+		Polygon(int n) {
+			points = new Point[n];
+			for(int i = 0; i < n; i++) points[i] = new Point(i, i * i);
+		}
+	}
+
+	static int localArray(int n) {
+		Point[] ps = new Point[n];
+		for(int i = 0; i < n; i++) ps[i] = new Point(i, -i);
+		int sum = 0;
+		for(Point p : ps) sum += p.x + p.y;
+		return sum;
+	}
+
+	static Point[][] grid(int n) {
+		Point[][] g = new Point[n][];
+		for(int i = 0; i < n; i++) {
+			g[i] = new Point[n];
+			for(int j = 0; j < n; j++) g[i][j] = new Point(i, j);
+		}
+		return g;
+	}
+
+	static Point[] copy(Point[] src) {
+		Point[] dst = new Point[src.length];
+		System.arraycopy(src, 0, dst, 0, src.length);
+		return dst;
+	}
+
+	static void publish(Point p, int i) {
+		shared[i % shared.length] = p;
+	}
+
+	static int[] primitives(int n) {
+		int[] a = new int[n];
+		for(int i = 0; i < n; i++) a[i] = i * 3;
+		return a;
+	}
+
+	public static void main(String[] args) {
+		int n = args.length + 16;
+		Polygon poly = new Polygon(n);
+		System.out.println(localArray(n) + grid(n)[1][2].y + copy(poly.points).length + primitives(n)[n - 1]);
+		publish(new Point(1, 2), n);
+	}
+}
@@ -0,0 +1,69 @@
+package fieldchains;
+
+/*
+ * Deep field paths: objects reached through chains of fields of the
+ * arguments, the return value and the receiver.
+ */
+public class Main {
+	static Node global;
+
+	static class Node {
+		Node left, right;
+		Payload payload;
+	}
+
+	static class Payload {
+		Object data;
+		Payload inner;
+	}
+
+	static Node chain(int depth) {
+		Node root = new Node();
+		Node n = root;
+		for(int i = 0; i < depth; i++) {
+			n.left = new Node();
+			n.left.payload = new Payload();
+			n.left.payload.inner = new Payload();
+			n = n.left;
+		}
+		return root;
+	}
+
+	static void store(Node n, Object o) {
+		n.left.left.right = new Node();
+		n.left.left.right.payload = new Payload();
+		n.left.left.right.payload.data = o;
+	}
+
+	static Object load(Node n) {
+		return n.left.left.right.payload.data;
+	}
+
+	static void publishDeep(Node n) {
+		global = n.left.right;
+	}
+
+	static Payload unwrap(Payload p) {
+		while(p.inner != null) p = p.inner;
+		return p;
+	}
+
+	static int walk(Node n) {
+		Node copy = new Node();
+		copy.left = n.left;
+		copy.right = n.right;
+		copy.payload = new Payload();
+		copy.payload.inner = n.left.payload;
+		return (unwrap(copy.payload) == null)? 0 : 1;
+	}
+
+	public static void main(String[] args) {
+		Node n = chain(6);
+		Object o = new Object();
+		store(n, o);
+		System.out.println(load(n) == o);
+		n.left.right = new Node();
+		publishDeep(n);
+		System.out.println(walk(n));
+	}
+}
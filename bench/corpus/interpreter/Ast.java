@@ -0,0 +1,110 @@
+package interpreter;
+
+abstract class Ast {
+	abstract Value eval(Env env);
+
+	static class Num extends Ast {
+		final long value;
+
+		Num(long value) {
+			this.value = value;
+		}
+
+		Value eval(Env env) {
+			return new Value.Int(value);
+		}
+	}
+
+	static class Var extends Ast {
+		final String name;
+
+		Var(String name) {
+			this.name = name;
+		}
+
+		Value eval(Env env) {
+			return env.lookup(name);
+		}
+	}
+
+	static class BinOp extends Ast {
+		final char op;
+		final Ast left, right;
+
+		BinOp(char op, Ast left, Ast right) {
+			this.op = op;
+			this.left = left;
+			this.right = right;
+		}
+
+		Value eval(Env env) {
+			long l = left.eval(env).asInt();
+			long r = right.eval(env).asInt();
+			switch(op) {
+			case '+': return new Value.Int(l + r);
+			case '-': return new Value.Int(l - r);
+			case '*': return new Value.Int(l * r);
+			default: return new Value.Int((l < r)? 1 : 0);
+			}
+		}
+	}
+
+	static class Let extends Ast {
+		final String name;
+		final Ast bound, body;
+
+		Let(String name, Ast bound, Ast body) {
+			this.name = name;
+			this.bound = bound;
+			this.body = body;
+		}
+
+		Value eval(Env env) {
+			Env inner = env.extend(name, null);
+			inner.set(name, bound.eval(inner));
+			return body.eval(inner);
+		}
+	}
+
+	static class If extends Ast {
+		final Ast cond, then, otherwise;
+
+		If(Ast cond, Ast then, Ast otherwise) {
+			this.cond = cond;
+			this.then = then;
+			this.otherwise = otherwise;
+		}
+
+		Value eval(Env env) {
+			return (cond.eval(env).asInt() != 0)? then.eval(env) : otherwise.eval(env);
+		}
+	}
+
+	static class Fun extends Ast {
+		final String param;
+		final Ast body;
+
+		Fun(String param, Ast body) {
+			this.param = param;
+			this.body = body;
+		}
+
+		Value eval(Env env) {
+			return new Value.Closure(this, env);
+		}
+	}
+
+	static class App extends Ast {
+		final Ast fun, arg;
+
+		App(Ast fun, Ast arg) {
+			this.fun = fun;
+			this.arg = arg;
+		}
+
+		Value eval(Env env) {
+			Value f = fun.eval(env);
+			return f.apply(arg.eval(env));
+		}
+	}
+}
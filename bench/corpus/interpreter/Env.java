@@ -0,0 +1,34 @@
+package interpreter;
+
+class Env {
+	private final String name;
+	private Value value;
+	private final Env parent;
+
+	Env(String name, Value value, Env parent) {
+		this.name = name;
+		this.value = value;
+		this.parent = parent;
+	}
+
+	Env extend(String name, Value value) {
+		return new Env(name, value, this);
+	}
+
+	void set(String name, Value value) {
+		for(Env e = this; e != null; e = e.parent) {
+			if(name.equals(e.name)) {
+				e.value = value;
+				return;
+			}
+		}
+		throw new IllegalStateException("Unbound "+name);
+	}
+
+	Value lookup(String name) {
+		for(Env e = this; e != null; e = e.parent) {
+			if(name.equals(e.name)) return e.value;
+		}
+		throw new IllegalStateException("Unbound "+name);
+	}
+}
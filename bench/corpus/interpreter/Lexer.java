@@ -0,0 +1,81 @@
+package interpreter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class Lexer {
+	enum Kind { NUMBER, NAME, OP, LPAREN, RPAREN, LET, IN, IF, THEN, ELSE, FUN, ARROW, EQ, EOF }
+
+	static class Token {
+		final Kind kind;
+		final String text;
+
+		Token(Kind kind, String text) {
+			this.kind = kind;
+			this.text = text;
+		}
+
+		@Override
+		public String toString() {
+			return kind+"("+text+")";
+		}
+	}
+
+	private final String src;
+	private int pos;
+
+	Lexer(String src) {
+		this.src = src;
+	}
+
+	List<Token> tokens() {
+		List<Token> out = new ArrayList<>();
+		Token t;
+		do {
+			t = next();
+			out.add(t);
+		} while(t.kind != Kind.EOF);
+		return out;
+	}
+
+	private Token next() {
+		while(pos < src.length() && Character.isWhitespace(src.charAt(pos))) pos++;
+		if(pos >= src.length()) return new Token(Kind.EOF, "");
+		char c = src.charAt(pos);
+		if(Character.isDigit(c)) {
+			int start = pos;
+			while(pos < src.length() && Character.isDigit(src.charAt(pos))) pos++;
+			return new Token(Kind.NUMBER, src.substring(start, pos));
+		}
+		if(Character.isLetter(c)) {
+			int start = pos;
+			while(pos < src.length() && Character.isLetterOrDigit(src.charAt(pos))) pos++;
+			String word = src.substring(start, pos);
+			switch(word) {
+			case "let": return new Token(Kind.LET, word);
+			case "in": return new Token(Kind.IN, word);
+			case "if": return new Token(Kind.IF, word);
+			case "then": return new Token(Kind.THEN, word);
+			case "else": return new Token(Kind.ELSE, word);
+			case "fun": return new Token(Kind.FUN, word);
+			default: return new Token(Kind.NAME, word);
+			}
+		}
+		pos++;
+		switch(c) {
+		case '(': return new Token(Kind.LPAREN, "(");
+		case ')': return new Token(Kind.RPAREN, ")");
+		case '=': return new Token(Kind.EQ, "=");
+		case '-':
+			if(pos < src.length() && src.charAt(pos) == '>') {
+				pos++;
+				return new Token(Kind.ARROW, "->");
+			}
+			return new Token(Kind.OP, "-");
+		case '+': case '*': case '<':
+			return new Token(Kind.OP, String.valueOf(c));
+		default:
+			throw new IllegalArgumentException("Unexpected character "+c+" at "+(pos - 1));
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package interpreter;
+
+/*
+ * The largest program of the corpus: a lexer, a recursive-descent
+ * parser and a tree-walking evaluator with closures for a small
+ * functional language.
+ */
+public class Main {
+	static final String[] PROGRAMS = {
+		"1 + 2 * 3",
+		"let x = 5 in x * x - 1",
+		"let fact = fun n -> if n < 2 then 1 else n * fact (n - 1) in fact 12",
+		"let fib = fun n -> if n < 2 then n else fib (n - 1) + fib (n - 2) in fib 18",
+		"let add = fun a -> fun b -> a + b in let inc = add 1 in inc (inc 40)",
+		"let twice = fun f -> fun x -> f (f x) in twice (fun y -> y * 3) 7",
+	};
+
+	static Value run(String program) {
+		return new Parser(new Lexer(program).tokens()).parse().eval(new Env("zero", new Value.Int(0), null));
+	}
+
+	public static void main(String[] args) {
+		for(String p : PROGRAMS) System.out.println(p+" => "+run(p));
+	}
+}
@@ -0,0 +1,124 @@
+package interpreter;
+
+import java.util.List;
+
+import interpreter.Lexer.Kind;
+import interpreter.Lexer.Token;
+
+/*
+ * expr := let NAME = expr in expr | if expr then expr else expr
+ *       | fun NAME -> expr | cmp
+ * cmp  := sum (< sum)?
+ * sum  := prod ((+|-) prod)*
+ * prod := app (* app)*
+ * app  := atom atom*
+ * atom := NUMBER | NAME | ( expr )
+ */
+class Parser {
+	private final List<Token> tokens;
+	private int pos;
+
+	Parser(List<Token> tokens) {
+		this.tokens = tokens;
+	}
+
+	Ast parse() {
+		Ast e = expr();
+		expect(Kind.EOF);
+		return e;
+	}
+
+	private Token peek() {
+		return tokens.get(pos);
+	}
+
+	private Token expect(Kind kind) {
+		Token t = tokens.get(pos);
+		if(t.kind != kind) throw new IllegalArgumentException("Expected "+kind+" but got "+t);
+		pos++;
+		return t;
+	}
+
+	private boolean isOp(String op) {
+		return peek().kind == Kind.OP && peek().text.equals(op);
+	}
+
+	private Ast expr() {
+		switch(peek().kind) {
+		case LET: {
+			pos++;
+			String name = expect(Kind.NAME).text;
+			expect(Kind.EQ);
+			Ast bound = expr();
+			expect(Kind.IN);
+			return new Ast.Let(name, bound, expr());
+		}
+		case IF: {
+			pos++;
+			Ast cond = expr();
+			expect(Kind.THEN);
+			Ast then = expr();
+			expect(Kind.ELSE);
+			return new Ast.If(cond, then, expr());
+		}
+		case FUN: {
+			pos++;
+			String param = expect(Kind.NAME).text;
+			expect(Kind.ARROW);
+			return new Ast.Fun(param, expr());
+		}
+		default:
+			return cmp();
+		}
+	}
+
+	private Ast cmp() {
+		Ast left = sum();
+		if(isOp("<")) {
+			pos++;
+			return new Ast.BinOp('<', left, sum());
+		}
+		return left;
+	}
+
+	private Ast sum() {
+		Ast left = prod();
+		while(isOp("+") || isOp("-")) {
+			char op = tokens.get(pos++).text.charAt(0);
+			left = new Ast.BinOp(op, left, prod());
+		}
+		return left;
+	}
+
+	private Ast prod() {
+		Ast left = app();
+		while(isOp("*")) {
+			pos++;
+			left = new Ast.BinOp('*', left, app());
+		}
+		return left;
+	}
+
+	private Ast app() {
+		Ast f = atom();
+		while(peek().kind == Kind.NUMBER || peek().kind == Kind.NAME || peek().kind == Kind.LPAREN) {
+			f = new Ast.App(f, atom());
+		}
+		return f;
+	}
+
+	private Ast atom() {
+		Token t = tokens.get(pos++);
+		switch(t.kind) {
+		case NUMBER: return new Ast.Num(Long.parseLong(t.text));
+		case NAME: return new Ast.Var(t.text);
+		case LPAREN: {
+			Ast e = expr();
+			expect(Kind.RPAREN);
+			return e;
+		}
+		default:
+			throw new IllegalArgumentException("Unexpected "+t);
+		}
+	}
+}
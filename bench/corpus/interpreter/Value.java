@@ -0,0 +1,49 @@
+package interpreter;
+
+abstract class Value {
+	long asInt() {
+		throw new IllegalStateException("Not a number: "+this);
+	}
+
+	Value apply(Value arg) {
+		throw new IllegalStateException("Not a function: "+this);
+	}
+
+	static class Int extends Value {
+		final long value;
+
+		Int(long value) {
+			this.value = value;
+		}
+
+		@Override
+		long asInt() {
+			return value;
+		}
+
+		@Override
+		public String toString() {
+			return Long.toString(value);
+		}
+	}
+
+	static class Closure extends Value {
+		final Ast.Fun fun;
+		final Env env;
+
+		Closure(Ast.Fun fun, Env env) {
+			this.fun = fun;
+			this.env = env;
+		}
+
+		@Override
+		Value apply(Value arg) {
+			return fun.body.eval(env.extend(fun.param, arg));
+		}
+
+		@Override
+		public String toString() {
+			return "<fun "+fun.param+">";
+		}
+	}
+}
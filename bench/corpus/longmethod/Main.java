@@ -0,0 +1,333 @@
+package longmethod;
+
+/*
+ * One method of a few thousand Jimple units, like the generated parsers
+ * and big switch bodies of real programs, to compare the heap of the
+ * unit and the block mode (stava.blocks) on. The statements are all
+ * alike on purpose: the size is what matters.
+ */
+public class Main {
+	static Object sink;
+
+	static class Node {
+		int value;
+		Node next;
+	}
+
+	static Node build(int i, Node head) {
+		Node tail = null;
+		Node n0 = new Node(); n0.next = (i % 2 == 0)? head : tail; if(n0.next == null) tail = n0; else n0.next.value += 0;
+		Node n1 = new Node(); n1.next = (i % 3 == 0)? head : tail; if(n1.next == null) tail = n1; else n1.next.value += 1;
+		Node n2 = new Node(); n2.next = (i % 4 == 0)? head : tail; if(n2.next == null) tail = n2; else n2.next.value += 2;
+		Node n3 = new Node(); n3.next = (i % 5 == 0)? head : tail; if(n3.next == null) tail = n3; else n3.next.value += 3;
+		Node n4 = new Node(); n4.next = (i % 6 == 0)? head : tail; if(n4.next == null) tail = n4; else n4.next.value += 4;
+		Node n5 = new Node(); n5.next = (i % 2 == 0)? head : tail; if(n5.next == null) tail = n5; else n5.next.value += 5;
+		Node n6 = new Node(); n6.next = (i % 3 == 0)? head : tail; if(n6.next == null) tail = n6; else n6.next.value += 6;
+		Node n7 = new Node(); n7.next = (i % 4 == 0)? head : tail; if(n7.next == null) tail = n7; else n7.next.value += 7;
+		Node n8 = new Node(); n8.next = (i % 5 == 0)? head : tail; if(n8.next == null) tail = n8; else n8.next.value += 8;
+		Node n9 = new Node(); n9.next = (i % 6 == 0)? head : tail; if(n9.next == null) tail = n9; else n9.next.value += 9;
+		Node n10 = new Node(); n10.next = (i % 2 == 0)? head : tail; if(n10.next == null) tail = n10; else n10.next.value += 10;
+		Node n11 = new Node(); n11.next = (i % 3 == 0)? head : tail; if(n11.next == null) tail = n11; else n11.next.value += 11;
+		Node n12 = new Node(); n12.next = (i % 4 == 0)? head : tail; if(n12.next == null) tail = n12; else n12.next.value += 12;
+		Node n13 = new Node(); n13.next = (i % 5 == 0)? head : tail; if(n13.next == null) tail = n13; else n13.next.value += 13;
+		Node n14 = new Node(); n14.next = (i % 6 == 0)? head : tail; if(n14.next == null) tail = n14; else n14.next.value += 14;
+		Node n15 = new Node(); n15.next = (i % 2 == 0)? head : tail; if(n15.next == null) tail = n15; else n15.next.value += 15;
+		Node n16 = new Node(); n16.next = (i % 3 == 0)? head : tail; if(n16.next == null) tail = n16; else n16.next.value += 16;
+		Node n17 = new Node(); n17.next = (i % 4 == 0)? head : tail; if(n17.next == null) tail = n17; else n17.next.value += 17;
+		Node n18 = new Node(); n18.next = (i % 5 == 0)? head : tail; if(n18.next == null) tail = n18; else n18.next.value += 18;
+		Node n19 = new Node(); n19.next = (i % 6 == 0)? head : tail; if(n19.next == null) tail = n19; else n19.next.value += 19;
+		Node n20 = new Node(); n20.next = (i % 2 == 0)? head : tail; if(n20.next == null) tail = n20; else n20.next.value += 20;
+		Node n21 = new Node(); n21.next = (i % 3 == 0)? head : tail; if(n21.next == null) tail = n21; else n21.next.value += 21;
+		Node n22 = new Node(); n22.next = (i % 4 == 0)? head : tail; if(n22.next == null) tail = n22; else n22.next.value += 22;
+		Node n23 = new Node(); n23.next = (i % 5 == 0)? head : tail; if(n23.next == null) tail = n23; else n23.next.value += 23;
+		Node n24 = new Node(); n24.next = (i % 6 == 0)? head : tail; if(n24.next == null) tail = n24; else n24.next.value += 24;
+		Node n25 = new Node(); n25.next = (i % 2 == 0)? head : tail; if(n25.next == null) tail = n25; else n25.next.value += 25;
+		Node n26 = new Node(); n26.next = (i % 3 == 0)? head : tail; if(n26.next == null) tail = n26; else n26.next.value += 26;
+		Node n27 = new Node(); n27.next = (i % 4 == 0)? head : tail; if(n27.next == null) tail = n27; else n27.next.value += 27;
+		Node n28 = new Node(); n28.next = (i % 5 == 0)? head : tail; if(n28.next == null) tail = n28; else n28.next.value += 28;
+		Node n29 = new Node(); n29.next = (i % 6 == 0)? head : tail; if(n29.next == null) tail = n29; else n29.next.value += 29;
+		Node n30 = new Node(); n30.next = (i % 2 == 0)? head : tail; if(n30.next == null) tail = n30; else n30.next.value += 30;
+		Node n31 = new Node(); n31.next = (i % 3 == 0)? head : tail; if(n31.next == null) tail = n31; else n31.next.value += 31;
+		Node n32 = new Node(); n32.next = (i % 4 == 0)? head : tail; if(n32.next == null) tail = n32; else n32.next.value += 32;
+		Node n33 = new Node(); n33.next = (i % 5 == 0)? head : tail; if(n33.next == null) tail = n33; else n33.next.value += 33;
+		Node n34 = new Node(); n34.next = (i % 6 == 0)? head : tail; if(n34.next == null) tail = n34; else n34.next.value += 34;
+		Node n35 = new Node(); n35.next = (i % 2 == 0)? head : tail; if(n35.next == null) tail = n35; else n35.next.value += 35;
+		Node n36 = new Node(); n36.next = (i % 3 == 0)? head : tail; if(n36.next == null) tail = n36; else n36.next.value += 36;
+		Node n37 = new Node(); n37.next = (i % 4 == 0)? head : tail; if(n37.next == null) tail = n37; else n37.next.value += 37;
+		Node n38 = new Node(); n38.next = (i % 5 == 0)? head : tail; if(n38.next == null) tail = n38; else n38.next.value += 38;
+		Node n39 = new Node(); n39.next = (i % 6 == 0)? head : tail; if(n39.next == null) tail = n39; else n39.next.value += 39;
+		Node n40 = new Node(); n40.next = (i % 2 == 0)? head : tail; if(n40.next == null) tail = n40; else n40.next.value += 40;
+		Node n41 = new Node(); n41.next = (i % 3 == 0)? head : tail; if(n41.next == null) tail = n41; else n41.next.value += 41;
+		Node n42 = new Node(); n42.next = (i % 4 == 0)? head : tail; if(n42.next == null) tail = n42; else n42.next.value += 42;
+		Node n43 = new Node(); n43.next = (i % 5 == 0)? head : tail; if(n43.next == null) tail = n43; else n43.next.value += 43;
+		Node n44 = new Node(); n44.next = (i % 6 == 0)? head : tail; if(n44.next == null) tail = n44; else n44.next.value += 44;
+		Node n45 = new Node(); n45.next = (i % 2 == 0)? head : tail; if(n45.next == null) tail = n45; else n45.next.value += 45;
+		Node n46 = new Node(); n46.next = (i % 3 == 0)? head : tail; if(n46.next == null) tail = n46; else n46.next.value += 46;
+		Node n47 = new Node(); n47.next = (i % 4 == 0)? head : tail; if(n47.next == null) tail = n47; else n47.next.value += 47;
+		Node n48 = new Node(); n48.next = (i % 5 == 0)? head : tail; if(n48.next == null) tail = n48; else n48.next.value += 48;
+		Node n49 = new Node(); n49.next = (i % 6 == 0)? head : tail; if(n49.next == null) tail = n49; else n49.next.value += 49;
+		if(i % 11 == 0) sink = tail;
+		Node n50 = new Node(); n50.next = (i % 2 == 0)? head : tail; if(n50.next == null) tail = n50; else n50.next.value += 50;
+		Node n51 = new Node(); n51.next = (i % 3 == 0)? head : tail; if(n51.next == null) tail = n51; else n51.next.value += 51;
+		Node n52 = new Node(); n52.next = (i % 4 == 0)? head : tail; if(n52.next == null) tail = n52; else n52.next.value += 52;
+		Node n53 = new Node(); n53.next = (i % 5 == 0)? head : tail; if(n53.next == null) tail = n53; else n53.next.value += 53;
+		Node n54 = new Node(); n54.next = (i % 6 == 0)? head : tail; if(n54.next == null) tail = n54; else n54.next.value += 54;
+		Node n55 = new Node(); n55.next = (i % 2 == 0)? head : tail; if(n55.next == null) tail = n55; else n55.next.value += 55;
+		Node n56 = new Node(); n56.next = (i % 3 == 0)? head : tail; if(n56.next == null) tail = n56; else n56.next.value += 56;
+		Node n57 = new Node(); n57.next = (i % 4 == 0)? head : tail; if(n57.next == null) tail = n57; else n57.next.value += 57;
+		Node n58 = new Node(); n58.next = (i % 5 == 0)? head : tail; if(n58.next == null) tail = n58; else n58.next.value += 58;
+		Node n59 = new Node(); n59.next = (i % 6 == 0)? head : tail; if(n59.next == null) tail = n59; else n59.next.value += 59;
+		Node n60 = new Node(); n60.next = (i % 2 == 0)? head : tail; if(n60.next == null) tail = n60; else n60.next.value += 60;
+		Node n61 = new Node(); n61.next = (i % 3 == 0)? head : tail; if(n61.next == null) tail = n61; else n61.next.value += 61;
+		Node n62 = new Node(); n62.next = (i % 4 == 0)? head : tail; if(n62.next == null) tail = n62; else n62.next.value += 62;
+		Node n63 = new Node(); n63.next = (i % 5 == 0)? head : tail; if(n63.next == null) tail = n63; else n63.next.value += 63;
+		Node n64 = new Node(); n64.next = (i % 6 == 0)? head : tail; if(n64.next == null) tail = n64; else n64.next.value += 64;
+		Node n65 = new Node(); n65.next = (i % 2 == 0)? head : tail; if(n65.next == null) tail = n65; else n65.next.value += 65;
+		Node n66 = new Node(); n66.next = (i % 3 == 0)? head : tail; if(n66.next == null) tail = n66; else n66.next.value += 66;
+		Node n67 = new Node(); n67.next = (i % 4 == 0)? head : tail; if(n67.next == null) tail = n67; else n67.next.value += 67;
+		Node n68 = new Node(); n68.next = (i % 5 == 0)? head : tail; if(n68.next == null) tail = n68; else n68.next.value += 68;
+		Node n69 = new Node(); n69.next = (i % 6 == 0)? head : tail; if(n69.next == null) tail = n69; else n69.next.value += 69;
+		Node n70 = new Node(); n70.next = (i % 2 == 0)? head : tail; if(n70.next == null) tail = n70; else n70.next.value += 70;
+		Node n71 = new Node(); n71.next = (i % 3 == 0)? head : tail; if(n71.next == null) tail = n71; else n71.next.value += 71;
+		Node n72 = new Node(); n72.next = (i % 4 == 0)? head : tail; if(n72.next == null) tail = n72; else n72.next.value += 72;
+		Node n73 = new Node(); n73.next = (i % 5 == 0)? head : tail; if(n73.next == null) tail = n73; else n73.next.value += 73;
+		Node n74 = new Node(); n74.next = (i % 6 == 0)? head : tail; if(n74.next == null) tail = n74; else n74.next.value += 74;
+		Node n75 = new Node(); n75.next = (i % 2 == 0)? head : tail; if(n75.next == null) tail = n75; else n75.next.value += 75;
+		Node n76 = new Node(); n76.next = (i % 3 == 0)? head : tail; if(n76.next == null) tail = n76; else n76.next.value += 76;
+		Node n77 = new Node(); n77.next = (i % 4 == 0)? head : tail; if(n77.next == null) tail = n77; else n77.next.value += 77;
+		Node n78 = new Node(); n78.next = (i % 5 == 0)? head : tail; if(n78.next == null) tail = n78; else n78.next.value += 78;
+		Node n79 = new Node(); n79.next = (i % 6 == 0)? head : tail; if(n79.next == null) tail = n79; else n79.next.value += 79;
+		Node n80 = new Node(); n80.next = (i % 2 == 0)? head : tail; if(n80.next == null) tail = n80; else n80.next.value += 80;
+		Node n81 = new Node(); n81.next = (i % 3 == 0)? head : tail; if(n81.next == null) tail = n81; else n81.next.value += 81;
+		Node n82 = new Node(); n82.next = (i % 4 == 0)? head : tail; if(n82.next == null) tail = n82; else n82.next.value += 82;
+		Node n83 = new Node(); n83.next = (i % 5 == 0)? head : tail; if(n83.next == null) tail = n83; else n83.next.value += 83;
+		Node n84 = new Node(); n84.next = (i % 6 == 0)? head : tail; if(n84.next == null) tail = n84; else n84.next.value += 84;
+		Node n85 = new Node(); n85.next = (i % 2 == 0)? head : tail; if(n85.next == null) tail = n85; else n85.next.value += 85;
+		Node n86 = new Node(); n86.next = (i % 3 == 0)? head : tail; if(n86.next == null) tail = n86; else n86.next.value += 86;
+		Node n87 = new Node(); n87.next = (i % 4 == 0)? head : tail; if(n87.next == null) tail = n87; else n87.next.value += 87;
+		Node n88 = new Node(); n88.next = (i % 5 == 0)? head : tail; if(n88.next == null) tail = n88; else n88.next.value += 88;
+		Node n89 = new Node(); n89.next = (i % 6 == 0)? head : tail; if(n89.next == null) tail = n89; else n89.next.value += 89;
+		Node n90 = new Node(); n90.next = (i % 2 == 0)? head : tail; if(n90.next == null) tail = n90; else n90.next.value += 90;
+		Node n91 = new Node(); n91.next = (i % 3 == 0)? head : tail; if(n91.next == null) tail = n91; else n91.next.value += 91;
+		Node n92 = new Node(); n92.next = (i % 4 == 0)? head : tail; if(n92.next == null) tail = n92; else n92.next.value += 92;
+		Node n93 = new Node(); n93.next = (i % 5 == 0)? head : tail; if(n93.next == null) tail = n93; else n93.next.value += 93;
+		Node n94 = new Node(); n94.next = (i % 6 == 0)? head : tail; if(n94.next == null) tail = n94; else n94.next.value += 94;
+		Node n95 = new Node(); n95.next = (i % 2 == 0)? head : tail; if(n95.next == null) tail = n95; else n95.next.value += 95;
+		Node n96 = new Node(); n96.next = (i % 3 == 0)? head : tail; if(n96.next == null) tail = n96; else n96.next.value += 96;
+		Node n97 = new Node(); n97.next = (i % 4 == 0)? head : tail; if(n97.next == null) tail = n97; else n97.next.value += 97;
+		Node n98 = new Node(); n98.next = (i % 5 == 0)? head : tail; if(n98.next == null) tail = n98; else n98.next.value += 98;
+		Node n99 = new Node(); n99.next = (i % 6 == 0)? head : tail; if(n99.next == null) tail = n99; else n99.next.value += 99;
+		if(i % 11 == 0) sink = tail;
+		Node n100 = new Node(); n100.next = (i % 2 == 0)? head : tail; if(n100.next == null) tail = n100; else n100.next.value += 100;
+		Node n101 = new Node(); n101.next = (i % 3 == 0)? head : tail; if(n101.next == null) tail = n101; else n101.next.value += 101;
+		Node n102 = new Node(); n102.next = (i % 4 == 0)? head : tail; if(n102.next == null) tail = n102; else n102.next.value += 102;
+		Node n103 = new Node(); n103.next = (i % 5 == 0)? head : tail; if(n103.next == null) tail = n103; else n103.next.value += 103;
+		Node n104 = new Node(); n104.next = (i % 6 == 0)? head : tail; if(n104.next == null) tail = n104; else n104.next.value += 104;
+		Node n105 = new Node(); n105.next = (i % 2 == 0)? head : tail; if(n105.next == null) tail = n105; else n105.next.value += 105;
+		Node n106 = new Node(); n106.next = (i % 3 == 0)? head : tail; if(n106.next == null) tail = n106; else n106.next.value += 106;
+		Node n107 = new Node(); n107.next = (i % 4 == 0)? head : tail; if(n107.next == null) tail = n107; else n107.next.value += 107;
+		Node n108 = new Node(); n108.next = (i % 5 == 0)? head : tail; if(n108.next == null) tail = n108; else n108.next.value += 108;
+		Node n109 = new Node(); n109.next = (i % 6 == 0)? head : tail; if(n109.next == null) tail = n109; else n109.next.value += 109;
+		Node n110 = new Node(); n110.next = (i % 2 == 0)? head : tail; if(n110.next == null) tail = n110; else n110.next.value += 110;
+		Node n111 = new Node(); n111.next = (i % 3 == 0)? head : tail; if(n111.next == null) tail = n111; else n111.next.value += 111;
+		Node n112 = new Node(); n112.next = (i % 4 == 0)? head : tail; if(n112.next == null) tail = n112; else n112.next.value += 112;
+		Node n113 = new Node(); n113.next = (i % 5 == 0)? head : tail; if(n113.next == null) tail = n113; else n113.next.value += 113;
+		Node n114 = new Node(); n114.next = (i % 6 == 0)? head : tail; if(n114.next == null) tail = n114; else n114.next.value += 114;
+		Node n115 = new Node(); n115.next = (i % 2 == 0)? head : tail; if(n115.next == null) tail = n115; else n115.next.value += 115;
+		Node n116 = new Node(); n116.next = (i % 3 == 0)? head : tail; if(n116.next == null) tail = n116; else n116.next.value += 116;
+		Node n117 = new Node(); n117.next = (i % 4 == 0)? head : tail; if(n117.next == null) tail = n117; else n117.next.value += 117;
+		Node n118 = new Node(); n118.next = (i % 5 == 0)? head : tail; if(n118.next == null) tail = n118; else n118.next.value += 118;
+		Node n119 = new Node(); n119.next = (i % 6 == 0)? head : tail; if(n119.next == null) tail = n119; else n119.next.value += 119;
+		Node n120 = new Node(); n120.next = (i % 2 == 0)? head : tail; if(n120.next == null) tail = n120; else n120.next.value += 120;
+		Node n121 = new Node(); n121.next = (i % 3 == 0)? head : tail; if(n121.next == null) tail = n121; else n121.next.value += 121;
+		Node n122 = new Node(); n122.next = (i % 4 == 0)? head : tail; if(n122.next == null) tail = n122; else n122.next.value += 122;
+		Node n123 = new Node(); n123.next = (i % 5 == 0)? head : tail; if(n123.next == null) tail = n123; else n123.next.value += 123;
+		Node n124 = new Node(); n124.next = (i % 6 == 0)? head : tail; if(n124.next == null) tail = n124; else n124.next.value += 124;
+		Node n125 = new Node(); n125.next = (i % 2 == 0)? head : tail; if(n125.next == null) tail = n125; else n125.next.value += 125;
+		Node n126 = new Node(); n126.next = (i % 3 == 0)? head : tail; if(n126.next == null) tail = n126; else n126.next.value += 126;
+		Node n127 = new Node(); n127.next = (i % 4 == 0)? head : tail; if(n127.next == null) tail = n127; else n127.next.value += 127;
+		Node n128 = new Node(); n128.next = (i % 5 == 0)? head : tail; if(n128.next == null) tail = n128; else n128.next.value += 128;
+		Node n129 = new Node(); n129.next = (i % 6 == 0)? head : tail; if(n129.next == null) tail = n129; else n129.next.value += 129;
+		Node n130 = new Node(); n130.next = (i % 2 == 0)? head : tail; if(n130.next == null) tail = n130; else n130.next.value += 130;
+		Node n131 = new Node(); n131.next = (i % 3 == 0)? head : tail; if(n131.next == null) tail = n131; else n131.next.value += 131;
+		Node n132 = new Node(); n132.next = (i % 4 == 0)? head : tail; if(n132.next == null) tail = n132; else n132.next.value += 132;
+		Node n133 = new Node(); n133.next = (i % 5 == 0)? head : tail; if(n133.next == null) tail = n133; else n133.next.value += 133;
+		Node n134 = new Node(); n134.next = (i % 6 == 0)? head : tail; if(n134.next == null) tail = n134; else n134.next.value += 134;
+		Node n135 = new Node(); n135.next = (i % 2 == 0)? head : tail; if(n135.next == null) tail = n135; else n135.next.value += 135;
+		Node n136 = new Node(); n136.next = (i % 3 == 0)? head : tail; if(n136.next == null) tail = n136; else n136.next.value += 136;
+		Node n137 = new Node(); n137.next = (i % 4 == 0)? head : tail; if(n137.next == null) tail = n137; else n137.next.value += 137;
+		Node n138 = new Node(); n138.next = (i % 5 == 0)? head : tail; if(n138.next == null) tail = n138; else n138.next.value += 138;
+		Node n139 = new Node(); n139.next = (i % 6 == 0)? head : tail; if(n139.next == null) tail = n139; else n139.next.value += 139;
+		Node n140 = new Node(); n140.next = (i % 2 == 0)? head : tail; if(n140.next == null) tail = n140; else n140.next.value += 140;
+		Node n141 = new Node(); n141.next = (i % 3 == 0)? head : tail; if(n141.next == null) tail = n141; else n141.next.value += 141;
+		Node n142 = new Node(); n142.next = (i % 4 == 0)? head : tail; if(n142.next == null) tail = n142; else n142.next.value += 142;
+		Node n143 = new Node(); n143.next = (i % 5 == 0)? head : tail; if(n143.next == null) tail = n143; else n143.next.value += 143;
+		Node n144 = new Node(); n144.next = (i % 6 == 0)? head : tail; if(n144.next == null) tail = n144; else n144.next.value += 144;
+		Node n145 = new Node(); n145.next = (i % 2 == 0)? head : tail; if(n145.next == null) tail = n145; else n145.next.value += 145;
+		Node n146 = new Node(); n146.next = (i % 3 == 0)? head : tail; if(n146.next == null) tail = n146; else n146.next.value += 146;
+		Node n147 = new Node(); n147.next = (i % 4 == 0)? head : tail; if(n147.next == null) tail = n147; else n147.next.value += 147;
+		Node n148 = new Node(); n148.next = (i % 5 == 0)? head : tail; if(n148.next == null) tail = n148; else n148.next.value += 148;
+		Node n149 = new Node(); n149.next = (i % 6 == 0)? head : tail; if(n149.next == null) tail = n149; else n149.next.value += 149;
+		if(i % 11 == 0) sink = tail;
+		Node n150 = new Node(); n150.next = (i % 2 == 0)? head : tail; if(n150.next == null) tail = n150; else n150.next.value += 150;
+		Node n151 = new Node(); n151.next = (i % 3 == 0)? head : tail; if(n151.next == null) tail = n151; else n151.next.value += 151;
+		Node n152 = new Node(); n152.next = (i % 4 == 0)? head : tail; if(n152.next == null) tail = n152; else n152.next.value += 152;
+		Node n153 = new Node(); n153.next = (i % 5 == 0)? head : tail; if(n153.next == null) tail = n153; else n153.next.value += 153;
+		Node n154 = new Node(); n154.next = (i % 6 == 0)? head : tail; if(n154.next == null) tail = n154; else n154.next.value += 154;
+		Node n155 = new Node(); n155.next = (i % 2 == 0)? head : tail; if(n155.next == null) tail = n155; else n155.next.value += 155;
+		Node n156 = new Node(); n156.next = (i % 3 == 0)? head : tail; if(n156.next == null) tail = n156; else n156.next.value += 156;
+		Node n157 = new Node(); n157.next = (i % 4 == 0)? head : tail; if(n157.next == null) tail = n157; else n157.next.value += 157;
+		Node n158 = new Node(); n158.next = (i % 5 == 0)? head : tail; if(n158.next == null) tail = n158; else n158.next.value += 158;
+		Node n159 = new Node(); n159.next = (i % 6 == 0)? head : tail; if(n159.next == null) tail = n159; else n159.next.value += 159;
+		Node n160 = new Node(); n160.next = (i % 2 == 0)? head : tail; if(n160.next == null) tail = n160; else n160.next.value += 160;
+		Node n161 = new Node(); n161.next = (i % 3 == 0)? head : tail; if(n161.next == null) tail = n161; else n161.next.value += 161;
+		Node n162 = new Node(); n162.next = (i % 4 == 0)? head : tail; if(n162.next == null) tail = n162; else n162.next.value += 162;
+		Node n163 = new Node(); n163.next = (i % 5 == 0)? head : tail; if(n163.next == null) tail = n163; else n163.next.value += 163;
+		Node n164 = new Node(); n164.next = (i % 6 == 0)? head : tail; if(n164.next == null) tail = n164; else n164.next.value += 164;
+		Node n165 = new Node(); n165.next = (i % 2 == 0)? head : tail; if(n165.next == null) tail = n165; else n165.next.value += 165;
+		Node n166 = new Node(); n166.next = (i % 3 == 0)? head : tail; if(n166.next == null) tail = n166; else n166.next.value += 166;
+		Node n167 = new Node(); n167.next = (i % 4 == 0)? head : tail; if(n167.next == null) tail = n167; else n167.next.value += 167;
+		Node n168 = new Node(); n168.next = (i % 5 == 0)? head : tail; if(n168.next == null) tail = n168; else n168.next.value += 168;
+		Node n169 = new Node(); n169.next = (i % 6 == 0)? head : tail; if(n169.next == null) tail = n169; else n169.next.value += 169;
+		Node n170 = new Node(); n170.next = (i % 2 == 0)? head : tail; if(n170.next == null) tail = n170; else n170.next.value += 170;
+		Node n171 = new Node(); n171.next = (i % 3 == 0)? head : tail; if(n171.next == null) tail = n171; else n171.next.value += 171;
+		Node n172 = new Node(); n172.next = (i % 4 == 0)? head : tail; if(n172.next == null) tail = n172; else n172.next.value += 172;
+		Node n173 = new Node(); n173.next = (i % 5 == 0)? head : tail; if(n173.next == null) tail = n173; else n173.next.value += 173;
+		Node n174 = new Node(); n174.next = (i % 6 == 0)? head : tail; if(n174.next == null) tail = n174; else n174.next.value += 174;
+		Node n175 = new Node(); n175.next = (i % 2 == 0)? head : tail; if(n175.next == null) tail = n175; else n175.next.value += 175;
+		Node n176 = new Node(); n176.next = (i % 3 == 0)? head : tail; if(n176.next == null) tail = n176; else n176.next.value += 176;
+		Node n177 = new Node(); n177.next = (i % 4 == 0)? head : tail; if(n177.next == null) tail = n177; else n177.next.value += 177;
+		Node n178 = new Node(); n178.next = (i % 5 == 0)? head : tail; if(n178.next == null) tail = n178; else n178.next.value += 178;
+		Node n179 = new Node(); n179.next = (i % 6 == 0)? head : tail; if(n179.next == null) tail = n179; else n179.next.value += 179;
+		Node n180 = new Node(); n180.next = (i % 2 == 0)? head : tail; if(n180.next == null) tail = n180; else n180.next.value += 180;
+		Node n181 = new Node(); n181.next = (i % 3 == 0)? head : tail; if(n181.next == null) tail = n181; else n181.next.value += 181;
+		Node n182 = new Node(); n182.next = (i % 4 == 0)? head : tail; if(n182.next == null) tail = n182; else n182.next.value += 182;
+		Node n183 = new Node(); n183.next = (i % 5 == 0)? head : tail; if(n183.next == null) tail = n183; else n183.next.value += 183;
+		Node n184 = new Node(); n184.next = (i % 6 == 0)? head : tail; if(n184.next == null) tail = n184; else n184.next.value += 184;
+		Node n185 = new Node(); n185.next = (i % 2 == 0)? head : tail; if(n185.next == null) tail = n185; else n185.next.value += 185;
+		Node n186 = new Node(); n186.next = (i % 3 == 0)? head : tail; if(n186.next == null) tail = n186; else n186.next.value += 186;
+		Node n187 = new Node(); n187.next = (i % 4 == 0)? head : tail; if(n187.next == null) tail = n187; else n187.next.value += 187;
+		Node n188 = new Node(); n188.next = (i % 5 == 0)? head : tail; if(n188.next == null) tail = n188; else n188.next.value += 188;
+		Node n189 = new Node(); n189.next = (i % 6 == 0)? head : tail; if(n189.next == null) tail = n189; else n189.next.value += 189;
+		Node n190 = new Node(); n190.next = (i % 2 == 0)? head : tail; if(n190.next == null) tail = n190; else n190.next.value += 190;
+		Node n191 = new Node(); n191.next = (i % 3 == 0)? head : tail; if(n191.next == null) tail = n191; else n191.next.value += 191;
+		Node n192 = new Node(); n192.next = (i % 4 == 0)? head : tail; if(n192.next == null) tail = n192; else n192.next.value += 192;
+		Node n193 = new Node(); n193.next = (i % 5 == 0)? head : tail; if(n193.next == null) tail = n193; else n193.next.value += 193;
+		Node n194 = new Node(); n194.next = (i % 6 == 0)? head : tail; if(n194.next == null) tail = n194; else n194.next.value += 194;
+		Node n195 = new Node(); n195.next = (i % 2 == 0)? head : tail; if(n195.next == null) tail = n195; else n195.next.value += 195;
+		Node n196 = new Node(); n196.next = (i % 3 == 0)? head : tail; if(n196.next == null) tail = n196; else n196.next.value += 196;
+		Node n197 = new Node(); n197.next = (i % 4 == 0)? head : tail; if(n197.next == null) tail = n197; else n197.next.value += 197;
+		Node n198 = new Node(); n198.next = (i % 5 == 0)? head : tail; if(n198.next == null) tail = n198; else n198.next.value += 198;
+		Node n199 = new Node(); n199.next = (i % 6 == 0)? head : tail; if(n199.next == null) tail = n199; else n199.next.value += 199;
+		if(i % 11 == 0) sink = tail;
+		Node n200 = new Node(); n200.next = (i % 2 == 0)? head : tail; if(n200.next == null) tail = n200; else n200.next.value += 200;
+		Node n201 = new Node(); n201.next = (i % 3 == 0)? head : tail; if(n201.next == null) tail = n201; else n201.next.value += 201;
+		Node n202 = new Node(); n202.next = (i % 4 == 0)? head : tail; if(n202.next == null) tail = n202; else n202.next.value += 202;
+		Node n203 = new Node(); n203.next = (i % 5 == 0)? head : tail; if(n203.next == null) tail = n203; else n203.next.value += 203;
+		Node n204 = new Node(); n204.next = (i % 6 == 0)? head : tail; if(n204.next == null) tail = n204; else n204.next.value += 204;
+		Node n205 = new Node(); n205.next = (i % 2 == 0)? head : tail; if(n205.next == null) tail = n205; else n205.next.value += 205;
+		Node n206 = new Node(); n206.next = (i % 3 == 0)? head : tail; if(n206.next == null) tail = n206; else n206.next.value += 206;
+		Node n207 = new Node(); n207.next = (i % 4 == 0)? head : tail; if(n207.next == null) tail = n207; else n207.next.value += 207;
+		Node n208 = new Node(); n208.next = (i % 5 == 0)? head : tail; if(n208.next == null) tail = n208; else n208.next.value += 208;
+		Node n209 = new Node(); n209.next = (i % 6 == 0)? head : tail; if(n209.next == null) tail = n209; else n209.next.value += 209;
+		Node n210 = new Node(); n210.next = (i % 2 == 0)? head : tail; if(n210.next == null) tail = n210; else n210.next.value += 210;
+		Node n211 = new Node(); n211.next = (i % 3 == 0)? head : tail; if(n211.next == null) tail = n211; else n211.next.value += 211;
+		Node n212 = new Node(); n212.next = (i % 4 == 0)? head : tail; if(n212.next == null) tail = n212; else n212.next.value += 212;
+		Node n213 = new Node(); n213.next = (i % 5 == 0)? head : tail; if(n213.next == null) tail = n213; else n213.next.value += 213;
+		Node n214 = new Node(); n214.next = (i % 6 == 0)? head : tail; if(n214.next == null) tail = n214; else n214.next.value += 214;
+		Node n215 = new Node(); n215.next = (i % 2 == 0)? head : tail; if(n215.next == null) tail = n215; else n215.next.value += 215;
+		Node n216 = new Node(); n216.next = (i % 3 == 0)? head : tail; if(n216.next == null) tail = n216; else n216.next.value += 216;
+		Node n217 = new Node(); n217.next = (i % 4 == 0)? head : tail; if(n217.next == null) tail = n217; else n217.next.value += 217;
+		Node n218 = new Node(); n218.next = (i % 5 == 0)? head : tail; if(n218.next == null) tail = n218; else n218.next.value += 218;
+		Node n219 = new Node(); n219.next = (i % 6 == 0)? head : tail; if(n219.next == null) tail = n219; else n219.next.value += 219;
+		Node n220 = new Node(); n220.next = (i % 2 == 0)? head : tail; if(n220.next == null) tail = n220; else n220.next.value += 220;
+		Node n221 = new Node(); n221.next = (i % 3 == 0)? head : tail; if(n221.next == null) tail = n221; else n221.next.value += 221;
+		Node n222 = new Node(); n222.next = (i % 4 == 0)? head : tail; if(n222.next == null) tail = n222; else n222.next.value += 222;
+		Node n223 = new Node(); n223.next = (i % 5 == 0)? head : tail; if(n223.next == null) tail = n223; else n223.next.value += 223;
+		Node n224 = new Node(); n224.next = (i % 6 == 0)? head : tail; if(n224.next == null) tail = n224; else n224.next.value += 224;
+		Node n225 = new Node(); n225.next = (i % 2 == 0)? head : tail; if(n225.next == null) tail = n225; else n225.next.value += 225;
+		Node n226 = new Node(); n226.next = (i % 3 == 0)? head : tail; if(n226.next == null) tail = n226; else n226.next.value += 226;
+		Node n227 = new Node(); n227.next = (i % 4 == 0)? head : tail; if(n227.next == null) tail = n227; else n227.next.value += 227;
+		Node n228 = new Node(); n228.next = (i % 5 == 0)? head : tail; if(n228.next == null) tail = n228; else n228.next.value += 228;
+		Node n229 = new Node(); n229.next = (i % 6 == 0)? head : tail; if(n229.next == null) tail = n229; else n229.next.value += 229;
+		Node n230 = new Node(); n230.next = (i % 2 == 0)? head : tail; if(n230.next == null) tail = n230; else n230.next.value += 230;
+		Node n231 = new Node(); n231.next = (i % 3 == 0)? head : tail; if(n231.next == null) tail = n231; else n231.next.value += 231;
+		Node n232 = new Node(); n232.next = (i % 4 == 0)? head : tail; if(n232.next == null) tail = n232; else n232.next.value += 232;
+		Node n233 = new Node(); n233.next = (i % 5 == 0)? head : tail; if(n233.next == null) tail = n233; else n233.next.value += 233;
+		Node n234 = new Node(); n234.next = (i % 6 == 0)? head : tail; if(n234.next == null) tail = n234; else n234.next.value += 234;
+		Node n235 = new Node(); n235.next = (i % 2 == 0)? head : tail; if(n235.next == null) tail = n235; else n235.next.value += 235;
+		Node n236 = new Node(); n236.next = (i % 3 == 0)? head : tail; if(n236.next == null) tail = n236; else n236.next.value += 236;
+		Node n237 = new Node(); n237.next = (i % 4 == 0)? head : tail; if(n237.next == null) tail = n237; else n237.next.value += 237;
+		Node n238 = new Node(); n238.next = (i % 5 == 0)? head : tail; if(n238.next == null) tail = n238; else n238.next.value += 238;
+		Node n239 = new Node(); n239.next = (i % 6 == 0)? head : tail; if(n239.next == null) tail = n239; else n239.next.value += 239;
+		Node n240 = new Node(); n240.next = (i % 2 == 0)? head : tail; if(n240.next == null) tail = n240; else n240.next.value += 240;
+		Node n241 = new Node(); n241.next = (i % 3 == 0)? head : tail; if(n241.next == null) tail = n241; else n241.next.value += 241;
+		Node n242 = new Node(); n242.next = (i % 4 == 0)? head : tail; if(n242.next == null) tail = n242; else n242.next.value += 242;
+		Node n243 = new Node(); n243.next = (i % 5 == 0)? head : tail; if(n243.next == null) tail = n243; else n243.next.value += 243;
+		Node n244 = new Node(); n244.next = (i % 6 == 0)? head : tail; if(n244.next == null) tail = n244; else n244.next.value += 244;
+		Node n245 = new Node(); n245.next = (i % 2 == 0)? head : tail; if(n245.next == null) tail = n245; else n245.next.value += 245;
+		Node n246 = new Node(); n246.next = (i % 3 == 0)? head : tail; if(n246.next == null) tail = n246; else n246.next.value += 246;
+		Node n247 = new Node(); n247.next = (i % 4 == 0)? head : tail; if(n247.next == null) tail = n247; else n247.next.value += 247;
+		Node n248 = new Node(); n248.next = (i % 5 == 0)? head : tail; if(n248.next == null) tail = n248; else n248.next.value += 248;
+		Node n249 = new Node(); n249.next = (i % 6 == 0)? head : tail; if(n249.next == null) tail = n249; else n249.next.value += 249;
+		if(i % 11 == 0) sink = tail;
+		Node n250 = new Node(); n250.next = (i % 2 == 0)? head : tail; if(n250.next == null) tail = n250; else n250.next.value += 250;
+		Node n251 = new Node(); n251.next = (i % 3 == 0)? head : tail; if(n251.next == null) tail = n251; else n251.next.value += 251;
+		Node n252 = new Node(); n252.next = (i % 4 == 0)? head : tail; if(n252.next == null) tail = n252; else n252.next.value += 252;
+		Node n253 = new Node(); n253.next = (i % 5 == 0)? head : tail; if(n253.next == null) tail = n253; else n253.next.value += 253;
+		Node n254 = new Node(); n254.next = (i % 6 == 0)? head : tail; if(n254.next == null) tail = n254; else n254.next.value += 254;
+		Node n255 = new Node(); n255.next = (i % 2 == 0)? head : tail; if(n255.next == null) tail = n255; else n255.next.value += 255;
+		Node n256 = new Node(); n256.next = (i % 3 == 0)? head : tail; if(n256.next == null) tail = n256; else n256.next.value += 256;
+		Node n257 = new Node(); n257.next = (i % 4 == 0)? head : tail; if(n257.next == null) tail = n257; else n257.next.value += 257;
+		Node n258 = new Node(); n258.next = (i % 5 == 0)? head : tail; if(n258.next == null) tail = n258; else n258.next.value += 258;
+		Node n259 = new Node(); n259.next = (i % 6 == 0)? head : tail; if(n259.next == null) tail = n259; else n259.next.value += 259;
+		Node n260 = new Node(); n260.next = (i % 2 == 0)? head : tail; if(n260.next == null) tail = n260; else n260.next.value += 260;
+		Node n261 = new Node(); n261.next = (i % 3 == 0)? head : tail; if(n261.next == null) tail = n261; else n261.next.value += 261;
+		Node n262 = new Node(); n262.next = (i % 4 == 0)? head : tail; if(n262.next == null) tail = n262; else n262.next.value += 262;
+		Node n263 = new Node(); n263.next = (i % 5 == 0)? head : tail; if(n263.next == null) tail = n263; else n263.next.value += 263;
+		Node n264 = new Node(); n264.next = (i % 6 == 0)? head : tail; if(n264.next == null) tail = n264; else n264.next.value += 264;
+		Node n265 = new Node(); n265.next = (i % 2 == 0)? head : tail; if(n265.next == null) tail = n265; else n265.next.value += 265;
+		Node n266 = new Node(); n266.next = (i % 3 == 0)? head : tail; if(n266.next == null) tail = n266; else n266.next.value += 266;
+		Node n267 = new Node(); n267.next = (i % 4 == 0)? head : tail; if(n267.next == null) tail = n267; else n267.next.value += 267;
+		Node n268 = new Node(); n268.next = (i % 5 == 0)? head : tail; if(n268.next == null) tail = n268; else n268.next.value += 268;
+		Node n269 = new Node(); n269.next = (i % 6 == 0)? head : tail; if(n269.next == null) tail = n269; else n269.next.value += 269;
+		Node n270 = new Node(); n270.next = (i % 2 == 0)? head : tail; if(n270.next == null) tail = n270; else n270.next.value += 270;
+		Node n271 = new Node(); n271.next = (i % 3 == 0)? head : tail; if(n271.next == null) tail = n271; else n271.next.value += 271;
+		Node n272 = new Node(); n272.next = (i % 4 == 0)? head : tail; if(n272.next == null) tail = n272; else n272.next.value += 272;
+		Node n273 = new Node(); n273.next = (i % 5 == 0)? head : tail; if(n273.next == null) tail = n273; else n273.next.value += 273;
+		Node n274 = new Node(); n274.next = (i % 6 == 0)? head : tail; if(n274.next == null) tail = n274; else n274.next.value += 274;
+		Node n275 = new Node(); n275.next = (i % 2 == 0)? head : tail; if(n275.next == null) tail = n275; else n275.next.value += 275;
+		Node n276 = new Node(); n276.next = (i % 3 == 0)? head : tail; if(n276.next == null) tail = n276; else n276.next.value += 276;
+		Node n277 = new Node(); n277.next = (i % 4 == 0)? head : tail; if(n277.next == null) tail = n277; else n277.next.value += 277;
+		Node n278 = new Node(); n278.next = (i % 5 == 0)? head : tail; if(n278.next == null) tail = n278; else n278.next.value += 278;
+		Node n279 = new Node(); n279.next = (i % 6 == 0)? head : tail; if(n279.next == null) tail = n279; else n279.next.value += 279;
+		Node n280 = new Node(); n280.next = (i % 2 == 0)? head : tail; if(n280.next == null) tail = n280; else n280.next.value += 280;
+		Node n281 = new Node(); n281.next = (i % 3 == 0)? head : tail; if(n281.next == null) tail = n281; else n281.next.value += 281;
+		Node n282 = new Node(); n282.next = (i % 4 == 0)? head : tail; if(n282.next == null) tail = n282; else n282.next.value += 282;
+		Node n283 = new Node(); n283.next = (i % 5 == 0)? head : tail; if(n283.next == null) tail = n283; else n283.next.value += 283;
+		Node n284 = new Node(); n284.next = (i % 6 == 0)? head : tail; if(n284.next == null) tail = n284; else n284.next.value += 284;
+		Node n285 = new Node(); n285.next = (i % 2 == 0)? head : tail; if(n285.next == null) tail = n285; else n285.next.value += 285;
+		Node n286 = new Node(); n286.next = (i % 3 == 0)? head : tail; if(n286.next == null) tail = n286; else n286.next.value += 286;
+		Node n287 = new Node(); n287.next = (i % 4 == 0)? head : tail; if(n287.next == null) tail = n287; else n287.next.value += 287;
+		Node n288 = new Node(); n288.next = (i % 5 == 0)? head : tail; if(n288.next == null) tail = n288; else n288.next.value += 288;
+		Node n289 = new Node(); n289.next = (i % 6 == 0)? head : tail; if(n289.next == null) tail = n289; else n289.next.value += 289;
+		Node n290 = new Node(); n290.next = (i % 2 == 0)? head : tail; if(n290.next == null) tail = n290; else n290.next.value += 290;
+		Node n291 = new Node(); n291.next = (i % 3 == 0)? head : tail; if(n291.next == null) tail = n291; else n291.next.value += 291;
+		Node n292 = new Node(); n292.next = (i % 4 == 0)? head : tail; if(n292.next == null) tail = n292; else n292.next.value += 292;
+		Node n293 = new Node(); n293.next = (i % 5 == 0)? head : tail; if(n293.next == null) tail = n293; else n293.next.value += 293;
+		Node n294 = new Node(); n294.next = (i % 6 == 0)? head : tail; if(n294.next == null) tail = n294; else n294.next.value += 294;
+		Node n295 = new Node(); n295.next = (i % 2 == 0)? head : tail; if(n295.next == null) tail = n295; else n295.next.value += 295;
+		Node n296 = new Node(); n296.next = (i % 3 == 0)? head : tail; if(n296.next == null) tail = n296; else n296.next.value += 296;
+		Node n297 = new Node(); n297.next = (i % 4 == 0)? head : tail; if(n297.next == null) tail = n297; else n297.next.value += 297;
+		Node n298 = new Node(); n298.next = (i % 5 == 0)? head : tail; if(n298.next == null) tail = n298; else n298.next.value += 298;
+		Node n299 = new Node(); n299.next = (i % 6 == 0)? head : tail; if(n299.next == null) tail = n299; else n299.next.value += 299;
+		if(i % 11 == 0) sink = tail;
+		return (i % 2 == 0)? head : tail;
+	}
+
+	public static void main(String[] args) {
+		Node head = new Node();
+		for(int i = 0; i < 10; i++) head = build(i, head);
+		System.out.println(head.value);
+	}
+}
@@ -0,0 +1,76 @@
+package loops;
+
+/*
+ * Allocations in loops: objects that die in the iteration, objects
+ * carried to the next one and objects that leak to a static.
+ */
+public class Main {
+	static Object sink;
+
+	static class Counter {
+		int value;
+		Counter next;
+	}
+
+	static int local(int n) {
+		int sum = 0;
+		for(int i = 0; i < n; i++) {
+			Counter c = new Counter();
+			c.value = i;
+			sum += c.value;
+		}
+		return sum;
+	}
+
+	static Counter carried(int n) {
+		Counter last = null;
+		for(int i = 0; i < n; i++) {
+			Counter c = new Counter();
+			c.next = last;
+			last = c;
+		}
+		return last;
+	}
+
+	static void leaking(int n) {
+		int i = 0;
+		while(true) {
+			Counter c = new Counter();
+			if(i % 7 == 0) sink = c;
+			if(++i >= n) break;
+		}
+	}
+
+	static int nested(int n) {
+		int sum = 0;
+		for(int i = 0; i < n; i++) {
+			StringBuilder sb = new StringBuilder();
+			for(int j = 0; j < i; j++) {
+				Counter c = new Counter();
+				c.value = j;
+				if(j % 2 == 0) sb.append(c.value);
+				else continue;
+			}
+			sum += sb.length();
+		}
+		return sum;
+	}
+
+	static int doWhile(int n) {
+		Counter head = new Counter();
+		Counter c = head;
+		do {
+			c.next = new Counter();
+			c = c.next;
+		} while(--n > 0);
+		int length = 0;
+		for(c = head; c != null; c = c.next) length++;
+		return length;
+	}
+
+	public static void main(String[] args) {
+		int n = args.length + 100;
+		System.out.println(local(n) + carried(n).value + nested(n / 10) + doWhile(n));
+		leaking(n);
+	}
+}
@@ -0,0 +1,65 @@
+package recursion;
+
+/*
+ * Recursive and mutually recursive methods, so that the summaries
+ * depend on each other in cycles.
+ */
+public class Main {
+	static Tree cache;
+
+	static class Tree {
+		Tree left, right;
+		Integer value;
+	}
+
+	static Tree build(int depth) {
+		if(depth == 0) return null;
+		Tree t = new Tree();
+		t.value = Integer.valueOf(depth);
+		t.left = build(depth - 1);
+		t.right = build(depth - 1);
+		return t;
+	}
+
+	static int sum(Tree t) {
+		if(t == null) return 0;
+		return t.value.intValue() + sum(t.left) + sum(t.right);
+	}
+
+	static Tree mirror(Tree t) {
+		if(t == null) return null;
+		Tree m = new Tree();
+		m.value = t.value;
+		m.left = mirror(t.right);
+		m.right = mirror(t.left);
+		return m;
+	}
+
+	static boolean even(int n, Tree acc) {
+		if(n == 0) return true;
+		Tree t = new Tree();
+		t.left = acc;
+		return odd(n - 1, t);
+	}
+
+	static boolean odd(int n, Tree acc) {
+		if(n == 0) {
+			cache = acc;
+			return false;
+		}
+		Tree t = new Tree();
+		t.right = acc;
+		return even(n - 1, t);
+	}
+
+	static Integer fib(Integer n) {
+		if(n.intValue() < 2) return n;
+		return Integer.valueOf(fib(Integer.valueOf(n.intValue() - 1)).intValue() + fib(Integer.valueOf(n.intValue() - 2)).intValue());
+	}
+
+	public static void main(String[] args) {
+		Tree t = build(8);
+		System.out.println(sum(t) + sum(mirror(t)) + fib(Integer.valueOf(15)).intValue());
+		System.out.println(even(11, null));
+	}
+}
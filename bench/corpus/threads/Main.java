@@ -0,0 +1,67 @@
+package threads;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Objects handed to other threads, shared through monitors, and
+ * objects that are only used by the thread that made them.
+ */
+public class Main {
+	static class Account {
+		private long balance;
+
+		synchronized void deposit(long amount) {
+			balance += amount;
+		}
+
+		synchronized long balance() {
+			return balance;
+		}
+	}
+
+	static class Worker implements Runnable {
+		final Account account;
+		final int rounds;
+
+		Worker(Account account, int rounds) {
+			this.account = account;
+			this.rounds = rounds;
+		}
+
+		public void run() {
+			for(int i = 0; i < rounds; i++) {
+				StringBuilder log = new StringBuilder();
+				log.append(i);
+				account.deposit(log.length());
+			}
+		}
+	}
+
+	static long runAll(int threads, int rounds) throws InterruptedException {
+		Account account = new Account();
+		List<Thread> started = new ArrayList<>();
+		for(int i = 0; i < threads; i++) {
+			Thread t = new Thread(new Worker(account, rounds));
+			t.start();
+			started.add(t);
+		}
+		for(Thread t : started) t.join();
+		return account.balance();
+	}
+
+	static int lockLocal(int n) {
+		Object lock = new Object();
+		int sum = 0;
+		for(int i = 0; i < n; i++) {
+			synchronized(lock) {
+				sum += i;
+			}
+		}
+		return sum;
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		System.out.println(runAll(4, 1000) + lockLocal(100));
+	}
+}
@@ -0,0 +1,122 @@
+package virtualcalls;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Calls through interfaces, abstract classes and overridden methods,
+ * where the callee depends on the receiver.
+ */
+public class Main {
+	static List<Shape> registry = new ArrayList<>();
+
+	interface Shape {
+		double area();
+		Shape scale(double f);
+		void accept(Visitor v);
+	}
+
+	interface Visitor {
+		void visit(Circle c);
+		void visit(Rect r);
+	}
+
+	static abstract class Base implements Shape {
+		String name;
+
+		Base(String name) {
+			this.name = name;
+		}
+
+		public Shape scale(double f) {
+			return this;
+		}
+	}
+
+	static class Circle extends Base {
+		double r;
+
+		Circle(double r) {
+			super("circle");
+			this.r = r;
+		}
+
+		public double area() {
+			return 3.14159 * r * r;
+		}
+
+		@Override
+		public Shape scale(double f) {
+			return new Circle(r * f);
+		}
+
+		public void accept(Visitor v) {
+			v.visit(this);
+		}
+	}
+
+	static class Rect extends Base {
+		double w, h;
+
+		Rect(double w, double h) {
+			super("rect");
+			this.w = w;
+			this.h = h;
+		}
+
+		public double area() {
+			return w * h;
+		}
+
+		public void accept(Visitor v) {
+			v.visit(this);
+		}
+	}
+
+	static class Square extends Rect {
+		Square(double s) {
+			super(s, s);
+		}
+
+		@Override
+		public Shape scale(double f) {
+			Square s = new Square(w * f);
+			registry.add(s);
+			return s;
+		}
+	}
+
+	static class AreaSum implements Visitor {
+		double total;
+
+		public void visit(Circle c) {
+			total += c.area();
+		}
+
+		public void visit(Rect r) {
+			total += r.area();
+		}
+	}
+
+	static Shape make(int i) {
+		switch(i % 3) {
+		case 0: return new Circle(i);
+		case 1: return new Rect(i, i + 1);
+		default: return new Square(i);
+		}
+	}
+
+	static double total(int n) {
+		AreaSum v = new AreaSum();
+		for(int i = 0; i < n; i++) {
+			Shape s = make(i).scale(2.0);
+			s.accept(v);
+		}
+		return v.total;
+	}
+
+	public static void main(String[] args) {
+		System.out.println(total(args.length + 30));
+		System.out.println(registry.size());
+	}
+}
@@ -0,0 +1,242 @@
+package bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import analyser.StaticAnalyser;
+import es.EscapeStatus;
+import main.GetSootArgs;
+import ptg.ObjectNode;
+import ptg.ObjectType;
+import resolver.SummaryResolver;
+import soot.G;
+import soot.PackManager;
+import soot.SootMethod;
+import soot.Transform;
+
+/*
+ * Runs the whole pipeline (soot, StaticAnalyser, SummaryResolver) over
+ * every program of the corpus and compares the outcome with a stored
+ * baseline. A program is a directory of sources whose main class is
+ * <directory name>.Main; it is compiled here, so the corpus needs
+ * nothing but a JDK.
+ *
+ *   EndToEnd <java 8 home> <corpus dir> <work dir> [-record]
+ *
+ * For every program it records the wall time of analysis and
+ * resolution (the median of bench.runs runs, 3 by default), the
+ * worklist visits, the peak heap and the share of the internal objects
+ * that are NoEscape after resolution. -record writes the results to
+ * <corpus dir>/baseline.csv. Otherwise they are compared with that
+ * file: time and heap are a regression when they exceed the baseline
+ * by more than bench.tolerance (0.10 by default) plus a fixed slack,
+ * the NoEscape share when it is lower at all. The worklist visits do
+ * not depend on the machine, a change is reported but is not a
+ * regression. The exit status is 1 when there is a regression.
+ */
+public class EndToEnd {
+	static final String HEADER = "program,wallMs,visits,peakHeapMB,noEscapeRatio";
+	// differences below these are noise whatever the tolerance
+	static final long SLACK_MS = 20, SLACK_MB = 8;
+
+	static class Result {
+		final String program;
+		final long wallMs;
+		final long visits;
+		final long peakHeapMB;
+		final double noEscapeRatio;
+
+		Result(String program, long wallMs, long visits, long peakHeapMB, double noEscapeRatio) {
+			this.program = program;
+			this.wallMs = wallMs;
+			this.visits = visits;
+			this.peakHeapMB = peakHeapMB;
+			this.noEscapeRatio = noEscapeRatio;
+		}
+
+		String toCsv() {
+			return String.format(Locale.ROOT, "%s,%d,%d,%d,%.4f", program, wallMs, visits, peakHeapMB, noEscapeRatio);
+		}
+
+		static Result parse(String line) {
+			String[] f = line.split(",");
+			return new Result(f[0], Long.parseLong(f[1]), Long.parseLong(f[2]), Long.parseLong(f[3]), Double.parseDouble(f[4]));
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if(args.length < 3) {
+			System.out.println("Usage: EndToEnd <java 8 home> <corpus dir> <work dir> [-record]");
+			System.exit(2);
+		}
+		String javaHome = args[0];
+		Path corpus = Paths.get(args[1]);
+		Path work = Paths.get(args[2]);
+		boolean record = args.length > 3 && args[3].equals("-record");
+		int runs = Integer.getInteger("bench.runs", 3);
+		double tolerance = Double.parseDouble(System.getProperty("bench.tolerance", "0.10"));
+
+		List<Result> results = new ArrayList<>();
+		for(Path program : programs(corpus)) {
+			String name = program.getFileName().toString();
+			Path classes = work.resolve("classes").resolve(name);
+			compile(program, classes);
+			long[] times = new long[runs];
+			Result last = null;
+			long peak = 0;
+			for(int i = 0; i < runs; i++) {
+				last = run(javaHome, name, classes, work.resolve("sootOutput").resolve(name));
+				times[i] = last.wallMs;
+				peak = Math.max(peak, last.peakHeapMB);
+			}
+			Arrays.sort(times);
+			results.add(new Result(name, times[runs/2], last.visits, peak, last.noEscapeRatio));
+		}
+
+		Path baseline = corpus.resolve("baseline.csv");
+		write(results, work.resolve("results.csv"));
+		if(record) {
+			write(results, baseline);
+			System.out.println("Baseline written to "+baseline);
+			return;
+		}
+		if(!Files.isRegularFile(baseline)) {
+			print(results);
+			System.out.println("No baseline at "+baseline+", run with -record to create it");
+			return;
+		}
+		if(!compare(results, read(baseline), tolerance)) System.exit(1);
+	}
+
+	static List<Path> programs(Path corpus) throws IOException {
+		List<Path> programs = new ArrayList<>();
+		try(DirectoryStream<Path> dirs = Files.newDirectoryStream(corpus, Files::isDirectory)) {
+			dirs.forEach(programs::add);
+		}
+		programs.sort(null);
+		return programs;
+	}
+
+	static void compile(Path program, Path classes) throws IOException {
+		List<String> options = new ArrayList<>(Arrays.asList("-nowarn", "-source", "1.8", "-target", "1.8", "-d", classes.toString()));
+		try(DirectoryStream<Path> sources = Files.newDirectoryStream(program, "*.java")) {
+			sources.forEach(p -> options.add(p.toString()));
+		}
+		Files.createDirectories(classes);
+		JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+		if(javac == null) throw new IllegalStateException("EndToEnd needs a JDK, not a JRE");
+		if(javac.run(null, null, null, options.toArray(new String[0])) != 0) {
+			throw new IllegalStateException("Unable to compile "+program);
+		}
+	}
+
+	private static Result run(String javaHome, String name, Path classes, Path out) {
+		G.reset();
+		StaticAnalyser.totalVisits.set(0);
+		StaticAnalyser.totalSweeps.set(0);
+		System.gc();
+		List<MemoryPoolMXBean> heap = new ArrayList<>();
+		for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if(pool.getType() == MemoryType.HEAP && pool.isValid()) {
+				pool.resetPeakUsage();
+				heap.add(pool);
+			}
+		}
+		String[] sootArgs = new GetSootArgs().get(new String[] {javaHome, "false", classes.toString(), name+".Main", out.toString()});
+
+		long start = System.nanoTime();
+		StaticAnalyser staticAnalyser = new StaticAnalyser();
+		PackManager.v().getPack("jtp").add(new Transform("jtp.sample", staticAnalyser));
+		soot.Main.main(sootArgs);
+		staticAnalyser.awaitCompletion();
+		SummaryResolver sr = new SummaryResolver();
+		sr.resolve(StaticAnalyser.summaries, StaticAnalyser.ptgs);
+		long wallMs = (System.nanoTime() - start)/1000000;
+
+		long peak = 0;
+		for(MemoryPoolMXBean pool : heap) peak += pool.getPeakUsage().getUsed();
+		return new Result(name, wallMs, StaticAnalyser.totalVisits.get(), peak >> 20, noEscapeRatio(sr.solvedSummaries));
+	}
+
+	private static double noEscapeRatio(Map<SootMethod, HashMap<ObjectNode, EscapeStatus>> summaries) {
+		long internal = 0, noEscape = 0;
+		for(HashMap<ObjectNode, EscapeStatus> summary : summaries.values()) {
+			for(Map.Entry<ObjectNode, EscapeStatus> e : summary.entrySet()) {
+				if(e.getKey().type != ObjectType.internal) continue;
+				internal++;
+				if(e.getValue().containsNoEscape()) noEscape++;
+			}
+		}
+		return (internal == 0)? 0 : (double) noEscape/internal;
+	}
+
+	/*
+	 * Prints baseline and current side by side and returns false when
+	 * there is a regression.
+	 */
+	private static boolean compare(List<Result> results, Map<String, Result> baseline, double tolerance) {
+		boolean ok = true;
+		System.out.println(String.format(Locale.ROOT, "%-14s %19s %21s %15s %16s", "program", "wall ms", "visits", "heap MB", "NoEscape"));
+		for(Result r : results) {
+			Result b = baseline.get(r.program);
+			if(b == null) {
+				System.out.println(String.format(Locale.ROOT, "%-14s %18d %20d %14d %16.4f  (not in baseline)",
+						r.program, r.wallMs, r.visits, r.peakHeapMB, r.noEscapeRatio));
+				continue;
+			}
+			List<String> notes = new ArrayList<>();
+			if(r.wallMs > b.wallMs*(1 + tolerance) + SLACK_MS) notes.add("SLOWER");
+			if(r.peakHeapMB > b.peakHeapMB*(1 + tolerance) + SLACK_MB) notes.add("MORE HEAP");
+			if(r.noEscapeRatio < b.noEscapeRatio - 1e-9) notes.add("LESS PRECISE");
+			if(!notes.isEmpty()) ok = false;
+			if(r.visits != b.visits) notes.add("visits changed");
+			System.out.println(String.format(Locale.ROOT, "%-14s %8d -> %-7d %9d -> %-8d %5d -> %-6d %.4f -> %.4f  %s",
+					r.program, b.wallMs, r.wallMs, b.visits, r.visits, b.peakHeapMB, r.peakHeapMB,
+					b.noEscapeRatio, r.noEscapeRatio, String.join(", ", notes)));
+		}
+		System.out.println(ok? "No regression against the baseline" : "Regression against the baseline");
+		return ok;
+	}
+
+	private static void print(List<Result> results) {
+		System.out.println(HEADER);
+		results.forEach(r -> System.out.println(r.toCsv()));
+	}
+
+	private static void write(List<Result> results, Path file) throws IOException {
+		if(file.getParent() != null) Files.createDirectories(file.getParent());
+		try(PrintWriter w = new PrintWriter(new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8)))) {
+			w.println(HEADER);
+			results.forEach(r -> w.println(r.toCsv()));
+		}
+	}
+
+	private static Map<String, Result> read(Path file) throws IOException {
+		Map<String, Result> results = new TreeMap<>();
+		for(String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+			if(line.isEmpty() || line.equals(HEADER)) continue;
+			Result r = Result.parse(line);
+			results.put(r.program, r);
+		}
+		return results;
+	}
+}
@@ -0,0 +1,83 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.ConditionalValue;
+import es.EscapeStatus;
+import es.FieldPath;
+import ptg.ObjectNode;
+import ptg.ObjectType;
+import soot.SootField;
+
+/*
+ * The escape-status operations that the graph operations call once per
+ * edge. A status holds cvs CVs whose field paths are pathDepth long;
+ * the status it is merged with shares half of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EscapeStatusBenchmark {
+	@Param({"1", "4", "16"})
+	public int cvs;
+
+	@Param({"1", "4"})
+	public int pathDepth;
+
+	EscapeStatus status;
+	EscapeStatus overlapping;
+	ConditionalValue cv;
+	SootField field;
+
+	@Setup
+	public void setup() {
+		field = SyntheticGraph.FIELDS[0];
+		status = statusOf(0, cvs);
+		overlapping = statusOf(cvs/2, cvs/2 + cvs);
+		cv = cv(0);
+	}
+
+	private EscapeStatus statusOf(int from, int to) {
+		EscapeStatus es = new EscapeStatus(cv(from));
+		for(int i = from + 1; i < to; i++) es.addEscapeState(cv(i));
+		return es;
+	}
+
+	private ConditionalValue cv(int i) {
+		FieldPath path = FieldPath.ROOT;
+		for(int d = 0; d < pathDepth; d++) path = path.append(SyntheticGraph.FIELDS[(i + d) % SyntheticGraph.FIELDS.length]);
+		return ConditionalValue.getInstance(null, ObjectNode.getInstance(i, ObjectType.argument), path, true);
+	}
+
+	@Benchmark
+	public EscapeStatus addEscapeStatus() {
+		EscapeStatus es = new EscapeStatus(status);
+		es.addEscapeStatus(overlapping);
+		return es;
+	}
+
+	@Benchmark
+	public EscapeStatus makeField() {
+		return status.makeField(field);
+	}
+
+	@Benchmark
+	public ConditionalValue addField() {
+		return cv.addField(field);
+	}
+}
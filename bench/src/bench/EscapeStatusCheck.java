@@ -0,0 +1,188 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import es.ConditionalValue;
+import es.Escape;
+import es.EscapeState;
+import es.EscapeStatus;
+import es.NoEscape;
+import ptg.ObjectNode;
+import ptg.ObjectType;
+import soot.RefType;
+import soot.SootField;
+
+/*
+ * Randomized check of es.EscapeStatus against Model, a plain set of
+ * states with the purge rules of the original implementation: random
+ * sequences of adds, merges, makeField and makeFalseClone must leave
+ * both with the same states and answer every query the same. It also
+ * checks that getStatus lists the CVs in ConditionalValue.ORDER, the
+ * order the resolver depends on.
+ *
+ *   java -cp bench/out:soot.jar:<stava classes> bench.EscapeStatusCheck [rounds] [seed]
+ *
+ * Exits with status 1 on the first difference.
+ */
+public class EscapeStatusCheck {
+
+	/*
+	 * The original EscapeStatus, a HashSet of states.
+	 */
+	static final class Model {
+		Set<EscapeState> status = new HashSet<>();
+
+		Model() {
+			status.add(NoEscape.getInstance());
+		}
+
+		Model(EscapeState es) {
+			status.add(es);
+		}
+
+		Model(Model m) {
+			status.addAll(m.status);
+		}
+
+		void purge() {
+			if(containsCV()) {
+				if(doesEscape()) setEscape();
+				else status.remove(NoEscape.getInstance());
+			} else if(doesEscape() && containsNoEscape()) setEscape();
+		}
+
+		void setEscape() {
+			status = new HashSet<>();
+			status.add(Escape.getInstance());
+		}
+
+		void setNoEscape() {
+			if(!containsCV() && !doesEscape()) status.add(NoEscape.getInstance());
+		}
+
+		void add(EscapeState es) {
+			status.add(es);
+			purge();
+		}
+
+		void addAll(Model m) {
+			status.addAll(m.status);
+			purge();
+		}
+
+		boolean doesEscape() {
+			return status.contains(Escape.getInstance());
+		}
+
+		boolean containsNoEscape() {
+			return status.contains(NoEscape.getInstance());
+		}
+
+		boolean containsCV() {
+			for(EscapeState s : status) if(s instanceof ConditionalValue) return true;
+			return false;
+		}
+
+		boolean isCallerOnly() {
+			for(EscapeState s : status) {
+				if(!(s instanceof ConditionalValue) || ((ConditionalValue) s).getMethod() != null) return false;
+			}
+			return true;
+		}
+
+		Model makeField(SootField f) {
+			Model m = new Model();
+			for(EscapeState s : status) m.add((s instanceof ConditionalValue)? ((ConditionalValue) s).addField(f) : s);
+			return m;
+		}
+
+		Model makeFalseClone() {
+			if(doesEscape() || containsNoEscape()) return this;
+			Model m = new Model();
+			for(EscapeState s : status) m.add(((ConditionalValue) s).makeFalseClone());
+			return m;
+		}
+	}
+
+	public static void main(String[] args) {
+		int rounds = (args.length > 0)? Integer.parseInt(args[0]) : 20000;
+		long seed = (args.length > 1)? Long.parseLong(args[1]) : 7;
+		Random r = new Random(seed);
+		SootField[] fields = {new SootField("f", RefType.v("java.lang.Object")), new SootField("g", RefType.v("java.lang.Object"))};
+		List<EscapeState> pool = new ArrayList<>();
+		pool.add(Escape.getInstance());
+		pool.add(NoEscape.getInstance());
+		for(int i = 0; i < 6; i++) {
+			ConditionalValue cv = ConditionalValue.getInstance(null, ObjectNode.getInstance(i%3, ObjectType.argument), null, i < 3);
+			pool.add(cv);
+			pool.add(cv.addField(fields[0]));
+		}
+		int k = 4;
+		for(int t = 0; t < rounds; t++) {
+			EscapeStatus[] n = new EscapeStatus[k];
+			Model[] m = new Model[k];
+			for(int i = 0; i < k; i++) {
+				if(r.nextBoolean()) {
+					n[i] = new EscapeStatus();
+					m[i] = new Model();
+				} else {
+					EscapeState s = pool.get(r.nextInt(pool.size()));
+					n[i] = new EscapeStatus(s);
+					m[i] = new Model(s);
+				}
+			}
+			for(int step = 0; step < 12; step++) {
+				int i = r.nextInt(k), j = r.nextInt(k);
+				EscapeState s = pool.get(r.nextInt(pool.size()));
+				switch(r.nextInt(7)) {
+				case 0: n[i].addEscapeState(s); m[i].add(s); break;
+				case 1: n[i].addEscapeStatus(n[j]); m[i].addAll(m[j]); break;
+				case 2: n[i].setEscape(); m[i].setEscape(); break;
+				case 3: n[i].setNoEscape(); m[i].setNoEscape(); break;
+				case 4: {
+					SootField f = fields[r.nextInt(fields.length)];
+					n[i] = n[j].makeField(f);
+					m[i] = m[j].makeField(f);
+					break;
+				}
+				case 5: {
+					EscapeStatus x = n[j].makeFalseClone();
+					Model y = m[j].makeFalseClone();
+					if((x == n[j]) != (y == m[j])) fail(t, "makeFalseClone identity", n[j], m[j]);
+					n[i] = x;
+					m[i] = y;
+					break;
+				}
+				default: n[i] = new EscapeStatus(n[j]); m[i] = new Model(m[j]);
+				}
+				for(int q = 0; q < k; q++) check(t, n[q], m[q]);
+			}
+		}
+		System.out.println("EscapeStatus: "+rounds+" rounds agree with the model");
+	}
+
+	private static void check(int t, EscapeStatus n, Model m) {
+		Collection<EscapeState> states = n.getStatus();
+		if(!new HashSet<>(states).equals(m.status)) fail(t, "states", n, m);
+		if(n.hashCode() != m.status.hashCode()) fail(t, "hashCode", n, m);
+		if(n.doesEscape() != m.doesEscape() || n.containsNoEscape() != m.containsNoEscape()
+				|| n.containsCV() != m.containsCV() || n.isCallerOnly() != m.isCallerOnly()) fail(t, "queries", n, m);
+		ConditionalValue last = null;
+		for(EscapeState s : states) {
+			if(!(s instanceof ConditionalValue)) continue;
+			ConditionalValue cv = (ConditionalValue) s;
+			if(last != null && ConditionalValue.ORDER.compare(last, cv) >= 0) fail(t, "CV order", n, m);
+			last = cv;
+		}
+	}
+
+	private static void fail(int t, String what, EscapeStatus n, Model m) {
+		System.out.println("Round "+t+", "+what+": "+n+" vs model "+m.status);
+		System.exit(1);
+	}
+}
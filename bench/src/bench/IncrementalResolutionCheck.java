@@ -0,0 +1,149 @@
+package bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import es.ConditionalValue;
+import es.Escape;
+import es.EscapeState;
+import es.EscapeStatus;
+import es.FieldPath;
+import ptg.ObjectNode;
+import ptg.ObjectSet;
+import ptg.ObjectType;
+import ptg.PersistentMap;
+import ptg.PointsToGraph;
+import ptg.RetLocal;
+import resolver.SummaryResolver;
+import soot.RefType;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootField;
+import soot.SootMethod;
+import soot.Type;
+import soot.VoidType;
+import utils.AnalysisOptions;
+
+/*
+ * Randomized check of the incremental resolution (stava.summaryStore):
+ * random summaries over a few methods calling each other are resolved
+ * with the store, one method is changed (or none), and the result of
+ * resolving again with the store must be the same as that of a full
+ * resolution without it.
+ *
+ *   java -cp bench/out:soot.jar:<stava classes> bench.IncrementalResolutionCheck [rounds] [seed]
+ *
+ * Exits with status 1 on the first difference.
+ */
+public class IncrementalResolutionCheck {
+	private static Random random;
+	private static SootField[] fields;
+
+	public static void main(String[] args) throws IOException {
+		int rounds = (args.length > 0)? Integer.parseInt(args[0]) : 500;
+		long seed = (args.length > 1)? Long.parseLong(args[1]) : 7;
+		random = new Random(seed);
+		Path dir = Files.createTempDirectory("stava-inc");
+		String store = AnalysisOptions.summaryStore;
+		try {
+			for(int round = 0; round < rounds; round++) {
+				SootClass c = new SootClass("bench.synthetic.C"+round);
+				Scene.v().addClass(c);
+				fields = new SootField[] {new SootField("f", RefType.v("java.lang.Object")), new SootField("g", RefType.v("java.lang.Object"))};
+				for(SootField f : fields) c.addField(f);
+				int n = 3 + random.nextInt(6);
+				SootMethod[] methods = new SootMethod[n];
+				for(int i = 0; i < n; i++) {
+					methods[i] = new SootMethod("m"+i, Collections.<Type>emptyList(), VoidType.v());
+					c.addMethod(methods[i]);
+				}
+				Map<SootMethod, HashMap<ObjectNode, EscapeStatus>> summaries = new HashMap<>();
+				Map<SootMethod, PointsToGraph> ptgs = new HashMap<>();
+				for(SootMethod m : methods) generate(m, methods, summaries, ptgs);
+				Files.deleteIfExists(dir.resolve("resolution.bin"));
+				AnalysisOptions.summaryStore = dir.toString();
+				new SummaryResolver().resolve(summaries, ptgs);
+				int k = random.nextInt(n + 1);
+				if(k < n) generate(methods[k], methods, summaries, ptgs);
+				SummaryResolver incremental = new SummaryResolver();
+				incremental.resolve(summaries, ptgs);
+				AnalysisOptions.summaryStore = null;
+				SummaryResolver full = new SummaryResolver();
+				full.resolve(summaries, ptgs);
+				String a = text(incremental.solvedSummaries), b = text(full.solvedSummaries);
+				if(!a.equals(b)) {
+					System.out.println("Round "+round+": incremental "+a+"\nfull "+b);
+					System.exit(1);
+				}
+			}
+		} finally {
+			AnalysisOptions.summaryStore = store;
+		}
+		System.out.println("Incremental resolution: "+rounds+" rounds agree with a full resolution");
+	}
+
+	private static void generate(SootMethod m, SootMethod[] methods, Map<SootMethod, HashMap<ObjectNode, EscapeStatus>> summaries,
+			Map<SootMethod, PointsToGraph> ptgs) {
+		HashMap<ObjectNode, EscapeStatus> summary = new HashMap<>();
+		List<ObjectNode> objects = new ArrayList<>();
+		for(int i = 0; i < 2; i++) objects.add(ObjectNode.getInstance(i, ObjectType.parameter));
+		for(int i = 0; i < 3; i++) objects.add(ObjectNode.getInstance(i + 10, ObjectType.internal));
+		objects.add(ObjectNode.getInstance(0, ObjectType.returnValue));
+		for(ObjectNode o : objects) {
+			if(random.nextInt(4) == 0) continue;
+			double p = random.nextDouble();
+			EscapeStatus es;
+			if(p < 0.15) es = new EscapeStatus();
+			else if(p < 0.22) es = new EscapeStatus(Escape.getInstance());
+			else {
+				es = new EscapeStatus(cv(methods));
+				for(int e = random.nextInt(3); e > 0; e--) es.addEscapeState(cv(methods));
+			}
+			summary.put(o, es);
+		}
+		summaries.put(m, summary);
+		PointsToGraph ptg = new PointsToGraph();
+		for(int e = random.nextInt(4); e > 0; e--) {
+			ObjectNode from = objects.get(random.nextInt(objects.size())), to = objects.get(random.nextInt(objects.size()));
+			SootField f = fields[random.nextInt(fields.length)];
+			PersistentMap<SootField, ObjectSet> out = ptg.fields.get(from);
+			if(out == null) out = PersistentMap.empty();
+			ObjectSet s = out.get(f);
+			ptg.fields = ptg.fields.plus(from, out.plus(f, (s == null)? ObjectSet.of(to) : s.plus(to)));
+		}
+		ptg.vars = ptg.vars.plus(RetLocal.getInstance(), ObjectSet.of(objects.get(random.nextInt(objects.size()))));
+		ptgs.put(m, ptg);
+	}
+
+	private static EscapeState cv(SootMethod[] methods) {
+		FieldPath path = null;
+		for(int d = random.nextInt(3); d > 0; d--) path = ((path == null)? FieldPath.ROOT : path).append(fields[random.nextInt(fields.length)]);
+		if(random.nextInt(3) == 0) {
+			ObjectType type = random.nextBoolean()? ObjectType.argument : ObjectType.returnValue;
+			return ConditionalValue.getInstance(null, ObjectNode.getInstance(random.nextInt(2), type), path, random.nextInt(4) != 0);
+		}
+		SootMethod m = methods[random.nextInt(methods.length)];
+		ObjectNode o = (random.nextInt(3) == 0)? ObjectNode.getInstance(0, ObjectType.returnValue)
+				: ObjectNode.getInstance(random.nextInt(2), ObjectType.parameter);
+		return ConditionalValue.getInstance(m, o, path, random.nextInt(4) != 0);
+	}
+
+	private static String text(Map<SootMethod, HashMap<ObjectNode, EscapeStatus>> solved) {
+		TreeMap<String, String> t = new TreeMap<>();
+		solved.forEach((m, summary) -> summary.forEach((o, es) -> {
+			TreeSet<String> states = new TreeSet<>();
+			es.getStatus().forEach(s -> states.add(s.toString()));
+			t.put(m.getSignature()+"/"+o, states.toString());
+		}));
+		return t.toString();
+	}
+}
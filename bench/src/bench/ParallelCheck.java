@@ -0,0 +1,116 @@
+package bench;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import analyser.StaticAnalyser;
+import es.EscapeStatus;
+import main.GetSootArgs;
+import ptg.ObjectNode;
+import ptg.PointsToGraph;
+import resolver.SummaryResolver;
+import soot.G;
+import soot.PackManager;
+import soot.SootMethod;
+import soot.Transform;
+import utils.AnalysisOptions;
+
+/*
+ * Checks that stava.parallel gives the results of the sequential run:
+ * every program of the corpus (see EndToEnd) is analysed and resolved
+ * once on one thread and bench.runs times (3 by default) in the
+ * parallel mode, and the points-to graphs, the summaries and the
+ * resolved summaries of every method must be the same each time.
+ *
+ *   java -cp bench/out:soot.jar:<stava classes> bench.ParallelCheck <java 8 home> <corpus dir> <work dir>
+ *
+ * Exits with status 1 on the first difference.
+ */
+public class ParallelCheck {
+
+	public static void main(String[] args) throws IOException {
+		if(args.length < 3) {
+			System.out.println("Usage: ParallelCheck <java 8 home> <corpus dir> <work dir>");
+			System.exit(2);
+		}
+		String javaHome = args[0];
+		Path corpus = Paths.get(args[1]);
+		Path work = Paths.get(args[2]);
+		int runs = Integer.getInteger("bench.runs", 3);
+		boolean parallel = AnalysisOptions.parallel;
+		try {
+			for(Path program : EndToEnd.programs(corpus)) {
+				String name = program.getFileName().toString();
+				Path classes = work.resolve("classes").resolve(name);
+				EndToEnd.compile(program, classes);
+				Path out = work.resolve("sootOutput").resolve(name);
+				AnalysisOptions.parallel = false;
+				Map<String, String> sequential = run(javaHome, name, classes, out);
+				AnalysisOptions.parallel = true;
+				for(int i = 0; i < runs; i++) {
+					Map<String, String> r = run(javaHome, name, classes, out);
+					if(!r.equals(sequential)) {
+						report(name, i, sequential, r);
+						System.exit(1);
+					}
+				}
+				System.out.println(name+": "+sequential.size()+" line(s), "+runs+" parallel run(s) agree with the sequential run");
+			}
+		} finally {
+			AnalysisOptions.parallel = parallel;
+		}
+	}
+
+	/*
+	 * The results of one run as text, keyed so that they can be compared
+	 * whatever the order in which the methods were done.
+	 */
+	private static Map<String, String> run(String javaHome, String name, Path classes, Path out) {
+		G.reset();
+		String[] sootArgs = new GetSootArgs().get(new String[] {javaHome, "false", classes.toString(), name+".Main", out.toString()});
+		StaticAnalyser staticAnalyser = new StaticAnalyser();
+		PackManager.v().getPack("jtp").add(new Transform("jtp.sample", staticAnalyser));
+		soot.Main.main(sootArgs);
+		staticAnalyser.awaitCompletion();
+		SummaryResolver sr = new SummaryResolver();
+		sr.resolve(StaticAnalyser.summaries, StaticAnalyser.ptgs);
+
+		Map<String, String> text = new TreeMap<>();
+		StaticAnalyser.ptgs.forEach((m, ptg) -> text.put("ptg "+m.getSignature(), text(ptg)));
+		summaries("summary ", StaticAnalyser.summaries, text);
+		summaries("resolved ", sr.solvedSummaries, text);
+		return text;
+	}
+
+	private static void summaries(String prefix, Map<SootMethod, HashMap<ObjectNode, EscapeStatus>> summaries, Map<String, String> text) {
+		summaries.forEach((m, summary) -> summary.forEach((o, es) -> {
+			TreeSet<String> states = new TreeSet<>();
+			es.getStatus().forEach(s -> states.add(s.toString()));
+			text.put(prefix+m.getSignature()+" "+o, states.toString());
+		}));
+	}
+
+	private static String text(PointsToGraph ptg) {
+		TreeSet<String> edges = new TreeSet<>();
+		if(ptg.vars != null) ptg.vars.forEach((l, s) -> edges.add(l+" -> "+s));
+		if(ptg.fields != null) ptg.fields.forEach((o, fs) -> fs.forEach((f, s) -> edges.add(o+"."+f.getName()+" -> "+s)));
+		return edges.toString();
+	}
+
+	private static void report(String name, int run, Map<String, String> sequential, Map<String, String> parallel) {
+		TreeSet<String> keys = new TreeSet<>(sequential.keySet());
+		keys.addAll(parallel.keySet());
+		for(String k : keys) {
+			String a = sequential.get(k), b = parallel.get(k);
+			if(a == null || !a.equals(b)) {
+				System.out.println(name+", parallel run "+run+": "+k+"\n  sequential "+a+"\n  parallel   "+b);
+				return;
+			}
+		}
+	}
+}
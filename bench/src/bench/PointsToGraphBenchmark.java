@@ -0,0 +1,100 @@
+package bench;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.ConditionalValue;
+import es.EscapeStatus;
+import ptg.ObjectNode;
+import ptg.ObjectType;
+import ptg.PointsToGraph;
+
+/*
+ * The graph operations of the transfer functions on a SyntheticGraph
+ * of every combination of the parameters. Run with -prof gc to get the
+ * allocation rate next to the throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PointsToGraphBenchmark {
+	@Param({"100", "1000", "10000"})
+	public int objects;
+
+	@Param({"2", "8"})
+	public int fanOut;
+
+	@Param({"2", "6"})
+	public int depth;
+
+	SyntheticGraph graph;
+	// the graph with a tenth more edges
+	PointsToGraph other;
+	ConditionalValue cv;
+
+	@Setup
+	public void setup() {
+		graph = new SyntheticGraph(objects, fanOut, depth, 42);
+		other = graph.variant(objects/10 + 1, 43);
+		cv = ConditionalValue.getInstance(null, ObjectNode.getInstance(1, ObjectType.argument));
+	}
+
+	/*
+	 * cascadeCV and propagateES change the summary, every call gets a
+	 * fresh copy. Copying is outside of the measurement.
+	 */
+	@State(Scope.Thread)
+	public static class Summary {
+		HashMap<ObjectNode, EscapeStatus> summary;
+
+		@Setup(Level.Invocation)
+		public void fresh(PointsToGraphBenchmark b) {
+			summary = b.graph.copySummary();
+		}
+	}
+
+	@Benchmark
+	public PointsToGraph copy() {
+		return new PointsToGraph(graph.ptg);
+	}
+
+	@Benchmark
+	public PointsToGraph union() {
+		PointsToGraph p = new PointsToGraph(graph.ptg);
+		p.union(other);
+		return p;
+	}
+
+	@Benchmark
+	public Iterable<ObjectNode> reachables() {
+		return graph.ptg.reachables(SyntheticGraph.LOCALS[0]);
+	}
+
+	@Benchmark
+	public HashMap<ObjectNode, EscapeStatus> cascadeCV(Summary s) {
+		graph.ptg.cascadeCV(SyntheticGraph.LOCALS[0], cv, s.summary);
+		return s.summary;
+	}
+
+	@Benchmark
+	public HashMap<ObjectNode, EscapeStatus> propagateES(Summary s) {
+		graph.ptg.propagateES(SyntheticGraph.LOCALS[0], SyntheticGraph.LOCALS[1], s.summary);
+		return s.summary;
+	}
+}
@@ -0,0 +1,102 @@
+package bench;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import es.ConditionalValue;
+import es.EscapeStatus;
+import ptg.ObjectNode;
+import ptg.ObjectType;
+import ptg.PointsToGraph;
+import soot.Local;
+import soot.RefType;
+import soot.SootField;
+import soot.jimple.internal.JimpleLocal;
+
+/*
+ * A points-to graph of a given shape, built from a fixed seed. The
+ * objects form depth+1 layers of about the same size. Every object of
+ * a layer but the last has fanOut field edges into the next layer,
+ * spread over FIELDS, and every local points to fanOut objects of the
+ * first layer. In the summary the first layer depends on the caller
+ * and the rest is NoEscape, as after the identity statements of a
+ * method whose parameters are deep structures.
+ */
+public final class SyntheticGraph {
+	public static final Local[] LOCALS = new Local[16];
+	public static final SootField[] FIELDS = new SootField[8];
+
+	static {
+		RefType object = RefType.v("java.lang.Object");
+		for(int i = 0; i < LOCALS.length; i++) LOCALS[i] = new JimpleLocal("l"+i, object);
+		for(int i = 0; i < FIELDS.length; i++) FIELDS[i] = new SootField("f"+i, object);
+	}
+
+	public final int objects, fanOut, depth;
+	public final PointsToGraph ptg = new PointsToGraph();
+	public final HashMap<ObjectNode, EscapeStatus> summary = new HashMap<>();
+
+	public SyntheticGraph(int objects, int fanOut, int depth, long seed) {
+		this.objects = objects;
+		this.fanOut = fanOut;
+		this.depth = depth;
+		Random random = new Random(seed);
+		for(int layer = 0; layer < depth; layer++) {
+			for(int i = start(layer); i < start(layer + 1); i++) {
+				for(int e = 0; e < fanOut; e++) addEdge(ptg, i, layer, random);
+			}
+		}
+		for(Local l : LOCALS) {
+			for(int e = 0; e < fanOut; e++) ptg.addVar(l, node(start(0) + random.nextInt(start(1) - start(0))));
+		}
+		for(int i = 0; i < objects; i++) {
+			if(i < start(1)) {
+				summary.put(node(i), new EscapeStatus(ConditionalValue.getInstance(null, ObjectNode.getInstance(i % 4, ObjectType.argument))));
+			} else {
+				summary.put(node(i), new EscapeStatus());
+			}
+		}
+	}
+
+	/*
+	 * This graph with extra more field edges, as a graph that went down
+	 * another branch from a common ancestor would look.
+	 */
+	public PointsToGraph variant(int extra, long seed) {
+		Random random = new Random(seed);
+		PointsToGraph other = new PointsToGraph(ptg);
+		for(int e = 0; e < extra; e++) {
+			int layer = random.nextInt(Math.max(depth, 1));
+			addEdge(other, start(layer) + random.nextInt(Math.max(start(layer + 1) - start(layer), 1)), layer, random);
+		}
+		return other;
+	}
+
+	/*
+	 * A summary with the same states whose statuses can be changed
+	 * without touching this one.
+	 */
+	public HashMap<ObjectNode, EscapeStatus> copySummary() {
+		HashMap<ObjectNode, EscapeStatus> copy = new HashMap<>(2*summary.size());
+		for(Map.Entry<ObjectNode, EscapeStatus> e : summary.entrySet()) {
+			copy.put(e.getKey(), new EscapeStatus(e.getValue()));
+		}
+		return copy;
+	}
+
+	private void addEdge(PointsToGraph g, int from, int layer, Random random) {
+		if(layer >= depth) return;
+		int lo = start(layer + 1), hi = start(layer + 2);
+		if(hi <= lo) return;
+		g.makeField(node(from), FIELDS[random.nextInt(FIELDS.length)], node(lo + random.nextInt(hi - lo)));
+	}
+
+	private int start(int layer) {
+		return (int) ((long) Math.min(layer, depth + 1) * objects / (depth + 1));
+	}
+
+	private static ObjectNode node(int i) {
+		return ObjectNode.getInstance(i, ObjectType.internal);
+	}
+}
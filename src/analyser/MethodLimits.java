@@ -0,0 +1,116 @@
+package analyser;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import es.Escape;
+import es.EscapeStatus;
+import ptg.InvalidBCIObjectNode;
+import ptg.ObjectNode;
+import ptg.ObjectSet;
+import ptg.ObjectType;
+import ptg.PointsToGraph;
+import ptg.RetLocal;
+import soot.Body;
+import soot.PrimType;
+import soot.RefLikeType;
+import soot.Unit;
+import soot.Value;
+import soot.jimple.ClassConstant;
+import soot.jimple.ParameterRef;
+import soot.jimple.StringConstant;
+import soot.jimple.ThisRef;
+import soot.jimple.internal.JAssignStmt;
+import soot.jimple.internal.JIdentityStmt;
+import soot.jimple.internal.JNewArrayExpr;
+import soot.jimple.internal.JNewExpr;
+import soot.jimple.internal.JNewMultiArrayExpr;
+import utils.AnalysisOptions;
+import utils.getBCI;
+
+/*
+ * Limits on the fixpoint of one method: sweeps, unit visits, size of a
+ * graph (entries of vars plus entries of fields) and wall time, from
+ * stava.maxSweeps, maxVisits, maxGraph and maxMillis. A method that
+ * goes over one of them is not analysed any further and gets the
+ * results of fallback instead.
+ */
+class MethodLimits {
+	private final long deadline;
+
+	private MethodLimits() {
+		deadline = (AnalysisOptions.maxMillis > 0)? System.nanoTime() + AnalysisOptions.maxMillis*1000000 : 0;
+	}
+
+	/*
+	 * The limits of a method starting now, null when none is set.
+	 */
+	static MethodLimits start() {
+		if(AnalysisOptions.maxSweeps <= 0 && AnalysisOptions.maxVisits <= 0
+				&& AnalysisOptions.maxGraph <= 0 && AnalysisOptions.maxMillis <= 0) return null;
+		return new MethodLimits();
+	}
+
+	/*
+	 * Called after every visit with the graph it produced. Returns what
+	 * was exceeded, or null.
+	 */
+	String exceeded(PriorityWorklist<?> workList, PointsToGraph ptg) {
+		if(AnalysisOptions.maxSweeps > 0 && workList.getSweeps() > AnalysisOptions.maxSweeps) {
+			return "more than "+AnalysisOptions.maxSweeps+" sweeps";
+		}
+		if(AnalysisOptions.maxVisits > 0 && workList.getPolls() > AnalysisOptions.maxVisits) {
+			return "more than "+AnalysisOptions.maxVisits+" visits";
+		}
+		if(AnalysisOptions.maxGraph > 0 && ptg.vars.size() + ptg.fields.size() > AnalysisOptions.maxGraph) {
+			return "a graph of more than "+AnalysisOptions.maxGraph+" entries";
+		}
+		if(deadline != 0 && System.nanoTime() - deadline > 0) {
+			return "more than "+AnalysisOptions.maxMillis+" ms";
+		}
+		return null;
+	}
+
+	/*
+	 * Conservative results for a method whose analysis was cut short:
+	 * every object of the summary so far, every object allocated in the
+	 * body and every parameter is Escape, and the returned value may be
+	 * any of them or an external object. A CV of a caller on this
+	 * method then resolves to Escape whatever it names. Replaces the
+	 * content of summary and returns the exit graph.
+	 */
+	static PointsToGraph fallback(Body body, Map<ObjectNode, EscapeStatus> summary) {
+		Set<ObjectNode> objects = new LinkedHashSet<>(summary.keySet());
+		for(Unit u : body.getUnits()) {
+			if(u instanceof JIdentityStmt) {
+				JIdentityStmt stmt = (JIdentityStmt) u;
+				if(stmt.getLeftOp().getType() instanceof PrimType) continue;
+				Value rhs = stmt.getRightOp();
+				if(rhs instanceof ParameterRef) {
+					objects.add(ObjectNode.getInstance(((ParameterRef) rhs).getIndex(), ObjectType.parameter));
+				} else if(rhs instanceof ThisRef) {
+					objects.add(ObjectNode.getInstance(-1, ObjectType.parameter));
+				}
+			} else if(u instanceof JAssignStmt && allocates(((JAssignStmt) u).getRightOp())) {
+				objects.add((u.getTag("BytecodeOffsetTag") == null)?
+						InvalidBCIObjectNode.getInstance(ObjectType.internal) : ObjectNode.getInstance(getBCI.get(u), ObjectType.internal));
+			}
+		}
+		PointsToGraph ptg = new PointsToGraph();
+		if(body.getMethod().getReturnType() instanceof RefLikeType) {
+			objects.add(InvalidBCIObjectNode.getInstance(ObjectType.external));
+			ptg.vars = ptg.vars.plus(RetLocal.getInstance(), ObjectSet.from(objects));
+		}
+		summary.clear();
+		for(ObjectNode obj : objects) {
+			summary.put(obj, new EscapeStatus(Escape.getInstance()));
+		}
+		return ptg;
+	}
+
+	private static boolean allocates(Value rhs) {
+		return rhs instanceof JNewExpr || rhs instanceof JNewArrayExpr || rhs instanceof JNewMultiArrayExpr
+				|| rhs instanceof StringConstant || rhs instanceof ClassConstant;
+	}
+}
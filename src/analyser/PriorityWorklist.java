@@ -0,0 +1,130 @@
+package analyser;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import soot.toolkits.graph.DirectedGraph;
+
+/*
+ * A worklist over the nodes of a control flow graph that always hands
+ * out the pending node that comes first in reverse postorder. Every
+ * predecessor outside a loop is therefore done before the loop head,
+ * and a loop body is re-run in one sweep per change instead of once
+ * per predecessor. Pending nodes are bits of an int-indexed BitSet.
+ */
+public class PriorityWorklist<N> {
+	private final List<N> order;
+	private final Map<N, Integer> index;
+	private final BitSet pending;
+	// position handed out last, a smaller one starts a new sweep
+	private int last = -1;
+	private int sweeps = 0;
+	private int polls = 0;
+
+	/*
+	 * All nodes of g start out pending.
+	 */
+	public PriorityWorklist(DirectedGraph<N> g) {
+		order = reversePostorder(g);
+		index = new HashMap<>(2*order.size());
+		for(int i = 0; i < order.size(); i++) index.put(order.get(i), i);
+		pending = new BitSet(order.size());
+		pending.set(0, order.size());
+	}
+
+	/*
+	 * Iterative DFS, long methods would overflow the stack otherwise.
+	 * The heads are visited last-to-first so that the first head leads
+	 * the order. Nodes that no head reaches (dead cycles) follow.
+	 */
+	private static <N> List<N> reversePostorder(DirectedGraph<N> g) {
+		Map<N, Boolean> visited = new HashMap<>(2*g.size());
+		List<N> postorder = new ArrayList<>(g.size());
+		List<N> heads = g.getHeads();
+		for(int i = heads.size() - 1; i >= 0; i--) dfs(g, heads.get(i), visited, postorder);
+		Collections.reverse(postorder);
+		List<N> rest = new ArrayList<>();
+		for(N n : g) dfs(g, n, visited, rest);
+		Collections.reverse(rest);
+		postorder.addAll(rest);
+		return postorder;
+	}
+
+	private static <N> void dfs(DirectedGraph<N> g, N root, Map<N, Boolean> visited, List<N> postorder) {
+		if(visited.containsKey(root)) return;
+		ArrayDeque<N> nodes = new ArrayDeque<>();
+		ArrayDeque<Iterator<N>> succs = new ArrayDeque<>();
+		visited.put(root, true);
+		nodes.push(root);
+		succs.push(g.getSuccsOf(root).iterator());
+		while(!nodes.isEmpty()) {
+			Iterator<N> it = succs.peek();
+			if(it.hasNext()) {
+				N s = it.next();
+				if(!visited.containsKey(s)) {
+					visited.put(s, true);
+					nodes.push(s);
+					succs.push(g.getSuccsOf(s).iterator());
+				}
+			} else {
+				succs.pop();
+				postorder.add(nodes.pop());
+			}
+		}
+	}
+
+	public boolean isEmpty() {
+		return pending.isEmpty();
+	}
+
+	public N poll() {
+		int i = pending.nextSetBit(0);
+		if(i < 0) return null;
+		pending.clear(i);
+		if(i <= last || last == -1) sweeps++;
+		last = i;
+		polls++;
+		return order.get(i);
+	}
+
+	public void add(N n) {
+		pending.set(index.get(n));
+	}
+
+	public void addAll(Collection<N> c) {
+		for(N n : c) add(n);
+	}
+
+	/*
+	 * Number of passes over the order so far, the old "rounds".
+	 */
+	public int getSweeps() {
+		return sweeps;
+	}
+
+	/*
+	 * Number of nodes handed out so far.
+	 */
+	public int getPolls() {
+		return polls;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		for(int i = pending.nextSetBit(0); i >= 0; i = pending.nextSetBit(i + 1)) {
+			sb.append(order.get(i));
+			sb.append(", ");
+		}
+		if(sb.length() > 1) sb.setLength(sb.length() - 2);
+		sb.append("]");
+		return sb.toString();
+	}
+}
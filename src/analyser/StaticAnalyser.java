@@ -1,69 +1,400 @@
 package analyser;
 
-import java.nio.file.Path;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import es.EscapeStatus;
+import handlers.CalleeSummaries;
 import handlers.JAssignStmtHandler;
 import handlers.JIdentityStmtHandler;
 import handlers.JInvokeStmtHandler;
 import handlers.JReturnStmtHandler;
 import handlers.JThrowStmtHandler;
 import handlers.MonitorStmtHandler;
+import output.ClassResWriter;
 import ptg.Analysis;
 import ptg.FlowSet;
 import ptg.ObjectNode;
-import ptg.ObjectType;
 import ptg.PointsToGraph;
 import soot.Body;
 import soot.BodyTransformer;
 import soot.PatchingChain;
-import soot.Scene;
 import soot.SootMethod;
 import soot.Unit;
+import soot.jimple.InvokeExpr;
 import soot.jimple.MonitorStmt;
+import soot.jimple.Stmt;
 import soot.jimple.internal.JAssignStmt;
 import soot.jimple.internal.JGotoStmt;
 import soot.jimple.internal.JIdentityStmt;
 import soot.jimple.internal.JIfStmt;
+import soot.jimple.internal.JInterfaceInvokeExpr;
 import soot.jimple.internal.JInvokeStmt;
 import soot.jimple.internal.JLookupSwitchStmt;
 import soot.jimple.internal.JReturnStmt;
 import soot.jimple.internal.JReturnVoidStmt;
 import soot.jimple.internal.JTableSwitchStmt;
+import soot.jimple.internal.JVirtualInvokeExpr;
 import soot.jimple.internal.JThrowStmt;
+import soot.jimple.internal.JNewExpr;
+import soot.toolkits.graph.Block;
+import soot.toolkits.graph.BriefBlockGraph;
 import soot.toolkits.graph.BriefUnitGraph;
+import store.LibrarySummaries;
+import store.SummaryStore;
+import utils.AnalysisOptions;
+import utils.ClassFacts;
+import utils.Fallbacks;
+import utils.StronglyConnectedComponents;
 import utils.getBCI;
 
 public class StaticAnalyser extends BodyTransformer {
-	public static HashMap<SootMethod,PointsToGraph> ptgs;
-	public static HashMap<SootMethod,HashMap<ObjectNode,EscapeStatus>> summaries;
+	public static Map<SootMethod,PointsToGraph> ptgs;
+	public static Map<SootMethod,HashMap<ObjectNode,EscapeStatus>> summaries;
 	public static LinkedHashMap<Body, Analysis> analysis;
+	// worklist effort summed over all methods
+	public static final AtomicLong totalSweeps = new AtomicLong();
+	public static final AtomicLong totalVisits = new AtomicLong();
+	
+	// only used in the parallel mode
+	private ForkJoinPool pool;
+	// results of earlier runs, null unless stava.summaryStore is set
+	private SummaryStore store;
+	// null unless stava.telemetry is set
+	private Telemetry telemetry;
+	// methods given up on at a fixpoint limit, see MethodLimits
+	private final AtomicInteger truncated = new AtomicInteger();
+	// methods whose analysis threw, see isolated
+	private final AtomicInteger failed = new AtomicInteger();
+	// writes the summary store every stava.checkpointEvery seconds, or null
+	private ScheduledExecutorService checkpoints;
+	private final Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+	// bodies waiting for analyseBottomUp, null unless stava.bottomUp is set
+	private Map<SootMethod, Body> deferred;
+	// null unless stava.resultDir is set
+	private volatile ClassResWriter results;
+	
 	public StaticAnalyser() {
 		super();
 		analysis = new LinkedHashMap<>();
-		ptgs = new HashMap<>();
-		summaries = new HashMap<>();
+		/*
+		 * Methods may finish on any worker in the parallel mode,
+		 * hence the results go to concurrent maps.
+		 */
+		ptgs = new ConcurrentHashMap<>();
+		summaries = new ConcurrentHashMap<>();
+		ClassFacts.clear();
+		Fallbacks.clear();
+		if(AnalysisOptions.bottomUp) {
+			deferred = new LinkedHashMap<>();
+			CalleeSummaries.clear();
+			/*
+			 * The components are analysed in order on one thread, and a
+			 * stored summary may have been computed with other callee
+			 * summaries, so neither option applies to the analysis.
+			 */
+			if(AnalysisOptions.parallel || AnalysisOptions.summaryStore != null) {
+				System.out.println("Warning: stava.bottomUp analyses on one thread and without the summary store;"
+						+" stava.parallel and stava.summaryStore only apply to the resolution");
+			}
+		} else if(AnalysisOptions.parallel) {
+			pool = new ForkJoinPool(AnalysisOptions.threads);
+		}
+		if(AnalysisOptions.summaryStore != null && !AnalysisOptions.bottomUp) {
+			store = new SummaryStore(Paths.get(AnalysisOptions.summaryStore));
+			if(AnalysisOptions.checkpointEvery > 0) {
+				checkpoints = Executors.newSingleThreadScheduledExecutor(r -> {
+					Thread t = new Thread(r, "stava-checkpoint");
+					t.setDaemon(true);
+					return t;
+				});
+				checkpoints.scheduleWithFixedDelay(this::checkpoint,
+						AnalysisOptions.checkpointEvery, AnalysisOptions.checkpointEvery, TimeUnit.SECONDS);
+			}
+		}
+		if(AnalysisOptions.telemetry != null) {
+			telemetry = new Telemetry();
+		}
+		if(AnalysisOptions.resultDir != null) {
+			try {
+				results = new ClassResWriter(Files.createDirectories(Paths.get(AnalysisOptions.resultDir)));
+			} catch (IOException e) {
+				System.out.println("Unable to create the result directory "+AnalysisOptions.resultDir+": "+e);
+			}
+		}
 	}
 
 
 	@Override
 	protected void internalTransform (Body body, String phasename, Map<String, String> options) {
-		boolean verboseFlag = false;
-//		if(body.getMethod().getName().equals("main")) verboseFlag = true;
-		String path = Scene.v().getSootClassPath();
-//		System.out.println(path);
-//		System.out.println("Package:"+body.getMethod().getDeclaringClass().getJavaPackageName());
-		Path p = Paths.get(path.substring(0, path.indexOf(":")) + "/" + body.getMethod().getDeclaringClass().toString() + ".res");
-//		System.out.println(".res file path:"+p);
-		HashMap<ObjectNode, EscapeStatus> summary = new HashMap<>();
+		ClassFacts.build();
+		if(results != null) {
+			try {
+				results.expect(body.getMethod());
+			} catch (IOException e) {
+				resultsFailed(e);
+			}
+		}
+		if(deferred != null) {
+			deferred.put(body.getMethod(), body);
+			return;
+		}
+		if(store != null) {
+			if(store.restore(body.getMethod(), ptgs, summaries)) {
+				done(body.getMethod());
+				return;
+			}
+			store.consults(body);
+		}
+		// printed here, on the soot thread, so that it is in order in the parallel mode as well
 		System.out.println("Method Name: "+ body.getMethod().getSignature() );
+		if(pool == null) {
+			isolated(body, () -> analyse(body));
+			return;
+		}
+		/*
+		 * The fixpoint of a method does not look at any other method,
+		 * so bodies are fanned out to the pool as soot hands them over.
+		 * Anything that may still modify the Scene is done right here,
+		 * on the soot thread, before the body is handed to a worker.
+		 */
+		if(!isolated(body, () -> prepare(body))) return;
+		pool.execute(() -> {
+			try {
+				isolated(body, () -> analyse(body));
+			} catch (Throwable e) {
+				failures.add(e);
+			}
+		});
+	}
+	
+	/*
+	 * Runs work for body. If it throws, body gets the conservative
+	 * results of MethodLimits.fallback, marked in Fallbacks so that they
+	 * are not stored, and the run goes on, unless stava.failFast is set.
+	 * Returns whether work completed.
+	 */
+	private boolean isolated(Body body, Runnable work) {
+		long start = System.nanoTime();
+		try {
+			work.run();
+			return true;
+		} catch (RuntimeException | StackOverflowError e) {
+			if(AnalysisOptions.failFast) throw e;
+			failed.incrementAndGet();
+			StackTraceElement[] trace = e.getStackTrace();
+			System.out.println("Analysis of "+body.getMethod().getSignature()+" failed with "+e
+					+((trace.length > 0)? " at "+trace[0] : "")+", its objects are set to Escape");
+			HashMap<ObjectNode, EscapeStatus> summary = new HashMap<>();
+			Fallbacks.mark(body.getMethod());
+			ptgs.put(body.getMethod(), MethodLimits.fallback(body, summary));
+			summaries.put(body.getMethod(), summary);
+			if(telemetry != null) telemetry.failed(body.getMethod(), body.getUnits().size(), System.nanoTime() - start, summary);
+			done(body.getMethod());
+			return false;
+		}
+	}
+	
+	/*
+	 * Called once the summary of m is final: hands it to the result
+	 * writer, which writes the class of m out when it is complete.
+	 */
+	private void done(SootMethod m) {
+		ClassResWriter w = results;
+		if(w == null) return;
+		try {
+			w.done(m, summaries.get(m));
+		} catch (IOException e) {
+			resultsFailed(e);
+		}
+	}
+	
+	private synchronized void resultsFailed(IOException e) {
+		if(results == null) return;
+		System.out.println("Unable to write the results to "+AnalysisOptions.resultDir+": "+e);
+		results = null;
+	}
+	
+	/*
+	 * Writes what has been analysed so far to the summary store, so that
+	 * a run that is interrupted can be resumed from there. Runs on the
+	 * checkpoint thread.
+	 */
+	private void checkpoint() {
+		try {
+			store.save(ptgs, summaries);
+			System.out.println("Checkpoint: "+store.getSaved()+" method(s) in "+AnalysisOptions.summaryStore);
+		} catch (IOException | RuntimeException e) {
+			System.out.println("Unable to write a checkpoint to "+AnalysisOptions.summaryStore+": "+e);
+		}
+	}
+	
+	/*
+	 * Resolving a method reference may add phantom methods to their
+	 * classes. Do it once for every call site here, so that the handlers
+	 * only hit the cached resolution when they run on the workers.
+	 */
+	private void prepare(Body body) {
+		for(Unit u : body.getUnits()) {
+			Stmt s = (Stmt) u;
+			if(s.containsInvokeExpr()) {
+				s.getInvokeExpr().getMethod();
+			}
+			if(u instanceof JAssignStmt && ((JAssignStmt) u).getRightOp() instanceof JNewExpr) {
+				((JNewExpr)((JAssignStmt) u).getRightOp()).getBaseType().getSootClass();
+			}
+		}
+	}
+	
+	/*
+	 * The bottom-up mode: the collected bodies are analysed callees
+	 * first, one strongly connected component of the call graph at a
+	 * time (a virtual call has an edge to every target ClassFacts finds).
+	 * Once a component is done its summaries are final, and the call
+	 * sites in the components above use them through CalleeSummaries.
+	 * Calls within a component still get CVs.
+	 */
+	private void analyseBottomUp() {
+		List<SootMethod> methods = new ArrayList<>(deferred.keySet());
+		methods.sort(Comparator.comparing(SootMethod::getSignature));
+		for(List<SootMethod> component : StronglyConnectedComponents.compute(methods, this::callees)) {
+			for(SootMethod m : component) {
+				Body body = deferred.get(m);
+				System.out.println("Method Name: "+ m.getSignature() );
+				isolated(body, () -> analyse(body));
+			}
+			for(SootMethod m : component) {
+				CalleeSummaries.finish(m, summaries.get(m), ptgs.get(m));
+			}
+		}
+		deferred = null;
+		System.out.println("Bottom-up: "+CalleeSummaries.stats());
+	}
+
+	private List<SootMethod> callees(SootMethod m) {
+		List<SootMethod> callees = new ArrayList<>();
+		for(Unit u : deferred.get(m).getUnits()) {
+			Stmt s = (Stmt) u;
+			if(s.containsInvokeExpr()) {
+				InvokeExpr expr = s.getInvokeExpr();
+				if(expr instanceof JVirtualInvokeExpr || expr instanceof JInterfaceInvokeExpr) {
+					for(SootMethod callee : ClassFacts.targets(expr.getMethod())) {
+						if(deferred.containsKey(callee)) callees.add(callee);
+					}
+				} else if(deferred.containsKey(expr.getMethod())) {
+					callees.add(expr.getMethod());
+				}
+			}
+		}
+		return callees;
+	}
+	
+	/*
+	 * Runs the bottom-up mode, or waits for the pool to drain in the
+	 * parallel mode, then writes the results, the telemetry report, the
+	 * library summaries and the summary store if asked for. Must be
+	 * called after soot is done and before ptgs or summaries are read.
+	 */
+	public void awaitCompletion() {
+		if(deferred != null) analyseBottomUp();
+		if(pool != null) drainPool();
+		if(checkpoints != null) {
+			checkpoints.shutdownNow();
+			checkpoints = null;
+		}
+		if(results != null) {
+			try {
+				results.close();
+				System.out.println("Results: "+results.getFiles()+" class file(s) written to "+AnalysisOptions.resultDir);
+			} catch (IOException e) {
+				resultsFailed(e);
+			}
+		}
+		if(telemetry != null) {
+			try {
+				telemetry.write(Paths.get(AnalysisOptions.telemetry));
+			} catch (IOException e) {
+				System.out.println("Unable to write the telemetry to "+AnalysisOptions.telemetry);
+				e.printStackTrace();
+			}
+			System.out.print(telemetry.top(AnalysisOptions.telemetryTop));
+		}
+		if(truncated.get() > 0) {
+			System.out.println("Fixpoint limits: "+truncated.get()+" method(s) stopped, their objects set to Escape");
+		}
+		if(failed.get() > 0) {
+			System.out.println("Failures: "+failed.get()+" method(s) failed, their objects set to Escape");
+		}
+		if(AnalysisOptions.libraryDbOut != null) {
+			try {
+				int n = LibrarySummaries.write(ptgs, summaries, Paths.get(AnalysisOptions.libraryDbOut));
+				System.out.println("Library summaries: "+n+" method(s) written to "+AnalysisOptions.libraryDbOut);
+			} catch (IOException e) {
+				System.out.println("Unable to write the library summaries to "+AnalysisOptions.libraryDbOut);
+				e.printStackTrace();
+			}
+		}
+		if(store != null) {
+			try {
+				store.save(ptgs, summaries);
+			} catch (IOException e) {
+				System.out.println("Unable to write the summary store to "+AnalysisOptions.summaryStore);
+				e.printStackTrace();
+			} finally {
+				store.close();
+			}
+			System.out.println("Summary store: "+store.getRestored()+" method(s) restored, "+store.getSaved()+" saved");
+		}
+	}
+
+	private void drainPool() {
+		pool.shutdown();
+		try {
+			while(!pool.awaitTermination(1, TimeUnit.MINUTES));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the analysis to finish", e);
+		}
+		if(!failures.isEmpty()) {
+			System.out.println(failures.size()+" method(s) failed in the parallel analysis.");
+			Throwable first = failures.peek();
+			if(first instanceof RuntimeException) throw (RuntimeException) first;
+			if(first instanceof Error) throw (Error) first;
+			throw new IllegalStateException(first);
+		}
+	}
+	
+	private void analyse(Body body) {
+		HashMap<ObjectNode, EscapeStatus> summary = new HashMap<>();
+		Telemetry.Method stats = (telemetry == null)? null : telemetry.start(body.getMethod(), body.getUnits().size());
+		MethodLimits limits = MethodLimits.start();
+		
+		if(AnalysisOptions.blocks) {
+			ptgs.put(body.getMethod(), analyseBlocks(body, summary, stats, limits));
+			summaries.put(body.getMethod(), summary);
+			done(body.getMethod());
+			return;
+		}
 		
 		PatchingChain<Unit> units = body.getUnits();
 
@@ -72,116 +403,105 @@ public class StaticAnalyser extends BodyTransformer {
 
 		BriefUnitGraph cfg = new BriefUnitGraph(body);
 
-		LinkedHashSet<Unit> workList = new LinkedHashSet<Unit>();
-		LinkedHashSet<Unit> workListNext = new LinkedHashSet<Unit>(units);
-		LinkedHashSet<Unit> temp = null;
 		// initialize the flow sets with empty sets
 		for(Unit u : units) {
 			flowSets.put(u, new FlowSet());
 		}
 		
-		int i=0;
-		while(!workListNext.isEmpty()){
-			if(verboseFlag) {
-				System.out.println("Loop "+i);
-				System.out.println("Worklist:");
-				workList.forEach(w -> System.out.println(w));
-				System.out.println("WorkListNext:");
-				workListNext.forEach(w -> System.out.println(w));
-			}
-			/*
-			 * Swap workList and workListNext
-			 */
-//			if(body.getMethod().toString().contains("visitMaxs")) System.out.println("[Loop:"+i+"]:"+printList(workListNext));
-			temp = workList; workList = workListNext; workListNext = temp;
-			workListNext.clear();
-			
+		/*
+		 * Every unit starts out pending. The worklist hands them out in
+		 * reverse postorder, so a unit is usually visited after all of
+		 * its forward predecessors and loops are re-run as whole sweeps.
+		 */
+		PriorityWorklist<Unit> workList = new PriorityWorklist<>(cfg);
+		/*
+		 * Delta mode: a unit whose in-graph is known to equal the union of
+		 * its predecessors' outs as of its last visit is "exact". For such
+		 * a unit, pending collects the edges its predecessors' outs have
+		 * gained since, and the next visit works on just those. A
+		 * predecessor whose out lost an edge makes its successors inexact,
+		 * and they are recomputed from scratch.
+		 */
+		Map<Unit, PointsToGraph> pending = AnalysisOptions.delta? new HashMap<>() : null;
+		Set<Unit> exact = AnalysisOptions.delta? new HashSet<>() : null;
+		String stopped = null;
+		while(!workList.isEmpty()){
 			/*
 			 * Main Work Loop:
-			 * for each Unit u in workList
+			 * for the first Unit u in workList
 			 * 1. inNew = union(out[predecessors])
 			 * 2. outNew = apply(u, inNew)
 			 * 3. if(outNew != out[u]):
-			 * 		add successors to workListNext
+			 * 		add successors to workList
 			 * 		out[u] = outNew
 			 */
-			ObjectNode scrutiny = new ObjectNode(17, ObjectType.internal);
-			Iterator<Unit> iterator = workList.iterator();
-			while(iterator.hasNext()) {
-				Unit u = iterator.next();
-				iterator.remove();
-//				int bci = -2;
-//				try {
-//					bci = utils.getBCI.get(u);
-//				} catch (Exception e) {
-					// do nothing
-//				}
-//				if(u.toString().contains("$r9 = \"java/lang/Throwable\"")) {
-//					if(body.getMethod().toString().contains("visitMaxs")) System.out.println("[Loop:"+i+"]I have reached that wretched line:"+u.toString()+" in method "+body.getMethod().toString());
-//					System.out.println(body);
-//					throw new IllegalArgumentException("That horrible line!");
-//				}
-				workListNext.remove(u);
-				FlowSet flowSet = flowSets.get(u);
-				/*
-				 * 1. inNew = union(out[predecessors])
-				 */
-				PointsToGraph inNew = new PointsToGraph();
+			Unit u = workList.poll();
+			FlowSet flowSet = flowSets.get(u);
+			/*
+			 * 1. inNew = union(out[predecessors])
+			 */
+			PointsToGraph delta = (exact != null && exact.contains(u))? pending.remove(u) : null;
+			PointsToGraph inNew;
+			if(delta != null) {
+				inNew = new PointsToGraph(flowSet.getIn());
+				inNew.union(delta);
+			} else {
+				inNew = new PointsToGraph();
 				for(Unit pred : cfg.getPredsOf(u)) {
 					inNew.union(flowSets.get(pred).getOut());
 				}
-				if(i>75 && body.getMethod().toString().contains("visitMaxs")) {
-//					System.out.println("[BCI:"+getBCI.get(u)+", unit:"+u.toString()+"]" );
-//					System.out.println("InNew:"+inNew.toString());
-				}
-//				if(bci == 135) {
-//					System.out.println("[BCI 135]");
-//					System.out.println("inNew:"+inNew);
-//					System.out.println("old:"+flowSets.get(u));
-//				}
-				if(inNew.equals(flowSet.getIn()) && !inNew.isEmpty() ) {
-//					if(body.getMethod().toString().contains("visitMaxs")) System.out.println("[Loop:"+i+"] Removing successors of:"+u);
-					workListNext.removeAll(cfg.getSuccsOf(u));
-					continue;
-				}
-				flowSet.setIn(inNew);
-				
-				/*
-				 * 2. outNew = apply(u, inNew)
-				 */
-				PointsToGraph outNew = new PointsToGraph(inNew);
-				try {
+			}
+			if(exact != null) exact.add(u);
+			if(inNew.equals(flowSet.getIn()) && !inNew.isEmpty() ) {
+				continue;
+			}
+			
+			/*
+			 * 2. outNew = apply(u, inNew)
+			 */
+			PointsToGraph outNew = null;
+			try {
+				if(delta != null) outNew = applyDelta(u, flowSet, inNew, delta, summary);
+				if(outNew == null) {
+					outNew = new PointsToGraph(inNew);
 					apply(u, outNew, summary);
-				}				
-				catch(Exception e) {
-					String s = "->*** Error at: "+u.toString()+" of "+body.getMethod().getBytecodeSignature();
-//					System.out.println(body);
-					System.out.println(s);
-//					System.out.println(workList);
-					throw e;
-				}
-//				if(bci == 135) {
-//					System.out.println("outNew:"+outNew);
-//				}
-				if(verboseFlag && summary.containsKey(scrutiny)) {
-					System.out.println("after "+u.toString()+" summary["+scrutiny.toString()+"] = "+summary.get(scrutiny).toString());
 				}
-				/*
-				 * 3. if(outNew != out[u]):
-				 * 		add successors to workList
-				 * 		out[u] = outNew
-				 */
-				if(!outNew.equals(flowSet.getOut())) {
-//					if(i>75 && body.getMethod().toString().contains("visitMaxs"))System.out.println("OutNew is new:"+outNew.toString());
-					workListNext.addAll(cfg.getSuccsOf(u));
-					flowSet.setOut(outNew);
-				} else {
-//					if(i>75 && body.getMethod().toString().contains("visitMaxs"))System.out.println("OutOld (remains same):"+flowSet.getOut().toString());
+			}				
+			catch(Exception e) {
+				String s = "->*** Error at: "+u.toString()+" of "+body.getMethod().getBytecodeSignature();
+//				System.out.println(body);
+				System.out.println(s);
+//				System.out.println(workList);
+				throw e;
+			}
+			flowSet.setIn(inNew);
+			if(stats != null) stats.graph(outNew);
+			if(limits != null && (stopped = limits.exceeded(workList, outNew)) != null) break;
+			/*
+			 * 3. if(outNew != out[u]):
+			 * 		add successors to workList
+			 * 		out[u] = outNew
+			 */
+			if(!outNew.equals(flowSet.getOut())) {
+				if(exact != null) {
+					PointsToGraph gained = outNew.difference(flowSet.getOut());
+					for(Unit succ : cfg.getSuccsOf(u)) {
+						if(gained == null) {
+							exact.remove(succ);
+							pending.remove(succ);
+						} else if(exact.contains(succ)) {
+							PointsToGraph known = pending.get(succ);
+							if(known == null) pending.put(succ, new PointsToGraph(gained));
+							else known.union(gained);
+						}
+					}
 				}
+				workList.addAll(cfg.getSuccsOf(u));
+				flowSet.setOut(outNew);
 			}
-			i+=1;
-			
 		}
+		totalSweeps.addAndGet(workList.getSweeps());
+		totalVisits.addAndGet(workList.getPolls());
 //		Analysis currentAnalysis = new Analysis(flowSets, summary);
 //		analysis.put(body, currentAnalysis);
 //		String output = body.getMethod().getSignature()+"\n"+currentAnalysis.toString();
@@ -196,12 +516,90 @@ public class StaticAnalyser extends BodyTransformer {
 			e.printStackTrace();
 		}
 		*/
-		Iterator<Entry<Unit, FlowSet>> iterator = flowSets.entrySet().iterator();
-		Entry<Unit, FlowSet> elem = iterator.next();
-		while(iterator.hasNext()) elem = iterator.next();
-		PointsToGraph ptg = elem.getValue().getOut();
+		PointsToGraph ptg;
+		if(stopped != null) {
+			ptg = stop(body, summary, stopped);
+		} else {
+			Iterator<Entry<Unit, FlowSet>> iterator = flowSets.entrySet().iterator();
+			Entry<Unit, FlowSet> elem = iterator.next();
+			while(iterator.hasNext()) elem = iterator.next();
+			ptg = elem.getValue().getOut();
+		}
+		if(stats != null) stats.finish(workList, summary, stopped);
 		ptgs.put(body.getMethod(), ptg);
 		summaries.put(body.getMethod(), summary);
+		done(body.getMethod());
+	}
+	
+	/*
+	 * Block mode: graphs are kept at the entry and exit of every basic
+	 * block only, and the statements of a block are applied in sequence
+	 * to a copy of its entry graph, every time the block is visited. That
+	 * is safe because the handlers merge into a status rather than
+	 * replace it, see JAssignStmtHandler.mergeStatus. The fixpoint is
+	 * otherwise the one of analyse, with blocks in place of units.
+	 */
+	private PointsToGraph analyseBlocks(Body body, HashMap<ObjectNode, EscapeStatus> summary,
+			Telemetry.Method stats, MethodLimits limits) {
+		BriefBlockGraph cfg = new BriefBlockGraph(body);
+		Map<Block, FlowSet> flowSets = new HashMap<>(2*cfg.size());
+		for(Block b : cfg) {
+			flowSets.put(b, new FlowSet());
+		}
+		PriorityWorklist<Block> workList = new PriorityWorklist<>(cfg);
+		String stopped = null;
+		while(!workList.isEmpty()) {
+			Block b = workList.poll();
+			FlowSet flowSet = flowSets.get(b);
+			PointsToGraph inNew = new PointsToGraph();
+			for(Block pred : cfg.getPredsOf(b)) {
+				inNew.union(flowSets.get(pred).getOut());
+			}
+			if(inNew.equals(flowSet.getIn()) && !inNew.isEmpty()) {
+				continue;
+			}
+			flowSet.setIn(inNew);
+			PointsToGraph outNew = new PointsToGraph(inNew);
+			for(Unit u : b) {
+				try {
+					apply(u, outNew, summary);
+				} catch(Exception e) {
+					System.out.println("->*** Error at: "+u.toString()+" of "+body.getMethod().getBytecodeSignature());
+					throw e;
+				}
+			}
+			if(stats != null) stats.graph(outNew);
+			if(limits != null && (stopped = limits.exceeded(workList, outNew)) != null) break;
+			if(!outNew.equals(flowSet.getOut())) {
+				workList.addAll(cfg.getSuccsOf(b));
+				flowSet.setOut(outNew);
+			}
+		}
+		totalSweeps.addAndGet(workList.getSweeps());
+		totalVisits.addAndGet(workList.getPolls());
+		if(stopped != null) {
+			PointsToGraph ptg = stop(body, summary, stopped);
+			if(stats != null) stats.finish(workList, summary, stopped);
+			return ptg;
+		}
+		if(stats != null) stats.finish(workList, summary, null);
+		// the graph after the last unit in chain order, as in analyse
+		Unit last = body.getUnits().getLast();
+		for(Block b : cfg) {
+			if(b.getTail() == last) return flowSets.get(b).getOut();
+		}
+		return new PointsToGraph();
+	}
+	
+	/*
+	 * Gives up on body after it went over a fixpoint limit, see
+	 * MethodLimits.fallback for what is put in its place.
+	 */
+	private PointsToGraph stop(Body body, HashMap<ObjectNode, EscapeStatus> summary, String reason) {
+		truncated.incrementAndGet();
+		Fallbacks.mark(body.getMethod());
+		System.out.println("Analysis of "+body.getMethod().getSignature()+" stopped after "+reason+", its objects are set to Escape");
+		return MethodLimits.fallback(body, summary);
 	}
 	
 	/*
@@ -233,6 +631,21 @@ public class StaticAnalyser extends BodyTransformer {
 		}
 	}
 	
+	/*
+	 * Delta counterpart of apply, see JAssignStmtHandler.handleDelta.
+	 * Returns the new out-graph of u, or null when u has to be re-run
+	 * on the whole of in.
+	 */
+	private PointsToGraph applyDelta(Unit u, FlowSet last, PointsToGraph in, PointsToGraph delta, HashMap<ObjectNode, EscapeStatus> summary) {
+		if(u instanceof JAssignStmt) {
+			return JAssignStmtHandler.handleDelta(u, last, in, delta, summary);
+		} else if(u instanceof JIfStmt || u instanceof JGotoStmt || u instanceof JReturnVoidStmt ||
+				u instanceof JTableSwitchStmt || u instanceof JLookupSwitchStmt) {
+			return new PointsToGraph(in);
+		}
+		return null;
+	}
+	
 	public void printAnalysis() {
 		for(Map.Entry<Body, Analysis> entry : analysis.entrySet()) {
 			System.out.println("Class: "+entry.getKey().getMethod().getDeclaringClass());
@@ -240,23 +653,5 @@ public class StaticAnalyser extends BodyTransformer {
 			System.out.println("Analysis:\n"+entry.getValue());
 		}
 	}
-	
-	private String printList(LinkedHashSet<Unit> l) {
-		StringBuilder sb = new StringBuilder();
-		sb.append("[");
-		l.forEach(u -> {
-			int ref = -1;
-			try {
-				ref = utils.getBCI.get(u);
-			} catch (Exception e) {
-				// do nothing
-				System.out.println("[StaticAnalyser.printList] [Apology] I was trying to print list of BCI. Sorry!");
-			}
-			sb.append(ref);
-			sb.append(",");
-		});
-		sb.append("]");
-		return sb.toString();
-	}
 
 }
@@ -0,0 +1,132 @@
+package analyser;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import es.EscapeStatus;
+import ptg.ObjectNode;
+import ptg.PointsToGraph;
+import soot.SootMethod;
+
+/*
+ * What the analysis of every method cost: wall time, worklist sweeps
+ * and visits, the largest graph seen after a transfer function, the
+ * size of the summary and the fixpoint limit it went over, if any, or
+ * "failed" if its analysis threw. The analysis only asks for a Method
+ * record when stava.telemetry is set, so when it is not the only cost
+ * is a null check per visit. Methods may finish on any worker; records
+ * are collected in a concurrent queue.
+ */
+public class Telemetry {
+	private final Queue<Method> methods = new ConcurrentLinkedQueue<>();
+
+	public class Method {
+		final String signature;
+		final int units;
+		private final long start = System.nanoTime();
+		long nanos;
+		long sweeps, visits;
+		int peakVars, peakFields;
+		int summary;
+		// the limit the method went over, null if it did not
+		String stopped;
+
+		Method(SootMethod m, int units) {
+			this.signature = m.getSignature();
+			this.units = units;
+		}
+
+		/*
+		 * Called with every graph a transfer function produced.
+		 */
+		void graph(PointsToGraph ptg) {
+			if(ptg.vars.size() > peakVars) peakVars = ptg.vars.size();
+			if(ptg.fields.size() > peakFields) peakFields = ptg.fields.size();
+		}
+
+		void finish(PriorityWorklist<?> workList, HashMap<ObjectNode, EscapeStatus> summary, String stopped) {
+			nanos = System.nanoTime() - start;
+			sweeps = workList.getSweeps();
+			visits = workList.getPolls();
+			this.summary = summary.size();
+			this.stopped = stopped;
+			methods.add(this);
+		}
+	}
+
+	Method start(SootMethod m, int units) {
+		return new Method(m, units);
+	}
+
+	/*
+	 * A record for a method whose analysis threw after running for
+	 * nanos, with the size of its fallback summary.
+	 */
+	void failed(SootMethod m, int units, long nanos, HashMap<ObjectNode, EscapeStatus> summary) {
+		Method r = new Method(m, units);
+		r.nanos = nanos;
+		r.summary = summary.size();
+		r.stopped = "failed";
+		methods.add(r);
+	}
+
+	/*
+	 * One record per method, ordered by signature. JSON when the file
+	 * name ends in .json, CSV otherwise.
+	 */
+	public void write(Path file) throws IOException {
+		List<Method> sorted = new ArrayList<>(methods);
+		sorted.sort(Comparator.comparing((Method m) -> m.signature));
+		boolean json = file.getFileName().toString().endsWith(".json");
+		if(file.getParent() != null) Files.createDirectories(file.getParent());
+		try(Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			if(json) w.write("[\n");
+			else w.write("method,units,ms,sweeps,visits,peakVars,peakFields,summary,stopped\n");
+			for(int i = 0; i < sorted.size(); i++) {
+				Method m = sorted.get(i);
+				if(json) {
+					w.write(String.format(Locale.ROOT,
+							"  {\"method\": \"%s\", \"units\": %d, \"ms\": %.3f, \"sweeps\": %d, \"visits\": %d, "
+							+ "\"peakVars\": %d, \"peakFields\": %d, \"summary\": %d, \"stopped\": %s}%s\n",
+							m.signature.replace("\\", "\\\\").replace("\"", "\\\""), m.units, m.nanos/1e6,
+							m.sweeps, m.visits, m.peakVars, m.peakFields, m.summary,
+							(m.stopped == null)? "null" : "\""+m.stopped+"\"", (i + 1 < sorted.size())? "," : ""));
+				} else {
+					w.write(String.format(Locale.ROOT, "\"%s\",%d,%.3f,%d,%d,%d,%d,%d,%s\n",
+							m.signature.replace("\"", "\"\""), m.units, m.nanos/1e6,
+							m.sweeps, m.visits, m.peakVars, m.peakFields, m.summary, (m.stopped == null)? "" : m.stopped));
+				}
+			}
+			if(json) w.write("]\n");
+		}
+	}
+
+	/*
+	 * The n methods that took longest, one line each.
+	 */
+	public String top(int n) {
+		List<Method> sorted = new ArrayList<>(methods);
+		sorted.sort(Comparator.comparingLong((Method m) -> m.nanos).reversed());
+		long total = 0;
+		for(Method m : sorted) total += m.nanos;
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format(Locale.ROOT, "Telemetry: %d method(s) in %.3f s, the %d slowest:\n",
+				sorted.size(), total/1e9, Math.min(n, sorted.size())));
+		for(Method m : sorted.subList(0, Math.min(n, sorted.size()))) {
+			sb.append(String.format(Locale.ROOT, "%10.1f ms %5.1f%% %7d visits %4d sweeps %6d vars %6d fields  %s\n",
+					m.nanos/1e6, (total == 0)? 0 : 100.0*m.nanos/total, m.visits, m.sweeps,
+					m.peakVars, m.peakFields, m.signature));
+		}
+		return sb.toString();
+	}
+}
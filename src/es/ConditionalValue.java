@@ -2,56 +2,131 @@ package es;
 
 import soot.SootMethod;
 
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import ptg.ObjectNode;
 import soot.SootField;
+import store.LibrarySummaries;
 
 public class ConditionalValue extends EscapeState {	
 	// method will be null to denote 'caller'
 	public final SootMethod method;
 	public final ObjectNode object;
-	public final List<SootField> fieldList;
+	// null when there is no field path
+	public final FieldPath fieldPath;
 	public final Boolean isReal;
 	public final int hashcode;
+	// dense index handed out by the intern table
+	public final int id;
+	// signature of method, "" for the caller
+	private final String signature;
 	
-	public ConditionalValue(SootMethod m, ObjectNode obj, List<SootField> fl, Boolean isReal) {
-		if(m!=null && m.isJavaLibraryMethod()) {
-			System.out.println("******************************************");
-			throw new IllegalArgumentException(m.toString()+" isjavaLibraryMethod!");
-		}
+	/*
+	 * The order of the CVs in an EscapeStatus, which is the order the
+	 * resolver visits them in. It only depends on what a CV names, not on
+	 * when it was made, so a parallel run sees the same order as a
+	 * sequential one. The id only separates CVs that name the same
+	 * things in different Scenes.
+	 */
+	public static final Comparator<ConditionalValue> ORDER = (x, y) -> {
+		if(x == y) return 0;
+		int c = (x.method == y.method)? 0 : x.signature.compareTo(y.signature);
+		if(c == 0) c = Integer.compare(x.object.type.ordinal(), y.object.type.ordinal());
+		if(c == 0) c = Integer.compare(x.object.ref, y.object.ref);
+		if(c == 0) c = FieldPath.compare(x.fieldPath, y.fieldPath);
+		if(c == 0) c = Boolean.compare(x.isReal.booleanValue(), y.isReal.booleanValue());
+		if(c == 0) c = Integer.compare(x.id, y.id);
+		return c;
+	};
+	
+	/*
+	 * Hash-consing table: there is exactly one ConditionalValue per
+	 * (method, object, field path, isReal), so two of them are equal
+	 * iff they are the same object, and every EscapeStatus holding a
+	 * CV shares that one instance.
+	 */
+	private static final ConcurrentHashMap<Key, ConditionalValue> table = new ConcurrentHashMap<>();
+	private static final AtomicInteger count = new AtomicInteger();
+	
+	private ConditionalValue(SootMethod m, ObjectNode obj, FieldPath fp, boolean isReal, int id) {
 		method = m; object = obj;
-		fieldList = fl; this.isReal = isReal;
+		fieldPath = fp; this.isReal = Boolean.valueOf(isReal);
+		this.id = id;
+		signature = (m == null)? "" : m.getSignature();
 		int mhash;
 		if(method == null) mhash = 0;
 		else mhash = method.equivHashCode();
 		int ohash = object.hashCode();
-		int lhash = (fieldList==null)? 0:fieldList.hashCode();
+		int lhash = (fieldPath==null)? 0:fieldPath.hashCode();
 		int hashcode = (mhash + ohash) * ohash + mhash;
 		if(lhash!=0) hashcode = (hashcode + lhash) * lhash + hashcode;
 		this.hashcode = hashcode;
 	}
 	
-	public ConditionalValue(SootMethod m, ObjectNode obj) {
-		this(m, obj, null, false);
+	public static ConditionalValue getInstance(SootMethod m, ObjectNode obj, FieldPath fp, Boolean isReal) {
+		if(m!=null && m.isJavaLibraryMethod() && !LibrarySummaries.covers(m)) {
+			System.out.println("******************************************");
+			throw new IllegalArgumentException(m.toString()+" isjavaLibraryMethod!");
+		}
+		boolean real = isReal.booleanValue();
+		Key key = new Key(m, obj, fp, real);
+		ConditionalValue cv = table.get(key);
+		if(cv != null) return cv;
+		ConditionalValue fresh = new ConditionalValue(m, obj, fp, real, count.getAndIncrement());
+		cv = table.putIfAbsent(key, fresh);
+		return (cv == null)? fresh : cv;
+	}
+	
+	public static ConditionalValue getInstance(SootMethod m, ObjectNode obj) {
+		return getInstance(m, obj, null, false);
+	}
+	
+	public static ConditionalValue getInstance(SootMethod m, ObjectNode obj, Boolean isArg) {
+		return getInstance(m, obj, null, isArg);
 	}
 	
-	public ConditionalValue(SootMethod m, ObjectNode obj, Boolean isArg) {
-		this(m, obj, null, isArg);
+	private static final class Key {
+		final SootMethod method;
+		final ObjectNode object;
+		final FieldPath fieldPath;
+		final boolean isReal;
+		final int hash;
+		
+		Key(SootMethod m, ObjectNode obj, FieldPath fp, boolean isReal) {
+			method = m; object = obj; fieldPath = fp; this.isReal = isReal;
+			int h = Objects.hashCode(m) * 31 + obj.hashCode();
+			h = h * 31 + Objects.hashCode(fp);
+			hash = isReal? ~h : h;
+		}
+		
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+		
+		@Override
+		public boolean equals(Object other) {
+			if(!(other instanceof Key)) return false;
+			Key k = (Key) other;
+			// field paths are interned as well
+			return method == k.method && object == k.object && isReal == k.isReal
+					&& fieldPath == k.fieldPath;
+		}
 	}
 	
 	public ConditionalValue addField(SootField sf) {
-		List<SootField> l = (fieldList!=null)? new LinkedList<SootField>(this.fieldList) : new LinkedList<SootField>();
-		l.add(sf);
-		return new ConditionalValue(this.method, this.object, l, this.isReal);
+		FieldPath fp = (fieldPath!=null)? fieldPath : FieldPath.ROOT;
+		return getInstance(this.method, this.object, fp.append(sf), this.isReal);
 	}
 	
 	public ConditionalValue addField(List<SootField> sfl) {
-		List<SootField> l = new LinkedList<SootField>(this.fieldList);
-		l.addAll(sfl);
-		return new ConditionalValue(this.method, this.object, l, this.isReal);
+		FieldPath fp = (fieldPath!=null)? fieldPath : FieldPath.ROOT;
+		for(SootField sf : sfl) fp = fp.append(sf);
+		return getInstance(this.method, this.object, fp, this.isReal);
 	}
 	
 	@Override
@@ -59,11 +134,12 @@ public class ConditionalValue extends EscapeState {
 		return this.hashcode;
 	}
 	
+	/*
+	 * Instances are canonical, see getInstance.
+	 */
 	@Override
 	public boolean equals(Object other) {
-		if(this == other) return true;
-		if(other instanceof ConditionalValue && this.hashcode==other.hashCode()) return true;
-		return false;
+		return this == other;
 	}
 	
 	@Override
@@ -72,12 +148,7 @@ public class ConditionalValue extends EscapeState {
 		if(method==null) sb.append("caller,");
 		else sb.append(method.toString()+",");
 		sb.append(object.toString());
-		if(fieldList!=null) {
-			Iterator<SootField> it = fieldList.iterator();
-			while(it.hasNext()) {
-				sb.append("."+it.next().getName());
-			}			
-		}
+		if(fieldPath!=null) sb.append(fieldPath.toString());
 		String q = (this.isReal.booleanValue())?"T":"F";
 		sb.append(",["+q+"]");
 		sb.append(">");
@@ -88,31 +159,29 @@ public class ConditionalValue extends EscapeState {
 	}
 
 	public int getDepth() {
-		return (fieldList==null)? 0:this.fieldList.size();
+		return (fieldPath==null)? 0:this.fieldPath.depth;
 	}
 
+	/*
+	 * True if e is this CV, or this CV with its path extended. The path
+	 * test is a walk up e's path and one pointer comparison; a path of e
+	 * that is shorter than depth does not match.
+	 */
 	public boolean compareAtDepth(ConditionalValue e, int depth) {
-		try {
-			if(!this.isReal.equals(e.isReal)) return false;
-			if(!this.method.equals(e.method)) return false;
-			if(this.object.type!=e.object.type) return false;
-			if(this.object.ref!=e.object.ref) return false;
-			if(depth==0 && this.fieldList!=null) return false;
-			if(this.fieldList!=null) {
-				if(e.fieldList==null) return false;
-				if(this.fieldList!=null && this.fieldList.size()!=depth) return false;
-				for (int i = 0; i < depth; i++) {
-					if(!this.fieldList.get(i).equals(e.fieldList.get(i))) return false;
-				}				
-			}
-		} catch (Exception e2) {
-			System.out.println("Comparing:"+this.toString()+" with "+e.toString()+" at depth "+depth);
-			throw new IllegalArgumentException();
+		if(this.isReal.booleanValue()!=e.isReal.booleanValue()) return false;
+		if(!this.method.equals(e.method)) return false;
+		if(this.object!=e.object) return false;
+		if(depth==0 && this.fieldPath!=null) return false;
+		if(this.fieldPath!=null) {
+			if(e.fieldPath==null) return false;
+			if(this.fieldPath.depth!=depth) return false;
+			if(e.fieldPath.depth<depth) return false;
+			return e.fieldPath.prefix(depth)==this.fieldPath;
 		}
 		return true;			
 	}
 
 	public EscapeState makeFalseClone() {
-		return new ConditionalValue(this.method, this.object, this.fieldList, new Boolean(false));
+		return getInstance(this.method, this.object, this.fieldPath, false);
 	}
 }
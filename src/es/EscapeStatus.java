@@ -1,137 +1,254 @@
 package es;
 
-import java.util.Set;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 import soot.SootField;
 
-import java.util.HashSet;
-import java.util.Iterator;
-
+/*
+ * The set of escape states of an object: Escape and NoEscape are two
+ * bits, the conditional values a small array sorted in
+ * ConditionalValue.ORDER (CVs are interned, so equal values are the
+ * same instance). State queries are bit
+ * tests and merging two statuses is one linear merge. The array is
+ * never written after it has been published, so a status can be read
+ * while a new one is built from it.
+ */
 public class EscapeStatus {
-	
-	public HashSet<EscapeState> status;
-	
+
+	private static final int ESCAPE = 1;
+	private static final int NOESCAPE = 2;
+	private static final ConditionalValue[] NONE = new ConditionalValue[0];
+
+	private int bits;
+	private ConditionalValue[] cvs = NONE;
+
 	public EscapeStatus() {
-		status = new HashSet<>();
-		status.add(NoEscape.getInstance());
+		bits = NOESCAPE;
 	}
-	
+
 	public EscapeStatus(EscapeState es) {
-		status = new HashSet<>();
-		status.add(es);
+		add(es);
 	}
-	
+
 	public EscapeStatus(EscapeStatus es){
-		status = new HashSet<>();
-		status.addAll(es.status);
+		bits = es.bits;
+		cvs = es.cvs;
 	}
-	
+
 	@Override
 	public String toString() {
-		return status.toString();
+		return getStatus().toString();
 	}
-	
+
+	/*
+	 * With a CV around, NoEscape says nothing and Escape says all.
+	 */
 	public void purge() {
-		if(containsCV()) {
+		if(cvs.length > 0) {
 			if(doesEscape()) purgeAndEscape();
-			else if(containsNoEscape()) {
-				status.remove(NoEscape.getInstance());
-			}		
-		} else if(doesEscape() && containsNoEscape()) purgeAndEscape();
+			else bits &= ~NOESCAPE;
+		} else if(bits == (ESCAPE | NOESCAPE)) purgeAndEscape();
 	}
-	
+
 	public void purgeAndEscape() {
-		HashSet<EscapeState> es = new HashSet<EscapeState>();
-		es.add(Escape.getInstance());
-		status = es;		
+		bits = ESCAPE;
+		cvs = NONE;
 	}
-	
+
 	public void setEscape() {
 		purgeAndEscape();
 	}
-	
+
 	public void setNoEscape() {
 		if(!containsCV() && !doesEscape()) {
 			// the set may actually be empty
-			status.add(NoEscape.getInstance());
+			bits |= NOESCAPE;
 		}
 	}
-	
+
+	/*
+	 * Same value as the hashCode of the former HashSet of states.
+	 */
 	@Override
-	public int hashCode() {return status.hashCode();}
-	
+	public int hashCode() {
+		int h = 0;
+		if((bits & NOESCAPE) != 0) h += NoEscape.getInstance().hashCode();
+		for(ConditionalValue cv : cvs) h += cv.hashCode();
+		return h;
+	}
+
 	public void addEscapeState(EscapeState es) {
-		if(es!=null) status.add(es);
+		if(es!=null) add(es);
 		purge();
 	}
-	
+
 	public void addEscapeStatus(EscapeStatus es) {
-		if(es!=null) this.status.addAll(es.getStatus());
+		if(es!=null) addAll(es);
 		purge();
 	}
-	
+
+	/*
+	 * Adds every state of es without purging, so that e.g. NoEscape can
+	 * stay next to a CV. Only rhsArrayRef relies on this.
+	 */
+	public void addAll(EscapeStatus es) {
+		bits |= es.bits;
+		cvs = merge(cvs, es.cvs);
+	}
+
+	private void add(EscapeState es) {
+		if(es instanceof ConditionalValue) {
+			ConditionalValue cv = (ConditionalValue) es;
+			int i = search(cvs, cv);
+			if(i >= 0) return;
+			i = -i - 1;
+			ConditionalValue[] a = new ConditionalValue[cvs.length + 1];
+			System.arraycopy(cvs, 0, a, 0, i);
+			a[i] = cv;
+			System.arraycopy(cvs, i, a, i + 1, cvs.length - i);
+			cvs = a;
+		} else if(es instanceof Escape) {
+			bits |= ESCAPE;
+		} else if(es instanceof NoEscape) {
+			bits |= NOESCAPE;
+		}
+	}
+
+	private static int search(ConditionalValue[] a, ConditionalValue cv) {
+		int lo = 0, hi = a.length - 1;
+		while(lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			int c = ConditionalValue.ORDER.compare(a[mid], cv);
+			if(c < 0) lo = mid + 1;
+			else if(c > 0) hi = mid - 1;
+			else return mid;
+		}
+		return -(lo + 1);
+	}
+
+	/*
+	 * Union of two sorted arrays. Returns a when b adds nothing to it.
+	 */
+	private static ConditionalValue[] merge(ConditionalValue[] a, ConditionalValue[] b) {
+		if(b.length == 0 || a == b) return a;
+		if(a.length == 0) return b;
+		ConditionalValue[] c = new ConditionalValue[a.length + b.length];
+		int i = 0, j = 0, n = 0;
+		while(i < a.length && j < b.length) {
+			int d = ConditionalValue.ORDER.compare(a[i], b[j]);
+			if(d < 0) c[n++] = a[i++];
+			else if(d > 0) c[n++] = b[j++];
+			else { c[n++] = a[i++]; j++; }
+		}
+		while(i < a.length) c[n++] = a[i++];
+		while(j < b.length) c[n++] = b[j++];
+		if(n == a.length) return a;
+		return (n == c.length)? c : Arrays.copyOf(c, n);
+	}
+
 	public boolean doesEscape() {
-		return status.contains(Escape.getInstance());
+		return (bits & ESCAPE) != 0;
 	}
-	
+
 	public boolean containsNoEscape() {
-		return status.contains(NoEscape.getInstance());
+		return (bits & NOESCAPE) != 0;
 	}
-	
+
 	public boolean containsCV() {
-		boolean _ret = false;
-		Iterator<EscapeState> it = this.status.iterator();
-		while(it.hasNext()) {
-			EscapeState es = it.next();
-			if(es instanceof ConditionalValue) {
-				return true;
-			}
-		}
-		return _ret;
+		return cvs.length > 0;
 	}
 
-	public HashSet<EscapeState> getStatus() {
-		return status;
+	/*
+	 * A read-only view: Escape, NoEscape, then the CVs in
+	 * ConditionalValue.ORDER.
+	 */
+	public Collection<EscapeState> getStatus() {
+		final int flags = bits;
+		final ConditionalValue[] values = cvs;
+		final int n = Integer.bitCount(flags);
+		return new AbstractCollection<EscapeState>() {
+			@Override
+			public Iterator<EscapeState> iterator() {
+				return new Iterator<EscapeState>() {
+					private int i = 0;
+
+					@Override
+					public boolean hasNext() {
+						return i < n + values.length;
+					}
+
+					@Override
+					public EscapeState next() {
+						if(!hasNext()) throw new NoSuchElementException();
+						int k = i++;
+						if(k < n) {
+							if(k == 0 && (flags & ESCAPE) != 0) return Escape.getInstance();
+							return NoEscape.getInstance();
+						}
+						return values[k - n];
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return n + values.length;
+			}
+		};
 	}
 
-	public void setStatus(HashSet<EscapeState> status) {
-		this.status = status;
+	public void setStatus(Collection<EscapeState> status) {
+		bits = 0;
+		cvs = NONE;
+		status.forEach(this::add);
 	}
-	
+
 	public boolean isCallerOnly() {
-		boolean _ret = true;
-		Iterator<EscapeState> it = status.iterator();
-		while(it.hasNext()) {
-			EscapeState e = it.next();
-			if(e instanceof Escape || e instanceof NoEscape || (e instanceof ConditionalValue && (((ConditionalValue)e).getMethod()!=null))) {
-				_ret = false;
-				break;
-			}
+		if(bits != 0) return false;
+		for(ConditionalValue cv : cvs) {
+			if(cv.getMethod()!=null) return false;
 		}
-		return _ret;
+		return true;
 	}
-	
+
 	public EscapeStatus makeField(SootField f) {
 		EscapeStatus _ret = new EscapeStatus();
-		Iterator<EscapeState> it = status.iterator();
-		while(it.hasNext()) {
-			EscapeState e = it.next();
-			if(!(e instanceof ConditionalValue)) {
-				_ret.addEscapeState(e);
-			} else {
-				_ret.addEscapeState(((ConditionalValue)e).addField(f));
-			}
+		if(doesEscape()) {
+			_ret.setEscape();
+			return _ret;
 		}
+		ConditionalValue[] a = new ConditionalValue[cvs.length];
+		for(int i = 0; i < cvs.length; i++) a[i] = cvs[i].addField(f);
+		_ret.setCVs(a);
 		return _ret;
 	}
 
 	public EscapeStatus makeFalseClone() {
 		if(this.doesEscape() || this.containsNoEscape()) return this;
 		EscapeStatus _ret = new EscapeStatus();
-		this.status.forEach(cv -> {
-			_ret.addEscapeState((((ConditionalValue)cv).makeFalseClone()));
-		});
+		ConditionalValue[] a = new ConditionalValue[cvs.length];
+		for(int i = 0; i < cvs.length; i++) a[i] = (ConditionalValue) cvs[i].makeFalseClone();
+		_ret.setCVs(a);
 		return _ret;
 	}
-	
+
+	/*
+	 * Adds the CVs in a (in any order, possibly repeated) to a status
+	 * that holds no CV yet, and purges.
+	 */
+	private void setCVs(ConditionalValue[] a) {
+		if(a.length == 0) return;
+		Arrays.sort(a, ConditionalValue.ORDER);
+		int m = 0;
+		for(int i = 0; i < a.length; i++) {
+			if(m == 0 || a[m-1] != a[i]) a[m++] = a[i];
+		}
+		cvs = (m == a.length)? a : Arrays.copyOf(a, m);
+		purge();
+	}
+
 }
@@ -0,0 +1,109 @@
+package es;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import soot.SootField;
+
+/*
+ * A field path such as .f.g.h, stored as a node of a global trie:
+ * every path points to the path one field shorter, and the children of
+ * a node are interned. A path therefore exists once, appending a field
+ * that was appended before allocates nothing, and two paths (or their
+ * prefixes) are equal iff they are the same node.
+ */
+public final class FieldPath implements Iterable<SootField> {
+	// the empty path, root of the trie
+	public static final FieldPath ROOT = new FieldPath(null, null);
+
+	public final FieldPath parent;
+	// the last field of the path, null for ROOT
+	public final SootField field;
+	public final int depth;
+	// same value as the hashCode of the field list
+	private final int hashcode;
+	private final ConcurrentHashMap<SootField, FieldPath> children = new ConcurrentHashMap<>(4);
+
+	private FieldPath(FieldPath parent, SootField field) {
+		this.parent = parent;
+		this.field = field;
+		this.depth = (parent == null)? 0 : parent.depth + 1;
+		this.hashcode = (parent == null)? 1 : 31*parent.hashcode + field.hashCode();
+	}
+
+	public static FieldPath of(SootField f) {
+		return ROOT.append(f);
+	}
+
+	public FieldPath append(SootField f) {
+		FieldPath child = children.get(f);
+		if(child != null) return child;
+		return children.computeIfAbsent(f, k -> new FieldPath(this, k));
+	}
+
+	/*
+	 * The first d fields of this path, 0 <= d <= depth.
+	 */
+	public FieldPath prefix(int d) {
+		if(d < 0 || d > depth) throw new IllegalArgumentException("No prefix of length "+d+" in "+this);
+		FieldPath p = this;
+		while(p.depth > d) p = p.parent;
+		return p;
+	}
+
+	public boolean startsWith(FieldPath p) {
+		return p.depth <= depth && prefix(p.depth) == p;
+	}
+
+	/*
+	 * The fields from the first to the last.
+	 */
+	@Override
+	public Iterator<SootField> iterator() {
+		SootField[] fields = new SootField[depth];
+		for(FieldPath p = this; p.depth > 0; p = p.parent) fields[p.depth - 1] = p.field;
+		return new Iterator<SootField>() {
+			private int i = 0;
+
+			@Override
+			public boolean hasNext() {
+				return i < fields.length;
+			}
+
+			@Override
+			public SootField next() {
+				if(i >= fields.length) throw new NoSuchElementException();
+				return fields[i++];
+			}
+		};
+	}
+
+	/*
+	 * Orders paths by length, then by the signature of the first field
+	 * in which they differ; null (no path) comes first.
+	 */
+	public static int compare(FieldPath a, FieldPath b) {
+		if(a == b) return 0;
+		if(a == null) return -1;
+		if(b == null) return 1;
+		if(a.depth != b.depth) return Integer.compare(a.depth, b.depth);
+		while(a.parent != b.parent) {
+			a = a.parent;
+			b = b.parent;
+		}
+		return a.field.getSignature().compareTo(b.field.getSignature());
+	}
+
+	@Override
+	public int hashCode() {
+		return hashcode;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for(SootField f : this) sb.append("."+f.getName());
+		return sb.toString();
+	}
+}
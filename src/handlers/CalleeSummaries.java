@@ -0,0 +1,155 @@
+package handlers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import es.ConditionalValue;
+import es.EscapeState;
+import es.EscapeStatus;
+import es.NoEscape;
+import ptg.ObjectNode;
+import ptg.ObjectSet;
+import ptg.ObjectType;
+import ptg.PointsToGraph;
+import ptg.RetLocal;
+import soot.SootMethod;
+import utils.AnalysisOptions;
+import utils.ClassFacts;
+
+/*
+ * Final summaries of callees, for the bottom-up mode (stava.bottomUp).
+ * When a method is analysed, the methods it calls outside of its own
+ * strongly connected component of the call graph are done, and a call
+ * site asks here what a call means for the objects passed or returned
+ * instead of always leaving a CV for the resolver:
+ *
+ *   ESCAPE  the callee (for a virtual call, one of the methods it may
+ *           run) makes the root object escape;
+ *   NONE    the callee adds nothing, the CV would resolve to NoEscape;
+ *   CV      anything else, the CV is made as before.
+ *
+ * A CV of a caller also serves the resolver the other way round: the
+ * callee objects that depend on their callers are resolved through the
+ * CVs the callers have on them. So a CV is only left out when no
+ * internal object the callee's parameter (or return value) reaches
+ * depends on its callers at all.
+ */
+public class CalleeSummaries {
+	public enum Effect { NONE, ESCAPE, CV }
+
+	private static final int RETURN = Integer.MIN_VALUE;
+
+	private static final Map<SootMethod, Callee> done = new ConcurrentHashMap<>();
+	private static final AtomicLong applied = new AtomicLong(), kept = new AtomicLong();
+
+	private static final class Callee {
+		final HashMap<ObjectNode, EscapeStatus> summary;
+		final PointsToGraph ptg;
+		// parameter index (-1 for this, RETURN for the return value) -> effect
+		final Map<Integer, Effect> effects = new ConcurrentHashMap<>();
+
+		Callee(HashMap<ObjectNode, EscapeStatus> summary, PointsToGraph ptg) {
+			this.summary = summary;
+			this.ptg = ptg;
+		}
+	}
+
+	/*
+	 * m is done: its summary and exit graph will not change any more.
+	 */
+	public static void finish(SootMethod m, HashMap<ObjectNode, EscapeStatus> summary, PointsToGraph ptg) {
+		if(summary != null && ptg != null) done.put(m, new Callee(summary, ptg));
+	}
+
+	public static void clear() {
+		done.clear();
+		applied.set(0);
+		kept.set(0);
+	}
+
+	/*
+	 * What passing objects as parameter index (-1 for the receiver) of
+	 * callee does to them. A virtual call may run any of the targets
+	 * ClassFacts finds for callee, so all of them have to agree.
+	 */
+	public static Effect ofParameter(SootMethod callee, int index, boolean virtual) {
+		return effect(callee, index, virtual);
+	}
+
+	/*
+	 * What the value returned by callee is for the caller.
+	 */
+	public static Effect ofReturn(SootMethod callee, boolean virtual) {
+		return effect(callee, RETURN, virtual);
+	}
+
+	private static Effect effect(SootMethod callee, int key, boolean virtual) {
+		if(!AnalysisOptions.bottomUp) return Effect.CV;
+		List<SootMethod> targets = virtual? ClassFacts.targets(callee) : Collections.singletonList(callee);
+		Effect e = targets.isEmpty()? Effect.CV : Effect.NONE;
+		for(SootMethod target : targets) {
+			Callee c = done.get(target);
+			Effect t = (c == null)? Effect.CV : c.effects.computeIfAbsent(key, k -> compute(c, k));
+			if(t == Effect.CV) {
+				e = Effect.CV;
+				break;
+			}
+			if(t == Effect.ESCAPE) e = Effect.ESCAPE;
+		}
+		if(e == Effect.CV) kept.incrementAndGet();
+		else applied.incrementAndGet();
+		return e;
+	}
+
+	private static Effect compute(Callee c, int key) {
+		List<ObjectNode> roots = new ArrayList<>();
+		ObjectNode self;
+		if(key == RETURN) {
+			ObjectSet returned = c.ptg.vars.get(RetLocal.getInstance());
+			if(returned != null) returned.forEach(roots::add);
+			self = ObjectNode.getInstance(0, ObjectType.returnValue);
+		} else {
+			roots.add(ObjectNode.getInstance(key, ObjectType.parameter));
+			self = ObjectNode.getInstance(key, ObjectType.argument);
+		}
+		Set<ObjectNode> reached = new HashSet<>();
+		for(ObjectNode root : roots) {
+			for(ObjectNode o : c.ptg.reachables(root)) reached.add(o);
+		}
+		boolean escapes = false;
+		for(ObjectNode root : roots) {
+			EscapeStatus es = c.summary.get(root);
+			if(es == null) return Effect.CV;
+			if(es.doesEscape()) escapes = true;
+		}
+		boolean none = true;
+		for(ObjectNode o : reached) {
+			EscapeStatus es = c.summary.get(o);
+			if(es == null) return Effect.CV;
+			if(!escapes && es.doesEscape()) none = false;
+			for(EscapeState s : es.getStatus()) {
+				if(s instanceof NoEscape) continue;
+				if(!(s instanceof ConditionalValue)) continue;
+				ConditionalValue cv = (ConditionalValue) s;
+				// an object of the callee resolved through its callers' CVs
+				if(cv.getMethod() == null && o.type == ObjectType.internal) return Effect.CV;
+				// the caller's own object at the other end of the call
+				if(cv.getMethod() == null && cv.object.equals(self)) continue;
+				none = false;
+			}
+		}
+		if(escapes) return Effect.ESCAPE;
+		return none? Effect.NONE : Effect.CV;
+	}
+
+	public static String stats() {
+		return applied.get()+" call site use(s) of callee summaries applied directly, "+kept.get()+" left as CVs";
+	}
+}
@@ -1,8 +1,8 @@
 package handlers;
 
 import java.security.InvalidParameterException;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
@@ -30,6 +30,7 @@ import soot.jimple.internal.JInstanceFieldRef;
 import soot.jimple.internal.JNewArrayExpr;
 import soot.jimple.internal.JNewExpr;
 import soot.jimple.internal.JNewMultiArrayExpr;
+import store.LibrarySummaries;
 
 public class JAssignStmtHandler{
 	public static void handle(Unit u, PointsToGraph ptg, HashMap<ObjectNode, EscapeStatus> summary) {
@@ -72,6 +73,102 @@ public class JAssignStmtHandler{
 		}		
 	}
 	
+	/*
+	 * Delta version of handle, used by the delta mode of StaticAnalyser.
+	 * last holds the in- and out-graph of the previous visit of u, in is
+	 * its new in-graph and delta the edges in has gained since then.
+	 * The new out-graph is built from last.out and delta alone, so the
+	 * work is proportional to the change. Returns null for statements
+	 * that have no such transfer (or whose case depends on what changed);
+	 * those have to be handled on the whole of in.
+	 */
+	public static PointsToGraph handleDelta(Unit u, FlowSet last, PointsToGraph in, PointsToGraph delta, HashMap<ObjectNode, EscapeStatus> summary) {
+		JAssignStmt stmt = (JAssignStmt) u;
+		Value lhs = stmt.getLeftOp();
+		Value rhs = stmt.getRightOp();
+		if(lhs.getType() instanceof PrimType) {
+			if(rhs instanceof InvokeExpr) return null;
+			return new PointsToGraph(in);
+		} else if(lhs instanceof Local) {
+			if(rhs instanceof NullConstant) {
+				return new PointsToGraph(in);
+			} else if(rhs instanceof Local) {
+				return CopyStmtDelta((Local)lhs, (Local)rhs, last, delta);
+			} else if(rhs instanceof JCastExpr) {
+				Value op = ((JCastExpr)rhs).getOp();
+				if(op instanceof NullConstant) return new PointsToGraph(in);
+				if(op instanceof Local) return CopyStmtDelta((Local)lhs, (Local)op, last, delta);
+			} else if(rhs instanceof JInstanceFieldRef) {
+				return LoadStmtDelta(u, last, in, delta);
+			}
+		} else if(lhs instanceof JInstanceFieldRef) {
+			if(rhs instanceof NullConstant) {
+				return new PointsToGraph(in);
+			} else if(rhs instanceof Local) {
+				return StoreStmtDelta(u, last, in, delta, summary);
+			}
+		}
+		return null;
+	}
+	
+	/*
+	 * lhs = rhs is a strong update of lhs only: everything else passes
+	 * through, and lhs gains what rhs gained.
+	 */
+	private static PointsToGraph CopyStmtDelta(Local lhs, Local rhs, FlowSet last, PointsToGraph delta) {
+		PointsToGraph passed = new PointsToGraph(delta);
+		passed.removeVar(lhs);
+		PointsToGraph out = new PointsToGraph(last.getOut());
+		out.union(passed);
+		if(delta.vars.containsKey(rhs)) out.unionVar(lhs, delta.vars.get(rhs));
+		return out;
+	}
+	
+	/*
+	 * Only the "field already exists" case is monotone: once the field
+	 * is there it stays, and lhs is re-assembled from the new in-graph,
+	 * which costs as much as the points-to set of the base.
+	 */
+	private static PointsToGraph LoadStmtDelta(Unit u, FlowSet last, PointsToGraph in, PointsToGraph delta) {
+		JAssignStmt stmt = (JAssignStmt) u;
+		Local lhs = (Local)stmt.getLeftOp();
+		JInstanceFieldRef rhs = (JInstanceFieldRef)stmt.getRightOp();
+		Local base = (Local)rhs.getBase();
+		if(!last.getIn().containsField(base, rhs.getField())) return null;
+		PointsToGraph passed = new PointsToGraph(delta);
+		passed.removeVar(lhs);
+		PointsToGraph out = new PointsToGraph(last.getOut());
+		out.union(passed);
+		out.putVar(lhs, in.assembleFieldObjects(base, rhs.getField()));
+		return out;
+	}
+	
+	/*
+	 * New parents of the base get the whole points-to set of rhs, the
+	 * old ones only what rhs gained. The escape statuses are propagated
+	 * again over the new out-graph, as StoreStmt does.
+	 */
+	private static PointsToGraph StoreStmtDelta(Unit u, FlowSet last, PointsToGraph in, PointsToGraph delta, HashMap<ObjectNode, EscapeStatus> summary) {
+		JInstanceFieldRef lhs = (JInstanceFieldRef)((JAssignStmt)u).getLeftOp();
+		Local base = (Local)lhs.getBase();
+		Local rhs = (Local) ((JAssignStmt)u).getRightOp();
+		if(!last.getIn().vars.containsKey(base)) return null;
+		PointsToGraph out = new PointsToGraph(last.getOut());
+		out.union(delta);
+		Set<ObjectNode> newParents = delta.vars.get(base);
+		Set<ObjectNode> objSet = in.vars.get(rhs);
+		Set<ObjectNode> newObjs = delta.vars.get(rhs);
+		for(ObjectNode parent : in.vars.get(base)) {
+			if(newParents != null && newParents.contains(parent)) {
+				out.makeField(parent, lhs.getField(), (objSet == null)? Collections.emptySet() : objSet);
+			} else if(newObjs != null) {
+				out.makeField(parent, lhs.getField(), newObjs);
+			}
+		}
+		if(objSet != null) out.propagateES(base, rhs, summary);
+		return out;
+	}
+	
 	private static void lhsIsLocal(Value rhs, Unit u, PointsToGraph ptg, HashMap<ObjectNode, EscapeStatus> summary) {
 		if(rhs instanceof JNewExpr) {
 			JNewStmt(u, ptg, summary);
@@ -112,21 +209,20 @@ public class JAssignStmtHandler{
 			HashMap<ObjectNode, EscapeStatus> summary) {
 		ObjectNode obj = null;
 		try {
-			obj = new ObjectNode(utils.getBCI.get(u), ObjectType.internal);
+			obj = ObjectNode.getInstance(utils.getBCI.get(u), ObjectType.internal);
 		} catch (Exception e) {
 			obj = InvalidBCIObjectNode.getInstance(ObjectType.internal);
 		}
 		Local lhs = (Local)((JAssignStmt)u).getLeftOp();
 		ptg.forcePutVar(lhs, obj);
-		EscapeStatus es = new EscapeStatus(Escape.getInstance());
-		summary.put(obj, es);
+		mergeStatus(summary, obj, new EscapeStatus(Escape.getInstance()));
 	}
 
 	private static void storeStringConstantToLocalStmt(Unit u, PointsToGraph ptg,
 			HashMap<ObjectNode, EscapeStatus> summary) {
 		ObjectNode obj = null;
 		try {
-			obj = new ObjectNode(utils.getBCI.get(u), ObjectType.internal);
+			obj = ObjectNode.getInstance(utils.getBCI.get(u), ObjectType.internal);
 		} catch (Exception e) {
 			obj = InvalidBCIObjectNode.getInstance(ObjectType.internal);
 		}
@@ -134,35 +230,47 @@ public class JAssignStmtHandler{
 		ptg.forcePutVar(lhs, obj);
 		EscapeStatus es = new EscapeStatus();
 		if(obj instanceof InvalidBCIObjectNode) es.setEscape();
-		summary.put(obj, es);
+		mergeStatus(summary, obj, es);
 	}
 
 	private static void storeStringConstantToInstanceFieldRefStmt(Unit u, PointsToGraph ptg, HashMap<ObjectNode, EscapeStatus> summary) {
 		JInstanceFieldRef lhs = (JInstanceFieldRef)((JAssignStmt)u).getLeftOp();
-		ObjectNode obj = new ObjectNode(utils.getBCI.get(u), ObjectType.internal);
+		ObjectNode obj = ObjectNode.getInstance(utils.getBCI.get(u), ObjectType.internal);
 		ptg.makeField((Local)lhs.getBase(), lhs.getField(), obj);
 		EscapeStatus es = new EscapeStatus();
 		ptg.vars.get((Local)lhs.getBase()).forEach(parent -> es.addEscapeStatus(summary.get(parent)));
-		summary.put(obj, es);
+		mergeStatus(summary, obj, es);
 	}
 
 	private static void storeStringConstantToArrayRefStmt(Unit u, PointsToGraph ptg,
 			HashMap<ObjectNode, EscapeStatus> summary) {
 		JArrayRef lhs = (JArrayRef)((JAssignStmt)u).getLeftOp();
-		ObjectNode obj = new ObjectNode(utils.getBCI.get(u), ObjectType.internal);
+		ObjectNode obj = ObjectNode.getInstance(utils.getBCI.get(u), ObjectType.internal);
 		ptg.storeStmtArrayRef((Local)lhs.getBase(), obj);
 		EscapeStatus es = new EscapeStatus();
 		ptg.vars.get((Local)lhs.getBase()).forEach(parent -> es.addEscapeStatus(summary.get(parent)));
-		summary.put(obj, es);
+		mergeStatus(summary, obj, es);
 	}
 
 	private static void storeClassConstantToArrayRef(Unit u, PointsToGraph ptg, HashMap<ObjectNode, EscapeStatus> summary) {
 		JArrayRef lhs = (JArrayRef)((JAssignStmt)u).getLeftOp();
-		ObjectNode obj = new ObjectNode(utils.getBCI.get(u), ObjectType.external);
+		ObjectNode obj = ObjectNode.getInstance(utils.getBCI.get(u), ObjectType.external);
 		ptg.storeStmtArrayRef((Local)lhs.getBase(), obj);
 		summary.put(obj, new EscapeStatus(Escape.getInstance()));
 	}
 
+	/*
+	 * Adds es to the status of obj instead of replacing it. A statement
+	 * may be applied again, in block mode on every visit of its block,
+	 * and a fresh status would drop what later statements have added
+	 * since, e.g. an Escape from a static store.
+	 */
+	public static void mergeStatus(Map<ObjectNode, EscapeStatus> summary, ObjectNode obj, EscapeStatus es) {
+		EscapeStatus old = summary.get(obj);
+		if(old == null) summary.put(obj, es);
+		else old.addEscapeStatus(es);
+	}
+
 	private static void error(Unit u) {
 		JAssignStmt stmt = (JAssignStmt) u;
 		Value lhs = stmt.getLeftOp();
@@ -175,15 +283,7 @@ public class JAssignStmtHandler{
 	private static void eraseFieldRefStmt(Unit u, PointsToGraph ptg, HashMap<ObjectNode, EscapeStatus> summary) {
 		JInstanceFieldRef lhs = (JInstanceFieldRef)((JAssignStmt)u).getLeftOp();
 		if(!ptg.vars.containsKey((Local)lhs.getBase())) return;
-		ptg.vars.get((Local)lhs.getBase()).forEach(obj -> {
-			if(ptg.fields.containsKey(obj)) {
-				Map<SootField, Set<ObjectNode>> map = ptg.fields.get(obj);
-				if(map.containsKey(lhs.getField())) {
-					map.get(lhs.getField()).clear();
-					map.remove(lhs.getField());
-				}
-			}
-		});
+		ptg.vars.get((Local)lhs.getBase()).forEach(obj -> ptg.removeField(obj, lhs.getField()));
 	}
 
 	private static void rhsCastExpr(Unit u, PointsToGraph ptg, HashMap<ObjectNode, EscapeStatus> summary) {
@@ -209,14 +309,15 @@ public class JAssignStmtHandler{
 	private static void CopyStmtHelper(Unit u, Local lhs, Local rhs, PointsToGraph ptg, HashMap<ObjectNode, EscapeStatus> summary){
 		Set<ObjectNode> ptSet = null;
 		if(ptg.vars.containsKey(rhs)) {
-			ptSet = (Set<ObjectNode>)((HashSet<ObjectNode>)ptg.vars.get(rhs)).clone();			
+			// points-to sets are immutable, no need for a copy
+			ptSet = ptg.vars.get(rhs);
 		} else {
 			// rhs is a field variable
-			ObjectNode obj = new ObjectNode(utils.getBCI.get(u), ObjectType.external);
-			ptSet = new HashSet<ObjectNode>();
+			ObjectNode obj = ObjectNode.getInstance(utils.getBCI.get(u), ObjectType.external);
+			ptSet = Collections.emptySet();
 			summary.put(obj, new EscapeStatus(Escape.getInstance()));
 		}
-		ptg.vars.put(lhs, ptSet);		
+		ptg.putVar(lhs, ptSet);
 	}
 
 	/*
@@ -228,12 +329,12 @@ public class JAssignStmtHandler{
 		Value rhs = ((JAssignStmt) u).getRightOp();
 		Value lhs = ((JAssignStmt) u).getLeftOp();
 		EscapeStatus es;
-		if(IsMultiThreadedClass.check(((JNewExpr)rhs).getBaseType().getSootClass())){
+		if(ClassFacts.escapesOnAllocation(((JNewExpr)rhs).getBaseType().getSootClass())){
 			es = new EscapeStatus(Escape.getInstance());
 		} else {
 			es = new EscapeStatus(NoEscape.getInstance());
 		}
-		ObjectNode obj = new ObjectNode(getBCI.get(u), ObjectType.internal);
+		ObjectNode obj = ObjectNode.getInstance(getBCI.get(u), ObjectType.internal);
 		try {
 			ptg.forcePutVar((Local)lhs, obj);
 		} catch (Exception e) {
@@ -249,7 +350,7 @@ public class JAssignStmtHandler{
 		Value lhs = ((JAssignStmt) u).getLeftOp();
 		EscapeStatus es;
 		es = new EscapeStatus(NoEscape.getInstance());
-		ObjectNode obj = new ObjectNode(getBCI.get(u), ObjectType.internal);
+		ObjectNode obj = ObjectNode.getInstance(getBCI.get(u), ObjectType.internal);
 		try {
 			ptg.forcePutVar((Local)lhs, obj);
 		} catch (Exception e) {
@@ -284,7 +385,7 @@ public class JAssignStmtHandler{
 		Value base = arrayRef.getBase();
 		if(!ptg.vars.containsKey(base)) {
 			// The base might be a field variable for the object.
-			ObjectNode obj = new ObjectNode(utils.getBCI.get(u), ObjectType.external);
+			ObjectNode obj = ObjectNode.getInstance(utils.getBCI.get(u), ObjectType.external);
 			ptg.forcePutVar(lhs, obj);
 			summary.put(obj, new EscapeStatus(Escape.getInstance()));
 			return;
@@ -292,8 +393,8 @@ public class JAssignStmtHandler{
 		}
 
 		Set<ObjectNode> objs = ptg.vars.get(base);
-		ObjectNode internalobj = new ObjectNode(getBCI.get(u), ObjectType.internal);
-		ObjectNode externalobj = new ObjectNode(getBCI.get(u), ObjectType.external);
+		ObjectNode internalobj = ObjectNode.getInstance(getBCI.get(u), ObjectType.internal);
+		ObjectNode externalobj = ObjectNode.getInstance(getBCI.get(u), ObjectType.external);
 				
 		Iterator<ObjectNode> iterator = objs.iterator();
 		
@@ -312,13 +413,13 @@ public class JAssignStmtHandler{
 			ptg.makeField(parent, f, child);
 			EscapeStatus es = summary.get(parent).makeField(f);
 			if(summary.containsKey(child)) {
-				summary.get(child).status.addAll(es.status);
+				summary.get(child).addAll(es);
 			} else {
 				summary.put(child, es);
 			}
 			
 			if(ptg.vars.containsKey(lhs) && !ptg.vars.get(lhs).contains(child)) {
-				ptg.vars.get(lhs).add(child);
+				ptg.addVar(lhs, child);
 			} else {
 				ptg.forcePutVar(lhs, child);
 			}
@@ -343,7 +444,7 @@ public class JAssignStmtHandler{
 		// Store case
 		JInstanceFieldRef lhs = (JInstanceFieldRef)((JAssignStmt)u).getLeftOp();
 		Local rhs = (Local) ((JAssignStmt)u).getRightOp();
-		HashSet<ObjectNode> ptSet = (HashSet<ObjectNode>)ptg.vars.get(lhs.getBase());
+		Set<ObjectNode> ptSet = ptg.vars.get(lhs.getBase());
 		if(ptSet == null) {
 			// the lhs.base must be a field variable.
 			// simply set rhs to escape
@@ -359,11 +460,11 @@ public class JAssignStmtHandler{
 			// hence it needs to be set to an empty set!
 			// throw new IllegalArgumentException("[JAssignStmtHandler] ptset for "+rhs.toString()+" of "+u.toString()+" not found!");			
 			ptSet.forEach(parent -> {
-				ptg.makeField(parent, lhs.getField(), new HashSet<>());
+				ptg.makeField(parent, lhs.getField(), Collections.emptySet());
 			});
 		} else {
 			ptSet.forEach(parent -> {
-				ptg.makeField(parent, lhs.getField(), (Set<ObjectNode>)((HashSet<ObjectNode>)objSet).clone());
+				ptg.makeField(parent, lhs.getField(), objSet);
 			});
 			ptg.propagateES((Local)lhs.getBase(), rhs, summary);
 		}
@@ -387,10 +488,10 @@ public class JAssignStmtHandler{
 			if(ptg.containsField((Local)rhs.getBase(), rhs.getField())) {
 				// lhs it exists already
 				// assemble field objects
-				ptg.vars.put(lhs, ptg.assembleFieldObjects((Local)rhs.getBase(), rhs.getField()));
+				ptg.putVar(lhs, ptg.assembleFieldObjects((Local)rhs.getBase(), rhs.getField()));
 				// TODO: that's all? no need for make field?
 			} else {
-				ObjectNode obj = new ObjectNode(getBCI.get(u), ObjectType.external);
+				ObjectNode obj = ObjectNode.getInstance(getBCI.get(u), ObjectType.external);
 				ptg.forcePutVar(lhs, obj);
 				ptg.makeField((Local)rhs.getBase(), rhs.getField(), obj);
 				
@@ -403,12 +504,12 @@ public class JAssignStmtHandler{
 				}
 				// make field
 				EscapeStatus es = parentsES.makeField(rhs.getField());
-				summary.put(obj, es);
+				mergeStatus(summary, obj, es);
 			}
 		} else {
 			// might be a field variable, and hence has no definiton
 			// set to escape
-			ObjectNode obj = new ObjectNode(utils.getBCI.get(u), ObjectType.external);
+			ObjectNode obj = ObjectNode.getInstance(utils.getBCI.get(u), ObjectType.external);
 			EscapeStatus es = new EscapeStatus(Escape.getInstance());
 			ptg.forcePutVar(lhs, obj);
 			summary.put(obj, es);
@@ -422,7 +523,7 @@ public class JAssignStmtHandler{
 	
 	public static void StaticLoadStmt(Unit u, PointsToGraph ptg, HashMap<ObjectNode, EscapeStatus> summary) {
 		Local lhs = (Local)((JAssignStmt)u).getLeftOp();
-		ObjectNode obj = new ObjectNode(getBCI.get(u), ObjectType.external);
+		ObjectNode obj = ObjectNode.getInstance(getBCI.get(u), ObjectType.external);
 		EscapeStatus es = new EscapeStatus(Escape.getInstance());
 		ptg.forcePutVar(lhs, obj);
 		summary.put(obj, es);
@@ -443,7 +544,7 @@ public class JAssignStmtHandler{
 		if(lhs instanceof StaticFieldRef) {
 			// Ignore - [Verified]
 		} else if (lhs instanceof Local) {
-			ptg.vars.put((Local)lhs, new HashSet<>());
+			ptg.putVar((Local)lhs, Collections.emptySet());
 		} else {
 			System.out.println("Unidentified case at: "+ u);
 			throw new IllegalArgumentException(u.toString());
@@ -455,14 +556,23 @@ public class JAssignStmtHandler{
 		Value rhs = ((JAssignStmt)u).getRightOp();
 		AbstractInvokeExpr expr = (AbstractInvokeExpr)rhs;
 		SootMethod m = expr.getMethod();
-		ObjectNode n = new ObjectNode(getBCI.get(u), ObjectType.external);
+		ObjectNode n = ObjectNode.getInstance(getBCI.get(u), ObjectType.external);
 		ptg.forcePutVar(lhs, n);
-		if(!m.isJavaLibraryMethod()) {
+		if(!m.isJavaLibraryMethod() || LibrarySummaries.covers(m)) {
 //			System.out.println(m.toString()+" is not a library method");
-			summary.put(n, new EscapeStatus(new ConditionalValue(m, new ObjectNode(0, ObjectType.returnValue), new Boolean(true))));
+			switch(CalleeSummaries.ofReturn(m, JInvokeStmtHandler.isVirtual(expr))) {
+			case NONE:
+				mergeStatus(summary, n, new EscapeStatus());
+				break;
+			case ESCAPE:
+				mergeStatus(summary, n, new EscapeStatus(Escape.getInstance()));
+				break;
+			default:
+				mergeStatus(summary, n, new EscapeStatus(ConditionalValue.getInstance(m, ObjectNode.getInstance(0, ObjectType.returnValue), Boolean.TRUE)));
+			}
 		} 
 		else {
-			summary.put(n, new EscapeStatus());
+			mergeStatus(summary, n, new EscapeStatus());
 		} 
 		JInvokeStmtHandler.handleExpr(expr, ptg, summary);
 	}
@@ -28,25 +28,25 @@ public class JIdentityStmtHandler {
 			 * ParameterRef example:
 			 * r0 := @parameter0: java.lang.String[]
 			 */
-			obj = new ObjectNode(((ParameterRef) rhs).getIndex(), ObjectType.parameter);
+			obj = ObjectNode.getInstance(((ParameterRef) rhs).getIndex(), ObjectType.parameter);
 			ptg.forcePutVar((Local)lhs, obj);
-			cvobj = new ObjectNode(((ParameterRef) rhs).getIndex(), ObjectType.argument);
+			cvobj = ObjectNode.getInstance(((ParameterRef) rhs).getIndex(), ObjectType.argument);
 		} else if(rhs instanceof ThisRef) {
 			/*
 			 * ThisRef example:
 			 * r0 := @this: Test
 			 */
 			// -1 will be used to represent 'this'
-			obj = new ObjectNode(-1, ObjectType.parameter);
+			obj = ObjectNode.getInstance(-1, ObjectType.parameter);
 			ptg.forcePutVar((Local)lhs, obj);
-			cvobj = new ObjectNode(-1, ObjectType.argument);
+			cvobj = ObjectNode.getInstance(-1, ObjectType.argument);
 		} else if(rhs instanceof JCaughtExceptionRef && lhs instanceof Local) {
 //			System.out.println("[JIdentitiyStmtHandler] Warning: caughtexception is assigned to "+lhs.toString());
-			obj = new ObjectNode(-1, ObjectType.external);
+			obj = ObjectNode.getInstance(-1, ObjectType.external);
 			ptg.forcePutVar((Local)lhs, obj);
 			EscapeStatus e = new EscapeStatus();
 			e.setEscape();
-			summary.put(obj, e);
+			JAssignStmtHandler.mergeStatus(summary, obj, e);
 		} else {
 			try {
 				ThisRef r = (ThisRef)rhs;
@@ -57,8 +57,8 @@ public class JIdentityStmtHandler {
 			}
 		}
 		if(cvobj!=null) {
-			ConditionalValue cv = new ConditionalValue(null, cvobj);
-			summary.put(obj, new EscapeStatus(cv));			
+			ConditionalValue cv = ConditionalValue.getInstance(null, cvobj);
+			JAssignStmtHandler.mergeStatus(summary, obj, new EscapeStatus(cv));
 		}
 	}
 }
@@ -20,6 +20,7 @@ import soot.jimple.internal.JInvokeStmt;
 import soot.jimple.internal.JSpecialInvokeExpr;
 import soot.jimple.internal.JStaticInvokeExpr;
 import soot.jimple.internal.JVirtualInvokeExpr;
+import store.LibrarySummaries;
 
 public class JInvokeStmtHandler {
 	
@@ -32,7 +33,7 @@ public class JInvokeStmtHandler {
 		handleExpr(expr, ptg, summary);
 	}
 	public static void handleExpr(InvokeExpr expr, PointsToGraph ptg, Map<ObjectNode, EscapeStatus> summary) {
-		if(expr.getMethod().isJavaLibraryMethod()) {
+		if(expr.getMethod().isJavaLibraryMethod() && !LibrarySummaries.covers(expr.getMethod())) {
 			return;
 		} 
 		/*
@@ -47,10 +48,8 @@ public class JInvokeStmtHandler {
 			 */
 			JSpecialInvokeExpr invokeExpr = (JSpecialInvokeExpr) expr;
 			Value base = invokeExpr.getBase();
-			ConditionalValue cv = new ConditionalValue( invokeExpr.getMethod(), new ObjectNode(-1,ObjectType.parameter), true);
-//			System.out.println("CascadeCV "+cv.toString()+" on "+base.toString());
-			ptg.cascadeCV((Local)base, cv, summary);
-//			System.out.println(summary.get(new ObjectNode(17, ObjectType.internal)));
+			pass(invokeExpr.getMethod(), -1, false, (Local)base, ptg, summary);
+//			System.out.println(summary.get(ObjectNode.getInstance(17, ObjectType.internal)));
 		} else if (expr instanceof JStaticInvokeExpr) {
 			/*
 			 * Has no base.
@@ -69,8 +68,7 @@ public class JInvokeStmtHandler {
 			 */
 			JVirtualInvokeExpr invokeExpr = (JVirtualInvokeExpr) expr;			
 			Value base = invokeExpr.getBase();
-			ConditionalValue cv = new ConditionalValue( invokeExpr.getMethod(), new ObjectNode(-1,ObjectType.parameter),true );
-			ptg.cascadeCV((Local)base, cv, summary);
+			pass(invokeExpr.getMethod(), -1, true, (Local)base, ptg, summary);
 		} else if (expr instanceof JInterfaceInvokeExpr) {
 			/*
 			 * Example of JVirtualInvokeExpr:
@@ -78,22 +76,45 @@ public class JInvokeStmtHandler {
 			 */
 			JInterfaceInvokeExpr invokeExpr = (JInterfaceInvokeExpr) expr;			
 			Value base = invokeExpr.getBase();
-			ConditionalValue cv = new ConditionalValue( invokeExpr.getMethod(), new ObjectNode(-1,ObjectType.parameter),true );
-			ptg.cascadeCV((Local)base, cv, summary);
+			pass(invokeExpr.getMethod(), -1, true, (Local)base, ptg, summary);
 		} else {
 			System.out.println("Unidentified invoke expr: "+expr.toString());
 			throw new IllegalArgumentException(expr.toString());
 		}
 		SootMethod method = expr.getMethod();
+		boolean virtual = isVirtual(expr);
 		List<Value> args = expr.getArgs();
 		for(int i=0; i<args.size(); i++) {
 			Value arg = args.get(i);
 			if(!(arg.getType() instanceof RefType)) continue;
 			if(arg instanceof Constant) continue;
-			ObjectNode obj = new ObjectNode(i, ObjectType.parameter);
-			ConditionalValue cv = new ConditionalValue(method, obj, true);
-			ptg.cascadeCV((Local)args.get(i), cv, summary);
+			pass(method, i, virtual, (Local)arg, ptg, summary);
 		}		
 		
 	}
+
+	/*
+	 * Whether expr is dispatched on the class of its receiver.
+	 */
+	static boolean isVirtual(InvokeExpr expr) {
+		return expr instanceof JVirtualInvokeExpr || expr instanceof JInterfaceInvokeExpr;
+	}
+
+	/*
+	 * The objects of l are passed as parameter index (-1 for the receiver)
+	 * of callee: they get a CV on it, or in the bottom-up mode what the
+	 * final summaries of the methods the call may run already tell.
+	 */
+	private static void pass(SootMethod callee, int index, boolean virtual, Local l, PointsToGraph ptg, Map<ObjectNode, EscapeStatus> summary) {
+		switch(CalleeSummaries.ofParameter(callee, index, virtual)) {
+		case NONE:
+			break;
+		case ESCAPE:
+			ptg.cascadeEscape(l, summary);
+			break;
+		default:
+			ConditionalValue cv = ConditionalValue.getInstance(callee, ObjectNode.getInstance(index, ObjectType.parameter), true);
+			ptg.cascadeCV(l, cv, summary);
+		}
+	}
 }
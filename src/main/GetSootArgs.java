@@ -62,6 +62,26 @@ public class GetSootArgs {
 			};
 			return sootArgs;			
 		}
+		if(args[1].equals("false")) {
+			/*
+			 * a plain program: the relevant directory holds its classes,
+			 * e.g. a program of the benchmark corpus in bench/corpus
+			 */
+			String cp = new String(args[0]+"/jre/lib/rt.jar:"+args[0]+"/jre/lib/jce.jar:"+args[2]);
+			String[] sootArgs = {
+					"-app",
+					"-allow-phantom-refs",
+					"-keep-bytecode-offset",
+					"-keep-offset",
+					"-soot-classpath", cp, "-prepend-classpath",
+					"-keep-line-number",
+					"-main-class", args[3],
+					"-process-dir", args[2],
+					"-output-dir", args[4],
+					"-output-format", "none"
+			};
+			return sootArgs;
+		}
 		return null;
 	}
 }
@@ -1,15 +1,13 @@
 package main;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
 import java.util.Map;
 
 import analyser.StaticAnalyser;
+import output.ResultWriter;
 import ptg.ObjectNode;
 import ptg.PointsToGraph;
 import utils.Stats;
@@ -19,8 +17,6 @@ import soot.PackManager;
 import soot.SootMethod;
 import soot.Transform;
 
-import utils.GetListOfNoEscapeObjects;
-
 
 public class Main {
 	static HashMap<String, String> paths = new HashMap<>();
@@ -36,8 +32,10 @@ public class Main {
 		PackManager.v().getPack("jtp").add(new Transform("jtp.sample", staticAnalyser));
 //		long analysis_start = System.currentTimeMillis();
 		soot.Main.main(sootArgs);
+		staticAnalyser.awaitCompletion();
 //		long analysis_end = System.currentTimeMillis();
 		System.out.println("Static Analysis is done!");
+		System.out.println("Worklist: "+StaticAnalyser.totalVisits.get()+" visits in "+StaticAnalyser.totalSweeps.get()+" sweeps");
 		
 		
 //		staticAnalyser.printAnalysis();
@@ -45,6 +43,7 @@ public class Main {
 //		printResForJVM(StaticAnalyser.summaries, "/home/nikhil/MTP/benchmarks/out", "/home/nikhil/MTP/soot_output_dir/dacapo");
 //		printResForJVM(StaticAnalyser.summaries, args[1], args[3]);
 //		printAllInfo(StaticAnalyser.ptgs, StaticAnalyser.summaries, args[1], args[3]);
+//		printBinaryResForJVM(StaticAnalyser.summaries, args[1], args[3]);
 		/*
 		SummaryResolver sr = new SummaryResolver();
 		long res_start = System.currentTimeMillis();
@@ -60,55 +59,46 @@ public class Main {
 		*/
 	}
 	
-	private static void printAllInfo(HashMap<SootMethod, PointsToGraph> ptgs,
-			HashMap<SootMethod, HashMap<ObjectNode, EscapeStatus>> summaries, String ipDir, String opDir) {
-		
+	private static void printAllInfo(Map<SootMethod, PointsToGraph> ptgs,
+			Map<SootMethod, HashMap<ObjectNode, EscapeStatus>> summaries, String ipDir, String opDir) {
 		Path p_opDir = Paths.get(opDir);
-		ptgs.forEach((method,ptg) -> {
-			Path p_opFile = Paths.get(p_opDir.toString() + "/" + method.getDeclaringClass().toString()+".info");
-//			System.out.println("Method "+method.toString()+" appends to "+p_opFile);
-			StringBuilder output = new StringBuilder();
-			output.append(method.toString()+"\n");
-			output.append("PTG:\n");
-			output.append(ptg.toString());
-			output.append("\nSummary\n");
-			output.append(summaries.get(method).toString()+"\n");
-			try {
-				Files.write(p_opFile, output.toString().getBytes(StandardCharsets.UTF_8), 
-						Files.exists(p_opFile) ? StandardOpenOption.APPEND : StandardOpenOption.CREATE);				
-			} catch (Exception e) {
-				// TODO: handle exception
-				System.out.println("Unable to write info of "+method.toString()+" to file "+p_opFile.toString());
-				e.printStackTrace();
-			}
-		});
+		try {
+			ResultWriter.writeInfo(ptgs, summaries, p_opDir);
+		} catch (IOException e) {
+			System.out.println("Unable to write info files to "+p_opDir.toString());
+			e.printStackTrace();
+		}
 	}
 
-	static void printResForJVM(HashMap<SootMethod,HashMap<ObjectNode,EscapeStatus>> summaries, String ipDir, String opDir) {
-		// Open File
+	static void printResForJVM(Map<SootMethod,HashMap<ObjectNode,EscapeStatus>> summaries, String ipDir, String opDir) {
 		Path p_ipDir = Paths.get(ipDir);
 		Path p_opDir = Paths.get(opDir);
 		
 		Path p_opFile = Paths.get(p_opDir.toString() + "/" + p_ipDir.getFileName() + ".res");
 		
-//		System.out.println(p_opFile);
-		// String Builder
-		StringBuilder sb = new StringBuilder();
-		summaries.forEach((method, summary) ->{
-			sb.append(method.getBytecodeSignature().toString());
-			sb.append(GetListOfNoEscapeObjects.get(summary));
-			sb.append("\n");
-		});
 		try {
-			
 			System.out.println("Trying to write to:"+p_opFile);
-			Files.write(p_opFile, sb.toString().getBytes(StandardCharsets.UTF_8), 
-					Files.exists(p_opFile) ? StandardOpenOption.APPEND : StandardOpenOption.CREATE);
+			ResultWriter.writeRes(summaries, p_opFile);
 			System.out.println("Unresolved results have been written.");
 		} catch (IOException e) {
 			System.out.println("There is an IO exception");
 			e.printStackTrace();
 		}
 	}
+
+	/*
+	 * Same content as printResForJVM in the mappable form that
+	 * output.ResFile reads.
+	 */
+	static void printBinaryResForJVM(Map<SootMethod,HashMap<ObjectNode,EscapeStatus>> summaries, String ipDir, String opDir) {
+		Path p_opFile = Paths.get(opDir, Paths.get(ipDir).getFileName() + ".resb");
+		try {
+			ResultWriter.writeBinaryRes(summaries, p_opFile);
+			System.out.println("Binary results have been written to "+p_opFile);
+		} catch (IOException e) {
+			System.out.println("There is an IO exception");
+			e.printStackTrace();
+		}
+	}
 	
 }
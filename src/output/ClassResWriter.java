@@ -0,0 +1,88 @@
+package output;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import es.EscapeStatus;
+import ptg.ObjectNode;
+import soot.SootClass;
+import soot.SootMethod;
+
+/*
+ * Writes <dir>/<class>.res, the lines of ResultWriter.writeRes for the
+ * methods of one class, as soon as every method of the class handed to
+ * the analysis is done. Soot hands over the bodies of a class one after
+ * the other, so a class is closed when a body of another class comes;
+ * it is written once it is closed and none of its methods is pending.
+ * Only the lines of the classes not yet written are held, sorted by
+ * signature when they go out. A class written earlier in the run is
+ * appended to, a file left by an earlier run is replaced.
+ */
+public class ClassResWriter {
+	private final Path dir;
+	// class -> its methods handed over but not yet done
+	private final Map<SootClass, Integer> pending = new HashMap<>();
+	// class -> the lines of its methods that are done
+	private final Map<SootClass, List<String[]>> lines = new HashMap<>();
+	private final Set<SootClass> written = new HashSet<>();
+	private SootClass open;
+	private int files = 0;
+
+	public ClassResWriter(Path dir) {
+		this.dir = dir;
+	}
+
+	/*
+	 * Called on the soot thread when the body of m is handed over.
+	 */
+	public synchronized void expect(SootMethod m) throws IOException {
+		SootClass c = m.getDeclaringClass();
+		if(c != open) {
+			SootClass closed = open;
+			open = c;
+			flush(closed);
+		}
+		pending.merge(c, 1, Integer::sum);
+	}
+
+	/*
+	 * Called once the summary of m is final.
+	 */
+	public synchronized void done(SootMethod m, HashMap<ObjectNode, EscapeStatus> summary) throws IOException {
+		SootClass c = m.getDeclaringClass();
+		lines.computeIfAbsent(c, k -> new ArrayList<>()).add(new String[] {m.getSignature(), ResultWriter.resLine(m, summary)});
+		if(pending.merge(c, -1, Integer::sum) <= 0) pending.remove(c);
+		flush(c);
+	}
+
+	/*
+	 * Writes every class left, whether or not it is complete.
+	 */
+	public synchronized void close() throws IOException {
+		open = null;
+		pending.clear();
+		for(SootClass c : new ArrayList<>(lines.keySet())) flush(c);
+	}
+
+	public synchronized int getFiles() {
+		return files;
+	}
+
+	private void flush(SootClass c) throws IOException {
+		if(c == null || c == open || pending.containsKey(c)) return;
+		List<String[]> done = lines.remove(c);
+		if(done == null) return;
+		done.sort((a, b) -> a[0].compareTo(b[0]));
+		try(Writer w = ResultWriter.open(dir.resolve(c.getName()+".res"), written.add(c))) {
+			for(String[] line : done) w.write(line[1]);
+		}
+		files++;
+	}
+}
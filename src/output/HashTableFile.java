@@ -0,0 +1,175 @@
+package output;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * A file of entries keyed by a string, with an open addressing table in
+ * front so that a mapped file can be searched without reading it. The
+ * binary result file (ResFile) and the library summary database
+ * (store.LibrarySummaries) are both laid out this way. Like ResFile it
+ * only needs the JDK.
+ *
+ * Layout, big-endian:
+ *   int magic, int version, int number of entries,
+ *   int table size (a power of two), the extra header bytes of the
+ *   format, int[table size] table,
+ *   entries.
+ * A table slot holds the offset of an entry, 0 when it is empty. The
+ * slot of a key is spread(key.hashCode()) masked to the table size,
+ * then the next ones (linear probing). An entry is
+ *   int hash, int length, UTF-8 key bytes,
+ * followed by a value in the format's own layout.
+ */
+public final class HashTableFile {
+	private static final int FIXED = 16;
+	private static final int BUFFER = 1 << 16;
+
+	private final ByteBuffer buffer;
+	private final int entries;
+	private final int table;
+	private final int mask;
+
+	/*
+	 * Checks the header of buffer against magic and version; what names
+	 * the format in the messages. extra is the number of extra header
+	 * bytes of the format.
+	 */
+	public HashTableFile(ByteBuffer buffer, int magic, int version, int extra, String what) throws IOException {
+		this.buffer = buffer;
+		table = FIXED + extra;
+		if(buffer.capacity() < table || buffer.getInt(0) != magic) throw new IOException("Not a "+what);
+		if(buffer.getInt(4) != version) throw new IOException("Unsupported "+what+" version "+buffer.getInt(4));
+		entries = buffer.getInt(8);
+		int size = buffer.getInt(12);
+		if(size <= 0 || (size & (size - 1)) != 0 || table + 4L*size > buffer.capacity()) {
+			throw new IOException("Corrupt "+what+" table");
+		}
+		mask = size - 1;
+	}
+
+	static int spread(int h) {
+		return h ^ (h >>> 16);
+	}
+
+	public ByteBuffer buffer() {
+		return buffer;
+	}
+
+	public int size() {
+		return entries;
+	}
+
+	/*
+	 * The extra header bytes.
+	 */
+	public byte[] extra() {
+		byte[] bytes = new byte[table - FIXED];
+		for(int i = 0; i < bytes.length; i++) bytes[i] = buffer.get(FIXED + i);
+		return bytes;
+	}
+
+	/*
+	 * Offset of the value of the entry of key, or -1.
+	 */
+	public int find(String key) {
+		int hash = key.hashCode();
+		byte[] bytes = null;
+		for(int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+			int offset = buffer.getInt(table + 4*slot);
+			if(offset == 0) return -1;
+			if(buffer.getInt(offset) != hash) continue;
+			if(bytes == null) bytes = key.getBytes(StandardCharsets.UTF_8);
+			int length = buffer.getInt(offset + 4);
+			if(length == bytes.length && sameBytes(offset + 8, bytes)) return offset + 8 + length;
+		}
+	}
+
+	private boolean sameBytes(int offset, byte[] bytes) {
+		for(int i = 0; i < bytes.length; i++) {
+			if(buffer.get(offset + i) != bytes[i]) return false;
+		}
+		return true;
+	}
+
+	/*
+	 * Writes such a file, replacing it. The number of entries is given up
+	 * front, so that space is left for the table; entries are written out
+	 * as they are made and only their offsets are kept. The table goes
+	 * into its space on close, provided every entry was written.
+	 */
+	public static final class Writer implements Closeable {
+		private final Path file;
+		private final FileChannel channel;
+		private final DataOutputStream out;
+		private final int[] slots;
+		private final int table;
+		private final int count;
+		private int written = 0;
+
+		public Writer(Path file, int magic, int version, byte[] extra, int count) throws IOException {
+			this.file = file;
+			this.count = count;
+			int size = 2;
+			while(size < 2*count) size <<= 1;
+			slots = new int[size];
+			table = FIXED + extra.length;
+			channel = FileChannel.open(file, StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER));
+			try {
+				out.writeInt(magic);
+				out.writeInt(version);
+				out.writeInt(count);
+				out.writeInt(size);
+				out.write(extra);
+				for(int i = 0; i < size; i++) out.writeInt(0);
+			} catch (IOException e) {
+				channel.close();
+				throw e;
+			}
+		}
+
+		/*
+		 * Starts the entry of key; its value is to be written to the
+		 * stream returned.
+		 */
+		public DataOutputStream entry(String key) throws IOException {
+			if(written == count) throw new IllegalStateException("More than "+count+" entries for "+file);
+			written++;
+			int hash = key.hashCode();
+			int mask = slots.length - 1;
+			int slot = spread(hash) & mask;
+			while(slots[slot] != 0) slot = (slot + 1) & mask;
+			if(out.size() == Integer.MAX_VALUE) throw new IOException("File too large: "+file);
+			slots[slot] = out.size();
+			byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(hash);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+			return out;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				if(written < count) return;
+				out.flush();
+				ByteBuffer t = ByteBuffer.allocate(4*slots.length);
+				t.asIntBuffer().put(slots);
+				long position = table;
+				while(t.hasRemaining()) position += channel.write(t, position);
+			} finally {
+				channel.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package output;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Reader of the binary result file written by ResultWriter.writeBinaryRes.
+ * It only needs the JDK, so it can be copied, along with HashTableFile,
+ * into the JVM that consumes the results. The file is mapped, not read:
+ * opening it costs the same however many methods it holds, and a lookup
+ * touches one slot chain of the table and one entry. Lookups only use
+ * absolute reads, so one instance can serve any number of threads.
+ *
+ * The file is a HashTableFile with magic "STVB" and no extra header,
+ * keyed by the bytecode signature of a method. The value of an entry is
+ *   int count, int[count] refs of the NoEscape objects, ascending.
+ */
+public final class ResFile implements Closeable {
+	static final int MAGIC = 0x53545642; // "STVB"
+	static final int VERSION = 1;
+
+	private final FileChannel channel;
+	private final HashTableFile file;
+	private final ByteBuffer buffer;
+
+	private ResFile(FileChannel channel, MappedByteBuffer buffer) throws IOException {
+		this.channel = channel;
+		this.file = new HashTableFile(buffer, MAGIC, VERSION, 0, "result file");
+		this.buffer = buffer;
+	}
+
+	public static ResFile open(Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			return new ResFile(channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	public int size() {
+		return file.size();
+	}
+
+	/*
+	 * Whether the object allocated at bci in methodSig (a bytecode
+	 * signature, as in the text .res file) does not escape.
+	 */
+	public boolean isStackAllocatable(String methodSig, int bci) {
+		int entry = file.find(methodSig);
+		if(entry < 0) return false;
+		int count = buffer.getInt(entry);
+		int lo = 0, hi = count - 1;
+		while(lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			int v = buffer.getInt(entry + 4 + 4*mid);
+			if(v < bci) lo = mid + 1;
+			else if(v > bci) hi = mid - 1;
+			else return true;
+		}
+		return false;
+	}
+
+	/*
+	 * The refs stored for methodSig, null when the method is not in the
+	 * file.
+	 */
+	public int[] noEscapeRefs(String methodSig) {
+		int entry = file.find(methodSig);
+		if(entry < 0) return null;
+		int[] refs = new int[buffer.getInt(entry)];
+		for(int i = 0; i < refs.length; i++) refs[i] = buffer.getInt(entry + 4 + 4*i);
+		return refs;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
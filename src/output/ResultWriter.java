@@ -0,0 +1,131 @@
+package output;
+
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import es.EscapeStatus;
+import ptg.ObjectNode;
+import ptg.PointsToGraph;
+import soot.SootMethod;
+import utils.GetListOfNoEscapeObjects;
+
+/*
+ * Writes the results to disk one method at a time. Every output file
+ * is opened once, as a channel behind a fixed-size buffer, and only the
+ * text of the method at hand is ever built, so memory does not grow
+ * with the program. Methods go out sorted by class and signature, so
+ * the files do not depend on the order in which the methods were
+ * analysed. As before, files that exist are appended to.
+ */
+public class ResultWriter {
+	private static final int BUFFER = 1 << 16;
+
+	private static final Comparator<SootMethod> order = Comparator
+			.comparing((SootMethod m) -> m.getDeclaringClass().getName())
+			.thenComparing(SootMethod::getSignature);
+
+	/*
+	 * One line per method: its bytecode signature and the refs of its
+	 * NoEscape objects.
+	 */
+	public static void writeRes(Map<SootMethod, HashMap<ObjectNode, EscapeStatus>> summaries, Path file) throws IOException {
+		try(Writer w = open(file)) {
+			for(SootMethod m : sorted(summaries.keySet())) {
+				w.write(resLine(m, summaries.get(m)));
+			}
+		}
+	}
+
+	static String resLine(SootMethod m, HashMap<ObjectNode, EscapeStatus> summary) {
+		return m.getBytecodeSignature()+GetListOfNoEscapeObjects.get(summary)+"\n";
+	}
+
+	/*
+	 * The content of the .res file in the binary layout described in
+	 * ResFile, the refs deduplicated. Entries are written out as they
+	 * are made, see HashTableFile.Writer. Replaces the file.
+	 */
+	public static void writeBinaryRes(Map<SootMethod, HashMap<ObjectNode, EscapeStatus>> summaries, Path file) throws IOException {
+		List<SootMethod> methods = sorted(summaries.keySet());
+		try(HashTableFile.Writer w = new HashTableFile.Writer(file, ResFile.MAGIC, ResFile.VERSION, new byte[0], methods.size())) {
+			for(SootMethod m : methods) {
+				int[] refs = noEscapeRefs(summaries.get(m));
+				DataOutputStream out = w.entry(m.getBytecodeSignature());
+				out.writeInt(refs.length);
+				for(int ref : refs) out.writeInt(ref);
+			}
+		}
+	}
+
+	private static int[] noEscapeRefs(HashMap<ObjectNode, EscapeStatus> summary) {
+		int[] refs = new int[summary.size()];
+		int n = 0;
+		for(Map.Entry<ObjectNode, EscapeStatus> e : summary.entrySet()) {
+			if(e.getValue().containsNoEscape()) refs[n++] = e.getKey().ref;
+		}
+		Arrays.sort(refs, 0, n);
+		int m = 0;
+		for(int i = 0; i < n; i++) {
+			if(m == 0 || refs[m-1] != refs[i]) refs[m++] = refs[i];
+		}
+		return Arrays.copyOf(refs, m);
+	}
+
+	/*
+	 * The graph and summary of every method, in <dir>/<class>.info. The
+	 * methods of a class are adjacent in the sorted order, so only one
+	 * file is open at a time.
+	 */
+	public static void writeInfo(Map<SootMethod, PointsToGraph> ptgs,
+			Map<SootMethod, HashMap<ObjectNode, EscapeStatus>> summaries, Path dir) throws IOException {
+		String current = null;
+		Writer w = null;
+		try {
+			for(SootMethod m : sorted(ptgs.keySet())) {
+				String cls = m.getDeclaringClass().toString();
+				if(!cls.equals(current)) {
+					if(w != null) w.close();
+					w = open(dir.resolve(cls+".info"));
+					current = cls;
+				}
+				w.write(m.toString()+"\n");
+				w.write("PTG:\n");
+				w.write(ptgs.get(m).toString());
+				w.write("\nSummary\n");
+				w.write(summaries.get(m).toString()+"\n");
+			}
+		} finally {
+			if(w != null) w.close();
+		}
+	}
+
+	private static Writer open(Path file) throws IOException {
+		return open(file, false);
+	}
+
+	static Writer open(Path file, boolean replace) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				replace? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND);
+		return new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER), BUFFER);
+	}
+
+	private static List<SootMethod> sorted(Collection<SootMethod> methods) {
+		List<SootMethod> list = new ArrayList<>(methods);
+		list.sort(order);
+		return list;
+	}
+}
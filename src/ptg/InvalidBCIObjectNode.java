@@ -2,18 +2,17 @@ package ptg;
 
 public class InvalidBCIObjectNode extends ObjectNode {
 
-	private static final InvalidBCIObjectNode internal = new InvalidBCIObjectNode(ObjectType.internal);
-	private static final InvalidBCIObjectNode external = new InvalidBCIObjectNode(ObjectType.external);
-	
-	private InvalidBCIObjectNode(ObjectType type) {
+	/*
+	 * Only created by the intern table in ObjectNode, which hands out
+	 * this class for (-2, internal) and (-2, external).
+	 */
+	InvalidBCIObjectNode(ObjectType type) {
 		super(-2, type);
 	}
-	
+
 	public static InvalidBCIObjectNode getInstance(ObjectType t) {
-		if(t==ObjectType.internal) {
-			return internal;
-		} else if(t==ObjectType.external) {
-			return external;
+		if(t==ObjectType.internal || t==ObjectType.external) {
+			return (InvalidBCIObjectNode) ObjectNode.getInstance(-2, t);
 		} else {
 			throw new IllegalArgumentException("Only internal or external exists. Not "+t.toString());
 		}
@@ -1,30 +1,70 @@
 package ptg;
 
+import java.util.concurrent.ConcurrentHashMap;
+
 public class ObjectNode {
 
 	// an integer to store reference information
 	public final int ref;
 	// an enumeration to store the type of Object
 	public final ObjectType type;
-	// anyway the fields of ObjectNode are non modifiable. 
+	// anyway the fields of ObjectNode are non modifiable.
 	public final int hashcode;
+	// (ref, type) packed into one number, the order of ObjectSet
+	public final long key;
+
+	/*
+	 * Intern table: there is exactly one ObjectNode per (ref, type) in
+	 * the whole run, so nodes can be compared with ==. Lookups are
+	 * lock-free, creation is serialised.
+	 */
+	private static final ConcurrentHashMap<Long, ObjectNode> table = new ConcurrentHashMap<>();
 
-	public ObjectNode(int ref, ObjectType type){
+	protected ObjectNode(int ref, ObjectType type){
 		this.ref = ref;
 		this.type = type;
+		this.key = key(ref, type);
 		int hashref = ref;
 		int hashtype = type.hashCode();
 		// one time calculation. Need not be performed later.
 		this.hashcode = (hashref + hashtype) * hashtype + hashref;
-		
+
 	}
-	
+
+	/*
+	 * Ordered by ref, then by type, whatever the order in which the nodes
+	 * were created.
+	 */
+	static long key(int ref, ObjectType type) {
+		return ((long) ref << 3) | type.ordinal();
+	}
+
+	public static ObjectNode getInstance(int ref, ObjectType type) {
+		Long key = key(ref, type);
+		ObjectNode n = table.get(key);
+		if(n != null) return n;
+		synchronized(table) {
+			n = table.get(key);
+			if(n == null) {
+				// -2 is the BCI of units without an offset tag
+				if(ref == -2 && (type == ObjectType.internal || type == ObjectType.external)) {
+					n = new InvalidBCIObjectNode(type);
+				} else {
+					n = new ObjectNode(ref, type);
+				}
+				table.put(key, n);
+			}
+		}
+		return n;
+	}
+
 	public int hashCode() {
 		return hashcode;
 	}
-	
+
 	@Override
 	public boolean equals(Object other) {
+		if(this == other) return true;
 		if(other instanceof ObjectNode) {
 			ObjectNode o = (ObjectNode) other;
 			if(this.ref == o.ref && this.type == o.type) return true;
@@ -32,7 +72,7 @@ public class ObjectNode {
 		}
 		return false;
 	}
-	
+
 	@Override
 	public String toString() {
 		return new String("<"+type.toString()+","+Integer.toString(ref)+">");
@@ -0,0 +1,188 @@
+package ptg;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/*
+ * An immutable points-to set: its ObjectNodes in an array sorted by
+ * ObjectNode.key, i.e. by ref and then type. Iteration follows that
+ * order, which is the same on every run and in every thread, so the
+ * transfer functions that walk a set see its nodes in a fixed order.
+ * Membership is a binary search, union and equality walk the two
+ * arrays side by side and never hash a node.
+ */
+public final class ObjectSet extends AbstractSet<ObjectNode> {
+
+	private static final ObjectSet EMPTY = new ObjectSet(new ObjectNode[0]);
+
+	private final ObjectNode[] nodes;
+	// computed on demand, the set never changes
+	private int hashCode = -1;
+
+	private ObjectSet(ObjectNode[] nodes) {
+		this.nodes = nodes;
+	}
+
+	public static ObjectSet empty() {
+		return EMPTY;
+	}
+
+	public static ObjectSet of(ObjectNode obj) {
+		return new ObjectSet(new ObjectNode[] {obj});
+	}
+
+	/*
+	 * Returns c itself when it already is an ObjectSet.
+	 */
+	public static ObjectSet from(Collection<? extends ObjectNode> c) {
+		if(c instanceof ObjectSet) return (ObjectSet) c;
+		if(c.isEmpty()) return EMPTY;
+		ObjectNode[] a = new ObjectNode[c.size()];
+		int n = 0;
+		for(ObjectNode o : c) a[n++] = o;
+		Arrays.sort(a, 0, n, (x, y) -> Long.compare(x.key, y.key));
+		// drop duplicates, c need not be a set
+		int m = 0;
+		for(int i = 0; i < n; i++) {
+			if(m == 0 || a[m-1] != a[i]) a[m++] = a[i];
+		}
+		return new ObjectSet((m == a.length)? a : Arrays.copyOf(a, m));
+	}
+
+	/*
+	 * Index of obj in nodes, or -(insertion point) - 1.
+	 */
+	private int search(ObjectNode obj) {
+		long key = obj.key;
+		int lo = 0, hi = nodes.length - 1;
+		while(lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			long k = nodes[mid].key;
+			if(k < key) lo = mid + 1;
+			else if(k > key) hi = mid - 1;
+			else return mid;
+		}
+		return -lo - 1;
+	}
+
+	public ObjectSet plus(ObjectNode obj) {
+		int i = search(obj);
+		if(i >= 0) return this;
+		i = -i - 1;
+		ObjectNode[] a = new ObjectNode[nodes.length + 1];
+		System.arraycopy(nodes, 0, a, 0, i);
+		a[i] = obj;
+		System.arraycopy(nodes, i, a, i + 1, nodes.length - i);
+		return new ObjectSet(a);
+	}
+
+	/*
+	 * Returns this set when other adds nothing to it, and other when
+	 * this set adds nothing to other, so that "no change" shows as ==.
+	 */
+	public ObjectSet union(ObjectSet other) {
+		if(other == this || other.nodes.length == 0) return this;
+		if(nodes.length == 0) return other;
+		ObjectNode[] a = nodes, b = other.nodes;
+		ObjectNode[] c = new ObjectNode[a.length + b.length];
+		int i = 0, j = 0, n = 0;
+		while(i < a.length && j < b.length) {
+			long x = a[i].key, y = b[j].key;
+			if(x < y) c[n++] = a[i++];
+			else if(x > y) c[n++] = b[j++];
+			else { c[n++] = a[i++]; j++; }
+		}
+		while(i < a.length) c[n++] = a[i++];
+		while(j < b.length) c[n++] = b[j++];
+		if(n == a.length) return this;
+		if(n == b.length) return other;
+		return new ObjectSet(Arrays.copyOf(c, n));
+	}
+
+	/*
+	 * The nodes of this set that are not in other. Returns this set
+	 * when the two share nothing.
+	 */
+	public ObjectSet difference(ObjectSet other) {
+		if(other.nodes.length == 0 || nodes.length == 0) return this;
+		if(other == this) return EMPTY;
+		ObjectNode[] a = nodes, b = other.nodes;
+		ObjectNode[] c = new ObjectNode[a.length];
+		int n = 0, j = 0;
+		for(int i = 0; i < a.length; i++) {
+			while(j < b.length && b[j].key < a[i].key) j++;
+			if(j == b.length || b[j] != a[i]) c[n++] = a[i];
+		}
+		if(n == a.length) return this;
+		if(n == 0) return EMPTY;
+		return new ObjectSet(Arrays.copyOf(c, n));
+	}
+
+	public boolean containsAll(ObjectSet other) {
+		ObjectNode[] a = nodes, b = other.nodes;
+		if(b.length > a.length) return false;
+		int i = 0;
+		for(int j = 0; j < b.length; j++) {
+			while(i < a.length && a[i].key < b[j].key) i++;
+			if(i == a.length || a[i] != b[j]) return false;
+			i++;
+		}
+		return true;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if(!(o instanceof ObjectNode)) return false;
+		return search((ObjectNode) o) >= 0;
+	}
+
+	@Override
+	public int size() {
+		return nodes.length;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return nodes.length == 0;
+	}
+
+	@Override
+	public Iterator<ObjectNode> iterator() {
+		return new Iterator<ObjectNode>() {
+			private int i = 0;
+
+			@Override
+			public boolean hasNext() {
+				return i < nodes.length;
+			}
+
+			@Override
+			public ObjectNode next() {
+				if(i >= nodes.length) throw new NoSuchElementException();
+				return nodes[i++];
+			}
+		};
+	}
+
+	@Override
+	public void forEach(Consumer<? super ObjectNode> action) {
+		for(ObjectNode o : nodes) action.accept(o);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(this == o) return true;
+		if(o instanceof ObjectSet) return Arrays.equals(nodes, ((ObjectSet) o).nodes);
+		return super.equals(o);
+	}
+
+	@Override
+	public int hashCode() {
+		if(hashCode == -1) hashCode = super.hashCode();
+		return hashCode;
+	}
+}
@@ -0,0 +1,750 @@
+package ptg;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+
+/*
+ * An immutable hash map laid out as a hash array mapped trie
+ * (the compressed "CHAMP" variant). Every update returns a new map
+ * that shares all untouched nodes with the old one, so a copy is
+ * just the root and merging two maps derived from a common ancestor
+ * only walks the nodes in which they differ.
+ *
+ * The layout is canonical: two maps holding the same entries have
+ * the same shape, which lets equals() compare node by node and skip
+ * every subtree the two maps share.
+ *
+ * The map is read through java.util.Map. The mutators of that
+ * interface throw; use plus, minus and merge instead.
+ */
+public final class PersistentMap<K,V> extends AbstractMap<K,V> {
+
+	private static final int BITS = 5;
+	private static final int MASK = (1 << BITS) - 1;
+
+	@SuppressWarnings("rawtypes")
+	private static final PersistentMap EMPTY = new PersistentMap<>(new BitmapNode<>(0, 0, new Object[0]));
+
+	final Node<K,V> root;
+	// computed on demand, the map never changes
+	private int hashCode = -1;
+
+	private PersistentMap(Node<K,V> root) {
+		this.root = root;
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <K,V> PersistentMap<K,V> empty() {
+		return EMPTY;
+	}
+
+	public static <K,V> PersistentMap<K,V> of(K key, V value) {
+		return PersistentMap.<K,V>empty().plus(key, value);
+	}
+
+	private static int hash(Object key) {
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	private static int mask(int hash, int shift) {
+		return (hash >>> shift) & MASK;
+	}
+
+	private static int bitpos(int hash, int shift) {
+		return 1 << mask(hash, shift);
+	}
+
+	@Override
+	public int size() {
+		return root.size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return root.size == 0;
+	}
+
+	@Override
+	public V get(Object key) {
+		if(key == null) return null;
+		return root.get(key, hash(key), 0);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+
+	/*
+	 * Returns a map in which key is bound to value. Returns this map
+	 * if key is already bound to that very value.
+	 */
+	public PersistentMap<K,V> plus(K key, V value) {
+		Node<K,V> r = root.update(key, value, hash(key), 0, null);
+		return (r == root)? this : new PersistentMap<>(r);
+	}
+
+	/*
+	 * Returns a map without key. Returns this map if key is absent.
+	 */
+	public PersistentMap<K,V> minus(Object key) {
+		if(key == null) return this;
+		Node<K,V> r = root.remove(key, hash(key), 0);
+		return (r == root)? this : new PersistentMap<>(r);
+	}
+
+	/*
+	 * Returns the union of this map and other. A key bound in both maps
+	 * is bound to f(value in this, value in other). f must be idempotent
+	 * (f(v, v) equals v) because shared subtrees are not visited. When
+	 * the result has the same entries as one of the operands, that
+	 * operand is returned so that callers can detect "no change" with ==.
+	 */
+	public PersistentMap<K,V> merge(PersistentMap<K,V> other, BinaryOperator<V> f) {
+		if(other == this || other.root.size == 0) return this;
+		if(root.size == 0) return other;
+		Node<K,V> r = root.merge(other.root, 0, f);
+		if(r == root) return this;
+		if(r == other.root) return other;
+		return new PersistentMap<>(r);
+	}
+
+	@Override
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		root.forEach(action);
+	}
+
+	/*
+	 * Receives one key whose binding differs between two maps. now or
+	 * before is null when the key is absent from that map.
+	 */
+	public interface Change<K,V> {
+		void accept(K key, V now, V before);
+	}
+
+	/*
+	 * Calls action for every key that this map binds differently from
+	 * before: added, removed, or bound to another object (values are
+	 * compared with ==). Subtrees shared with before are skipped, so for
+	 * a map derived from before this costs about as much as the changes.
+	 */
+	public void forEachChange(PersistentMap<K,V> before, Change<K,V> action) {
+		diff(root, before.root, 0, action);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <K,V> void diff(Node<K,V> now, Node<K,V> before, int shift, Change<K,V> action) {
+		if(now == before) return;
+		if(!(now instanceof BitmapNode) || !(before instanceof BitmapNode)) {
+			diffByLookups(now, before, shift, action);
+			return;
+		}
+		BitmapNode<K,V> a = (BitmapNode<K,V>) now, b = (BitmapNode<K,V>) before;
+		int all = a.dataMap | a.nodeMap | b.dataMap | b.nodeMap;
+		for(int bits = all; bits != 0; bits &= bits - 1) {
+			int bit = bits & -bits;
+			boolean aData = (a.dataMap & bit) != 0, aNode = (a.nodeMap & bit) != 0;
+			boolean bData = (b.dataMap & bit) != 0, bNode = (b.nodeMap & bit) != 0;
+			if(aNode && bNode) {
+				diff((Node<K,V>) a.content[a.nodeIndex(bit)], (Node<K,V>) b.content[b.nodeIndex(bit)], shift + BITS, action);
+				continue;
+			}
+			// at most one entry on a data side, compare it with the other side
+			Node<K,V> subA = aNode? (Node<K,V>) a.content[a.nodeIndex(bit)] : null;
+			Node<K,V> subB = bNode? (Node<K,V>) b.content[b.nodeIndex(bit)] : null;
+			if(aData) {
+				int i = a.dataIndex(bit);
+				subA = PersistentMap.<K,V>empty().root.update((K) a.content[2*i], (V) a.content[2*i+1], hash(a.content[2*i]), shift + BITS, null);
+			}
+			if(bData) {
+				int i = b.dataIndex(bit);
+				subB = PersistentMap.<K,V>empty().root.update((K) b.content[2*i], (V) b.content[2*i+1], hash(b.content[2*i]), shift + BITS, null);
+			}
+			if(subA == null) subA = PersistentMap.<K,V>empty().root;
+			if(subB == null) subB = PersistentMap.<K,V>empty().root;
+			diffByLookups(subA, subB, shift + BITS, action);
+		}
+	}
+
+	private static <K,V> void diffByLookups(Node<K,V> now, Node<K,V> before, int shift, Change<K,V> action) {
+		Iterator<Map.Entry<K,V>> it = new EntryIterator<>(now);
+		while(it.hasNext()) {
+			Map.Entry<K,V> e = it.next();
+			V old = before.get(e.getKey(), hash(e.getKey()), shift);
+			if(old != e.getValue()) action.accept(e.getKey(), e.getValue(), old);
+		}
+		it = new EntryIterator<>(before);
+		while(it.hasNext()) {
+			Map.Entry<K,V> e = it.next();
+			if(now.get(e.getKey(), hash(e.getKey()), shift) == null) action.accept(e.getKey(), null, e.getValue());
+		}
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(this == o) return true;
+		if(o instanceof PersistentMap) {
+			return root.equivalent(((PersistentMap<?,?>) o).root);
+		}
+		return super.equals(o);
+	}
+
+	@Override
+	public int hashCode() {
+		if(hashCode == -1) hashCode = super.hashCode();
+		return hashCode;
+	}
+
+	@Override
+	public Set<Map.Entry<K,V>> entrySet() {
+		return new AbstractSet<Map.Entry<K,V>>() {
+			@Override
+			public Iterator<Map.Entry<K,V>> iterator() {
+				return new EntryIterator<>(root);
+			}
+
+			@Override
+			public int size() {
+				return root.size;
+			}
+		};
+	}
+
+	@Override
+	public V put(K key, V value) {
+		throw new UnsupportedOperationException("PersistentMap is immutable, use plus()");
+	}
+
+	@Override
+	public V remove(Object key) {
+		throw new UnsupportedOperationException("PersistentMap is immutable, use minus()");
+	}
+
+	@Override
+	public void clear() {
+		throw new UnsupportedOperationException("PersistentMap is immutable");
+	}
+
+	/*
+	 * Builds the node holding two entries whose hashes agree on every
+	 * level above shift.
+	 */
+	private static <K,V> Node<K,V> mergeTwo(K k1, V v1, int h1, K k2, V v2, int h2, int shift) {
+		if(h1 == h2) {
+			return new CollisionNode<>(h1, new Object[] {k1, k2}, new Object[] {v1, v2});
+		}
+		int m1 = mask(h1, shift);
+		int m2 = mask(h2, shift);
+		if(m1 != m2) {
+			Object[] content = (m1 < m2)? new Object[] {k1, v1, k2, v2} : new Object[] {k2, v2, k1, v1};
+			return new BitmapNode<>((1 << m1) | (1 << m2), 0, content);
+		}
+		Node<K,V> sub = mergeTwo(k1, v1, h1, k2, v2, h2, shift + BITS);
+		return new BitmapNode<>(0, 1 << m1, new Object[] {sub});
+	}
+
+	private static abstract class Node<K,V> {
+		final int size;
+
+		Node(int size) {
+			this.size = size;
+		}
+
+		abstract V get(Object key, int hash, int shift);
+
+		/*
+		 * Binds key to value, or to f(old value, value) if key is bound
+		 * and f is not null. Returns this node if nothing changed.
+		 */
+		abstract Node<K,V> update(K key, V value, int hash, int shift, BinaryOperator<V> f);
+
+		abstract Node<K,V> remove(Object key, int hash, int shift);
+
+		abstract Node<K,V> merge(Node<K,V> other, int shift, BinaryOperator<V> f);
+
+		abstract boolean equivalent(Node<?,?> other);
+
+		abstract void forEach(BiConsumer<? super K, ? super V> action);
+
+		/*
+		 * Views used by the iterator.
+		 */
+		abstract int dataArity();
+		abstract K keyAt(int i);
+		abstract V valueAt(int i);
+		abstract int nodeArity();
+		abstract Node<K,V> nodeAt(int i);
+
+		/*
+		 * Inserts every entry of other into this node, one at a time.
+		 */
+		Node<K,V> mergeByUpdates(Node<K,V> other, int shift, BinaryOperator<V> f) {
+			Node<K,V> result = this;
+			Iterator<Map.Entry<K,V>> it = new EntryIterator<>(other);
+			while(it.hasNext()) {
+				Map.Entry<K,V> e = it.next();
+				result = result.update(e.getKey(), e.getValue(), hash(e.getKey()), shift, f);
+			}
+			return result;
+		}
+	}
+
+	/*
+	 * The regular trie node. content holds the inlined entries as
+	 * key, value pairs in bit order followed by the sub-nodes in bit
+	 * order.
+	 */
+	private static final class BitmapNode<K,V> extends Node<K,V> {
+		final int dataMap;
+		final int nodeMap;
+		final Object[] content;
+
+		BitmapNode(int dataMap, int nodeMap, Object[] content) {
+			super(computeSize(dataMap, nodeMap, content));
+			this.dataMap = dataMap;
+			this.nodeMap = nodeMap;
+			this.content = content;
+		}
+
+		private static int computeSize(int dataMap, int nodeMap, Object[] content) {
+			int data = Integer.bitCount(dataMap);
+			int size = data;
+			for(int i = 2*data; i < content.length; i++) size += ((Node<?,?>) content[i]).size;
+			return size;
+		}
+
+		private int dataIndex(int bit) {
+			return Integer.bitCount(dataMap & (bit - 1));
+		}
+
+		private int nodeIndex(int bit) {
+			return 2*Integer.bitCount(dataMap) + Integer.bitCount(nodeMap & (bit - 1));
+		}
+
+		@Override
+		int dataArity() {
+			return Integer.bitCount(dataMap);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		K keyAt(int i) {
+			return (K) content[2*i];
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		V valueAt(int i) {
+			return (V) content[2*i+1];
+		}
+
+		@Override
+		int nodeArity() {
+			return Integer.bitCount(nodeMap);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		Node<K,V> nodeAt(int i) {
+			return (Node<K,V>) content[2*dataArity() + i];
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		V get(Object key, int hash, int shift) {
+			int bit = bitpos(hash, shift);
+			if((dataMap & bit) != 0) {
+				int i = dataIndex(bit);
+				return key.equals(content[2*i])? (V) content[2*i+1] : null;
+			}
+			if((nodeMap & bit) != 0) {
+				return ((Node<K,V>) content[nodeIndex(bit)]).get(key, hash, shift + BITS);
+			}
+			return null;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		Node<K,V> update(K key, V value, int hash, int shift, BinaryOperator<V> f) {
+			int bit = bitpos(hash, shift);
+			if((dataMap & bit) != 0) {
+				int i = dataIndex(bit);
+				K k = (K) content[2*i];
+				V v = (V) content[2*i+1];
+				if(key.equals(k)) {
+					V newValue = (f == null)? value : f.apply(v, value);
+					if(newValue == v) return this;
+					Object[] c = content.clone();
+					c[2*i+1] = newValue;
+					return new BitmapNode<>(dataMap, nodeMap, c);
+				}
+				Node<K,V> sub = mergeTwo(k, v, hash(k), key, value, hash, shift + BITS);
+				return replaceDataWithNode(bit, i, sub);
+			}
+			if((nodeMap & bit) != 0) {
+				int n = nodeIndex(bit);
+				Node<K,V> sub = (Node<K,V>) content[n];
+				Node<K,V> newSub = sub.update(key, value, hash, shift + BITS, f);
+				if(newSub == sub) return this;
+				Object[] c = content.clone();
+				c[n] = newSub;
+				return new BitmapNode<>(dataMap, nodeMap, c);
+			}
+			int i = dataIndex(bit);
+			Object[] c = new Object[content.length + 2];
+			System.arraycopy(content, 0, c, 0, 2*i);
+			c[2*i] = key;
+			c[2*i+1] = value;
+			System.arraycopy(content, 2*i, c, 2*i+2, content.length - 2*i);
+			return new BitmapNode<>(dataMap | bit, nodeMap, c);
+		}
+
+		private Node<K,V> replaceDataWithNode(int bit, int dataIdx, Node<K,V> sub) {
+			int newDataMap = dataMap & ~bit;
+			int newNodeMap = nodeMap | bit;
+			Object[] c = new Object[content.length - 1];
+			// data before and after the removed pair
+			System.arraycopy(content, 0, c, 0, 2*dataIdx);
+			System.arraycopy(content, 2*dataIdx + 2, c, 2*dataIdx, 2*(dataArity() - dataIdx - 1));
+			// sub-nodes, with the new one in bit order
+			int nodesStart = 2*Integer.bitCount(dataMap);
+			int newNodesStart = nodesStart - 2;
+			int n = Integer.bitCount(newNodeMap & (bit - 1));
+			System.arraycopy(content, nodesStart, c, newNodesStart, n);
+			c[newNodesStart + n] = sub;
+			System.arraycopy(content, nodesStart + n, c, newNodesStart + n + 1, content.length - nodesStart - n);
+			return new BitmapNode<>(newDataMap, newNodeMap, c);
+		}
+
+		private Node<K,V> replaceNodeWithData(int bit, int nodeIdx, Object key, Object value) {
+			int newDataMap = dataMap | bit;
+			int newNodeMap = nodeMap & ~bit;
+			int i = Integer.bitCount(dataMap & (bit - 1));
+			Object[] c = new Object[content.length + 1];
+			System.arraycopy(content, 0, c, 0, 2*i);
+			c[2*i] = key;
+			c[2*i+1] = value;
+			System.arraycopy(content, 2*i, c, 2*i + 2, nodeIdx - 2*i);
+			System.arraycopy(content, nodeIdx + 1, c, nodeIdx + 2, content.length - nodeIdx - 1);
+			return new BitmapNode<>(newDataMap, newNodeMap, c);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		Node<K,V> remove(Object key, int hash, int shift) {
+			int bit = bitpos(hash, shift);
+			if((dataMap & bit) != 0) {
+				int i = dataIndex(bit);
+				if(!key.equals(content[2*i])) return this;
+				Object[] c = new Object[content.length - 2];
+				System.arraycopy(content, 0, c, 0, 2*i);
+				System.arraycopy(content, 2*i + 2, c, 2*i, content.length - 2*i - 2);
+				return new BitmapNode<>(dataMap & ~bit, nodeMap, c);
+			}
+			if((nodeMap & bit) != 0) {
+				int n = nodeIndex(bit);
+				Node<K,V> sub = (Node<K,V>) content[n];
+				Node<K,V> newSub = sub.remove(key, hash, shift + BITS);
+				if(newSub == sub) return this;
+				if(newSub.size == 1) {
+					// a lone entry is always kept inline
+					return replaceNodeWithData(bit, n, newSub.keyAt(0), newSub.valueAt(0));
+				}
+				Object[] c = content.clone();
+				c[n] = collapse(newSub);
+				return new BitmapNode<>(dataMap, nodeMap, c);
+			}
+			return this;
+		}
+
+		/*
+		 * Entries that all share one hash live in a collision node placed
+		 * where their hashes first meet another entry. After a removal a
+		 * sub-node may be left holding nothing but such a collision node;
+		 * hoist it to keep the layout canonical.
+		 */
+		private static <K,V> Node<K,V> collapse(Node<K,V> n) {
+			if(n.dataArity() == 0 && n.nodeArity() == 1 && n.nodeAt(0) instanceof CollisionNode) {
+				return n.nodeAt(0);
+			}
+			return n;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		Node<K,V> merge(Node<K,V> o, int shift, BinaryOperator<V> f) {
+			if(o == this) return this;
+			if(!(o instanceof BitmapNode)) return mergeByUpdates(o, shift, f);
+			BitmapNode<K,V> other = (BitmapNode<K,V>) o;
+			int all = dataMap | nodeMap | other.dataMap | other.nodeMap;
+			int newDataMap = 0, newNodeMap = 0;
+			Object[] data = new Object[2*Integer.bitCount(all)];
+			Object[] nodes = new Object[Integer.bitCount(all)];
+			int d = 0, n = 0;
+			boolean sameAsThis = true, sameAsOther = true;
+			for(int bits = all; bits != 0; bits &= bits - 1) {
+				int bit = bits & -bits;
+				boolean thisData = (dataMap & bit) != 0, thisNode = (nodeMap & bit) != 0;
+				boolean otherData = (other.dataMap & bit) != 0, otherNode = (other.nodeMap & bit) != 0;
+				if(thisData && otherData) {
+					int i = dataIndex(bit), j = other.dataIndex(bit);
+					K k1 = (K) content[2*i], k2 = (K) other.content[2*j];
+					V v1 = (V) content[2*i+1], v2 = (V) other.content[2*j+1];
+					if(k1.equals(k2)) {
+						V v = f.apply(v1, v2);
+						data[d++] = k1;
+						data[d++] = v;
+						newDataMap |= bit;
+						sameAsThis &= (v == v1);
+						sameAsOther &= (v == v2 && k1 == k2);
+					} else {
+						nodes[n++] = mergeTwo(k1, v1, hash(k1), k2, v2, hash(k2), shift + BITS);
+						newNodeMap |= bit;
+						sameAsThis = sameAsOther = false;
+					}
+				} else if(thisData && otherNode) {
+					int i = dataIndex(bit);
+					K k = (K) content[2*i];
+					Node<K,V> sub = (Node<K,V>) other.content[other.nodeIndex(bit)];
+					// the entry of this map comes first in f
+					Node<K,V> merged = sub.update(k, (V) content[2*i+1], hash(k), shift + BITS, (a, b) -> f.apply(b, a));
+					nodes[n++] = merged;
+					newNodeMap |= bit;
+					sameAsThis = false;
+					sameAsOther &= (merged == sub);
+				} else if(thisNode && otherData) {
+					int j = other.dataIndex(bit);
+					K k = (K) other.content[2*j];
+					Node<K,V> sub = (Node<K,V>) content[nodeIndex(bit)];
+					Node<K,V> merged = sub.update(k, (V) other.content[2*j+1], hash(k), shift + BITS, f);
+					nodes[n++] = merged;
+					newNodeMap |= bit;
+					sameAsThis &= (merged == sub);
+					sameAsOther = false;
+				} else if(thisNode && otherNode) {
+					Node<K,V> sub1 = (Node<K,V>) content[nodeIndex(bit)];
+					Node<K,V> sub2 = (Node<K,V>) other.content[other.nodeIndex(bit)];
+					Node<K,V> merged = sub1.merge(sub2, shift + BITS, f);
+					nodes[n++] = merged;
+					newNodeMap |= bit;
+					sameAsThis &= (merged == sub1);
+					sameAsOther &= (merged == sub2);
+				} else if(thisData) {
+					int i = dataIndex(bit);
+					data[d++] = content[2*i];
+					data[d++] = content[2*i+1];
+					newDataMap |= bit;
+					sameAsOther = false;
+				} else if(thisNode) {
+					nodes[n++] = content[nodeIndex(bit)];
+					newNodeMap |= bit;
+					sameAsOther = false;
+				} else if(otherData) {
+					int j = other.dataIndex(bit);
+					data[d++] = other.content[2*j];
+					data[d++] = other.content[2*j+1];
+					newDataMap |= bit;
+					sameAsThis = false;
+				} else {
+					nodes[n++] = other.content[other.nodeIndex(bit)];
+					newNodeMap |= bit;
+					sameAsThis = false;
+				}
+			}
+			if(sameAsThis) return this;
+			if(sameAsOther) return other;
+			Object[] c = new Object[d + n];
+			System.arraycopy(data, 0, c, 0, d);
+			System.arraycopy(nodes, 0, c, d, n);
+			return new BitmapNode<>(newDataMap, newNodeMap, c);
+		}
+
+		@Override
+		boolean equivalent(Node<?,?> o) {
+			if(o == this) return true;
+			if(!(o instanceof BitmapNode)) return false;
+			BitmapNode<?,?> other = (BitmapNode<?,?>) o;
+			if(size != other.size) return false;
+			if(dataMap != other.dataMap || nodeMap != other.nodeMap) return false;
+			int data = 2*dataArity();
+			for(int i = 0; i < data; i++) {
+				Object a = content[i], b = other.content[i];
+				if(a != b && !a.equals(b)) return false;
+			}
+			for(int i = data; i < content.length; i++) {
+				if(!((Node<?,?>) content[i]).equivalent((Node<?,?>) other.content[i])) return false;
+			}
+			return true;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		void forEach(BiConsumer<? super K, ? super V> action) {
+			int data = 2*dataArity();
+			for(int i = 0; i < data; i += 2) action.accept((K) content[i], (V) content[i+1]);
+			for(int i = data; i < content.length; i++) ((Node<K,V>) content[i]).forEach(action);
+		}
+	}
+
+	/*
+	 * Entries whose 32-bit hashes are identical.
+	 */
+	private static final class CollisionNode<K,V> extends Node<K,V> {
+		final int hash;
+		final Object[] keys;
+		final Object[] values;
+
+		CollisionNode(int hash, Object[] keys, Object[] values) {
+			super(keys.length);
+			this.hash = hash;
+			this.keys = keys;
+			this.values = values;
+		}
+
+		private int indexOf(Object key) {
+			for(int i = 0; i < keys.length; i++) {
+				if(key.equals(keys[i])) return i;
+			}
+			return -1;
+		}
+
+		@Override
+		int dataArity() {
+			return keys.length;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		K keyAt(int i) {
+			return (K) keys[i];
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		V valueAt(int i) {
+			return (V) values[i];
+		}
+
+		@Override
+		int nodeArity() {
+			return 0;
+		}
+
+		@Override
+		Node<K,V> nodeAt(int i) {
+			throw new IndexOutOfBoundsException();
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		V get(Object key, int hash, int shift) {
+			if(hash != this.hash) return null;
+			int i = indexOf(key);
+			return (i < 0)? null : (V) values[i];
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		Node<K,V> update(K key, V value, int hash, int shift, BinaryOperator<V> f) {
+			if(hash != this.hash) {
+				// only reachable while shift is still a valid level
+				Node<K,V> split = new BitmapNode<>(0, bitpos(this.hash, shift), new Object[] {this});
+				return split.update(key, value, hash, shift, f);
+			}
+			int i = indexOf(key);
+			if(i >= 0) {
+				V v = (V) values[i];
+				V newValue = (f == null)? value : f.apply(v, value);
+				if(newValue == v) return this;
+				Object[] vs = values.clone();
+				vs[i] = newValue;
+				return new CollisionNode<>(hash, keys, vs);
+			}
+			Object[] ks = new Object[keys.length + 1];
+			Object[] vs = new Object[keys.length + 1];
+			System.arraycopy(keys, 0, ks, 0, keys.length);
+			System.arraycopy(values, 0, vs, 0, keys.length);
+			ks[keys.length] = key;
+			vs[keys.length] = value;
+			return new CollisionNode<>(hash, ks, vs);
+		}
+
+		@Override
+		Node<K,V> remove(Object key, int hash, int shift) {
+			if(hash != this.hash) return this;
+			int i = indexOf(key);
+			if(i < 0) return this;
+			Object[] ks = new Object[keys.length - 1];
+			Object[] vs = new Object[keys.length - 1];
+			System.arraycopy(keys, 0, ks, 0, i);
+			System.arraycopy(keys, i + 1, ks, i, keys.length - i - 1);
+			System.arraycopy(values, 0, vs, 0, i);
+			System.arraycopy(values, i + 1, vs, i, keys.length - i - 1);
+			return new CollisionNode<>(hash, ks, vs);
+		}
+
+		@Override
+		Node<K,V> merge(Node<K,V> other, int shift, BinaryOperator<V> f) {
+			if(other == this) return this;
+			return mergeByUpdates(other, shift, f);
+		}
+
+		@Override
+		boolean equivalent(Node<?,?> o) {
+			if(o == this) return true;
+			if(!(o instanceof CollisionNode)) return false;
+			CollisionNode<?,?> other = (CollisionNode<?,?>) o;
+			if(hash != other.hash || keys.length != other.keys.length) return false;
+			for(int i = 0; i < keys.length; i++) {
+				int j = other.indexOf(keys[i]);
+				if(j < 0 || !values[i].equals(other.values[j])) return false;
+			}
+			return true;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		void forEach(BiConsumer<? super K, ? super V> action) {
+			for(int i = 0; i < keys.length; i++) action.accept((K) keys[i], (V) values[i]);
+		}
+	}
+
+	private static final class EntryIterator<K,V> implements Iterator<Map.Entry<K,V>> {
+		private final ArrayDeque<Node<K,V>> nodes = new ArrayDeque<>();
+		private Node<K,V> current;
+		private int index;
+
+		EntryIterator(Node<K,V> root) {
+			current = root;
+			index = 0;
+			for(int i = root.nodeArity() - 1; i >= 0; i--) nodes.push(root.nodeAt(i));
+		}
+
+		@Override
+		public boolean hasNext() {
+			while(index >= current.dataArity()) {
+				if(nodes.isEmpty()) return false;
+				current = nodes.pop();
+				index = 0;
+				for(int i = current.nodeArity() - 1; i >= 0; i--) nodes.push(current.nodeAt(i));
+			}
+			return true;
+		}
+
+		@Override
+		public Map.Entry<K,V> next() {
+			if(!hasNext()) throw new NoSuchElementException();
+			Map.Entry<K,V> e = new AbstractMap.SimpleImmutableEntry<>(current.keyAt(index), current.valueAt(index));
+			index++;
+			return e;
+		}
+	}
+}
@@ -1,10 +1,10 @@
 package ptg;
 
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BinaryOperator;
 
 import es.ConditionalValue;
 import es.EscapeStatus;
@@ -12,64 +12,72 @@ import soot.Local;
 import soot.SootField;
 
 public class PointsToGraph {
-	public Map<Local, Set<ObjectNode>> vars = null;
-	public Map<ObjectNode, Map<SootField,Set<ObjectNode>>> fields = null;
+	/*
+	 * Both maps and every points-to set in them are persistent, so
+	 * a graph is never changed in place: each mutator below swaps in
+	 * new roots that share everything else with the old ones. Code
+	 * outside this class must treat them as read-only.
+	 */
+	public PersistentMap<Local, ObjectSet> vars = null;
+	public PersistentMap<ObjectNode, PersistentMap<SootField,ObjectSet>> fields = null;
+
+	private static final BinaryOperator<ObjectSet> setUnion = ObjectSet::union;
+	private static final BinaryOperator<PersistentMap<SootField,ObjectSet>> fieldMapUnion = (a, b) -> a.merge(b, setUnion);
 
 	public PointsToGraph() {
-		vars = new HashMap<>();
-		fields = new HashMap<>();
+		vars = PersistentMap.empty();
+		fields = PersistentMap.empty();
 	}
 
-	@SuppressWarnings("unchecked")
+	/*
+	 * O(1): the copy shares the roots, later changes to either graph
+	 * only rebuild the paths they touch.
+	 */
 	public PointsToGraph(PointsToGraph other) {
-		vars = new HashMap<>(other.vars.size());
-		fields = new HashMap<>(other.fields.size());
-		for(Map.Entry<Local, Set<ObjectNode>> entry : other.vars.entrySet()) {
-			vars.put(entry.getKey(), (HashSet<ObjectNode>)((HashSet<ObjectNode>)entry.getValue()).clone());
-		}
-		for(Map.Entry<ObjectNode, Map<SootField,Set<ObjectNode>>> entry : other.fields.entrySet() ) {
-			HashMap<SootField,Set<ObjectNode>> temp = new HashMap<SootField,Set<ObjectNode>>(((HashMap<SootField,Set<ObjectNode>>)entry.getValue()).size());
-			for(Map.Entry<SootField,Set<ObjectNode>> e: ((HashMap<SootField,Set<ObjectNode>>)entry.getValue()).entrySet()) {
-				temp.put(e.getKey(), (Set<ObjectNode>)((HashSet<ObjectNode>)e.getValue()).clone());
-			}
-			fields.put(entry.getKey(), temp);
-		}
+		vars = other.vars;
+		fields = other.fields;
 	}
 
 	public void addVar(Local l, ObjectNode obj) {
-		if( vars.containsKey(l) ) {
-			vars.get(l).add(obj);
-		} else {
-			Set<ObjectNode> objects = new HashSet<ObjectNode>();
-			objects.add(obj);
-			vars.put(l, objects);
-		}
+		ObjectSet s = vars.get(l);
+		vars = vars.plus(l, (s == null)? ObjectSet.of(obj) : s.plus(obj));
 	}
 	
 	public void forcePutVar(Local l, ObjectNode obj) {
-		Set<ObjectNode> s = new HashSet<>();
-		s.add(obj);
-		vars.put(l, s);
+		vars = vars.plus(l, ObjectSet.of(obj));
+	}
+	
+	public void putVar(Local l, Set<ObjectNode> objSet) {
+		vars = vars.plus(l, ObjectSet.from(objSet));
+	}
+	
+	/*
+	 * Weak update: adds objSet to whatever l already points to.
+	 */
+	public void unionVar(Local l, Set<ObjectNode> objSet) {
+		ObjectSet s = ObjectSet.from(objSet);
+		ObjectSet old = vars.get(l);
+		vars = vars.plus(l, (old == null)? s : old.union(s));
+	}
+	
+	public void removeVar(Local l) {
+		vars = vars.minus(l);
 	}
 	
 	public void makeField(ObjectNode obj, SootField f, Set<ObjectNode> objSet) {
-		Map<SootField, Set<ObjectNode>> fieldMap = null;
-		if(!fields.containsKey(obj)) {
-			fieldMap = new HashMap<SootField, Set<ObjectNode>>();
-			fieldMap.put(f, objSet);
+		ObjectSet s = ObjectSet.from(objSet);
+		PersistentMap<SootField, ObjectSet> fieldMap = fields.get(obj);
+		if(fieldMap == null) {
+			fieldMap = PersistentMap.of(f, s);
 		} else {
-			fieldMap = fields.get(obj);
-			if(fieldMap.containsKey(f)) {
-				fieldMap.get(f).addAll(objSet);
-			} else fieldMap.put(f, objSet);
+			ObjectSet old = fieldMap.get(f);
+			fieldMap = fieldMap.plus(f, (old == null)? s : old.union(s));
 		}
-		fields.put(obj, fieldMap);
+		fields = fields.plus(obj, fieldMap);
 	}
 	
 	public void makeField(ObjectNode obj, SootField f, ObjectNode child) {
-		Set<ObjectNode> objSet = new HashSet<ObjectNode>();
-		objSet.add(child);
-		makeField(obj, f, objSet);
+		makeField(obj, f, ObjectSet.of(child));
 	}
 	
 	public void makeField(Local l, SootField f, ObjectNode child) {
@@ -83,6 +91,12 @@ public class PointsToGraph {
 		} 
 	}
 	
+	public void removeField(ObjectNode obj, SootField f) {
+		PersistentMap<SootField, ObjectSet> fieldMap = fields.get(obj);
+		if(fieldMap == null) return;
+		fields = fields.plus(obj, fieldMap.minus(f));
+	}
+	
 	public Iterable<ObjectNode> reachables(Local l) {
 		Iterable<ObjectNode> _ret = new HashSet<ObjectNode>();
 		if(vars.containsKey(l)) {
@@ -110,7 +124,7 @@ public class PointsToGraph {
 			while(it.hasNext()) {
 				ObjectNode o = it.next();
 				if(fields.containsKey(o)) {
-					for(Map.Entry<SootField, Set<ObjectNode>> e : fields.get(o).entrySet() ) {
+					for(Map.Entry<SootField, ObjectSet> e : fields.get(o).entrySet() ) {
 						nextSet.addAll(e.getValue());
 					}
 				}
@@ -131,34 +145,58 @@ public class PointsToGraph {
 		return vars.equals(ptg.vars) && fields.equals(ptg.fields);
 	}
 
-	public void union(PointsToGraph other) {
-		for(Map.Entry<Local, Set<ObjectNode>> entry : other.vars.entrySet()) {
-			if( vars.containsKey(entry.getKey()) ) {
-				if(!vars.get(entry.getKey()).equals(entry.getValue())) {
-					vars.get(entry.getKey()).addAll(entry.getValue());
-				}
+	/*
+	 * The edges of this graph that before does not have, as a graph of
+	 * their own; a var or field that is new comes with its whole set,
+	 * even when it is empty. Returns null if this graph is not a superset
+	 * of before, i.e. some var or field lost an object or vanished. Only
+	 * the parts in which the two graphs differ are visited.
+	 */
+	@SuppressWarnings("unchecked")
+	public PointsToGraph difference(PointsToGraph before) {
+		PointsToGraph delta = new PointsToGraph();
+		boolean[] shrunk = {false};
+		vars.forEachChange(before.vars, (l, now, old) -> {
+			if(now == null || (old != null && !now.containsAll(old))) {
+				shrunk[0] = true;
+			} else if(old == null) {
+				delta.vars = delta.vars.plus(l, now);
 			} else {
-				vars.put(entry.getKey(), new HashSet<>(entry.getValue()));
+				ObjectSet added = now.difference(old);
+				if(!added.isEmpty()) delta.vars = delta.vars.plus(l, added);
 			}
-		}
-		for(Map.Entry<ObjectNode, Map<SootField,Set<ObjectNode>>> entry : other.fields.entrySet()) {
-			if(this.fields.containsKey(entry.getKey())) {
-				Map<SootField,Set<ObjectNode>> thisFieldMap = this.fields.get(entry.getKey());
-				for(Map.Entry<SootField,Set<ObjectNode>> otherFieldMapEntry : entry.getValue().entrySet()) {
-					if(thisFieldMap.containsKey(otherFieldMapEntry.getKey())) {
-						thisFieldMap.get(otherFieldMapEntry.getKey()).addAll(otherFieldMapEntry.getValue());
+		});
+		if(shrunk[0]) return null;
+		fields.forEachChange(before.fields, (obj, now, old) -> {
+			if(now == null) {
+				shrunk[0] = true;
+			} else if(old == null) {
+				delta.fields = delta.fields.plus(obj, now);
+			} else {
+				PersistentMap<SootField, ObjectSet>[] added = new PersistentMap[] {PersistentMap.empty()};
+				now.forEachChange(old, (f, nowSet, oldSet) -> {
+					if(nowSet == null || (oldSet != null && !nowSet.containsAll(oldSet))) {
+						shrunk[0] = true;
+					} else if(oldSet == null) {
+						added[0] = added[0].plus(f, nowSet);
 					} else {
-						thisFieldMap.put(otherFieldMapEntry.getKey(), (Set<ObjectNode>)((HashSet<ObjectNode>)otherFieldMapEntry.getValue()).clone());
+						ObjectSet s = nowSet.difference(oldSet);
+						if(!s.isEmpty()) added[0] = added[0].plus(f, s);
 					}
-				}
-			} else {
-				Map<SootField,Set<ObjectNode>> thisFieldMap = new HashMap<SootField, Set<ObjectNode>>();
-				for(Map.Entry<SootField,Set<ObjectNode>> otherFieldMapEntry : entry.getValue().entrySet()) {
-					thisFieldMap.put(otherFieldMapEntry.getKey(), (Set<ObjectNode>)((HashSet<ObjectNode>)otherFieldMapEntry.getValue()).clone());
-				}
-				this.fields.put(entry.getKey(), thisFieldMap);
+				});
+				if(!added[0].isEmpty()) delta.fields = delta.fields.plus(obj, added[0]);
 			}
-		}
+		});
+		return shrunk[0]? null : delta;
+	}
+
+	/*
+	 * Parts shared with other (e.g. the outs of two predecessors that
+	 * both come from one dominator) are skipped without being visited.
+	 */
+	public void union(PointsToGraph other) {
+		vars = vars.merge(other.vars, setUnion);
+		fields = fields.merge(other.fields, fieldMapUnion);
 	}
 	
 	public boolean containsField(Local l, SootField f) {
@@ -183,12 +221,12 @@ public class PointsToGraph {
 		 * may be having the field object. Assimilate the
 		 * ones you can find.
 		 */
-		Set<ObjectNode> objSet = new HashSet<ObjectNode>();
+		ObjectSet objSet = ObjectSet.empty();
 		if(vars.containsKey(l)) {
 			Iterator<ObjectNode> it = vars.get(l).iterator();
 			while(it.hasNext()) {
-				Map<SootField, Set<ObjectNode>> m = fields.get(it.next());
-				if(m!=null && m.containsKey(f)) objSet.addAll(m.get(f));
+				Map<SootField, ObjectSet> m = fields.get(it.next());
+				if(m!=null && m.containsKey(f)) objSet = objSet.union(m.get(f));
 			}
 		}
 //		if(objSet.isEmpty()) throw new IllegalArgumentException("[AssimilateObjects] Set empty for "+l.toString()+"."+f.toString());
@@ -221,7 +259,7 @@ public class PointsToGraph {
 		if(done.contains(parent)) return;
 		if(!fields.containsKey(parent)) return;
 		HashSet<ObjectNode> children = new HashSet<ObjectNode>();
-		for(Map.Entry<SootField, Set<ObjectNode>> entry : fields.get(parent).entrySet()) {
+		for(Map.Entry<SootField, ObjectSet> entry : fields.get(parent).entrySet()) {
 			/*
 			 * Possible Optimization:
 			 * Conditional values are immutable. So maybe every object 
@@ -253,7 +291,7 @@ public class PointsToGraph {
 		if(done.contains(obj)) return;
 		if(!fields.containsKey(obj)) return;
 		HashSet<ObjectNode> children = new HashSet<ObjectNode>();
-		Map<SootField, Set<ObjectNode>> map = fields.get(obj);
+		Map<SootField, ObjectSet> map = fields.get(obj);
 		map.forEach((f, set) -> {
 			set.forEach(o -> {
 				summary.get(o).addEscapeStatus(es);
@@ -268,11 +306,9 @@ public class PointsToGraph {
 	
 	public void setAsReturn(Local l, Map<ObjectNode, EscapeStatus> summary) {
 		if(!vars.containsKey(l)) return;
-		Set<ObjectNode> s = new HashSet<>();
-		s.addAll(vars.get(l));
-		vars.put(RetLocal.getInstance(), s);
-		ObjectNode o = new ObjectNode(0, ObjectType.returnValue);
-		ConditionalValue ret = new ConditionalValue(null, o);
+		vars = vars.plus(RetLocal.getInstance(), vars.get(l));
+		ObjectNode o = ObjectNode.getInstance(0, ObjectType.returnValue);
+		ConditionalValue ret = ConditionalValue.getInstance(null, o);
 		cascadeCV(l, ret, summary);
 	}
 	
@@ -304,35 +340,15 @@ public class PointsToGraph {
 		if(!vars.containsKey(rhs)) {
 			throw new IllegalArgumentException("ptset for "+rhs.toString()+" Does not exist!");
 		}
-		vars.get(lhs).forEach(parent -> {
-			if(!fields.containsKey(parent)) fields.put(parent, new HashMap<>());
-			Map<SootField, Set<ObjectNode>> map = fields.get(parent);
-			if(!map.containsKey(ArrayField.instance)) {
-				HashSet<ObjectNode> set = new HashSet<>();
-				set.addAll(vars.get(rhs));
-				map.put(ArrayField.instance, set);
-			} else {
-				map.get(ArrayField.instance).addAll(vars.get(rhs));
-			}
-		});
+		ObjectSet objSet = vars.get(rhs);
+		vars.get(lhs).forEach(parent -> makeField(parent, ArrayField.instance, objSet));
 	}
 	
 	public void storeStmtArrayRef(Local lhs, ObjectNode obj) {
 		if(!vars.containsKey(lhs)) {
 			throw new IllegalArgumentException("ptset for "+lhs.toString()+" Does not exist!");
 		}
-		vars.get(lhs).forEach(parent -> {
-			if(!fields.containsKey(parent)) fields.put(parent, new HashMap<>());
-			Map<SootField, Set<ObjectNode>> map = fields.get(parent);
-			if(!map.containsKey(ArrayField.instance)) {
-				HashSet<ObjectNode> set = new HashSet<>();
-				set.add(obj);
-				map.put(ArrayField.instance, set);
-			} else {
-				map.get(ArrayField.instance).add(obj);
-			}
-		});
-		
+		vars.get(lhs).forEach(parent -> makeField(parent, ArrayField.instance, obj));
 	}
 	
 	public boolean isEmpty() {
@@ -0,0 +1,153 @@
+package resolver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import es.EscapeStatus;
+import ptg.ObjectNode;
+import ptg.ObjectSet;
+import ptg.PointsToGraph;
+import ptg.RetLocal;
+import soot.SootMethod;
+import store.SummaryCodec;
+import utils.Fallbacks;
+
+/*
+ * The outcome of a resolution, kept in one file for the next run. The
+ * record of a method holds what its resolution started from, i.e. its
+ * summary and exit graph as SummaryCodec writes them, and what came out
+ * of it: the resolved summary and the status of every object.
+ */
+public class ResolutionStore {
+	private static final int MAGIC = 0x53545652; // "STVR"
+	private static final int VERSION = 1;
+
+	private final Path file;
+	// method signature -> record
+	private final Map<String, byte[]> records = new HashMap<>();
+
+	public ResolutionStore(Path file) {
+		this.file = file;
+		if(!Files.isRegularFile(file)) return;
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if(in.readInt() != MAGIC || in.readInt() != VERSION) return;
+			int n = in.readInt();
+			for(int i = 0; i < n; i++) {
+				String sig = in.readUTF();
+				byte[] record = new byte[in.readInt()];
+				in.readFully(record);
+				records.put(sig, record);
+			}
+		} catch (IOException | RuntimeException e) {
+			System.out.println("Unable to read the previous resolution from "+file);
+			records.clear();
+		}
+	}
+
+	public Set<String> signatures() {
+		return records.keySet();
+	}
+
+	/*
+	 * Fills solved and status with the previous results of m, provided
+	 * they were computed from the same summary and exit graph. Returns
+	 * false, leaving both maps in an undefined state, otherwise.
+	 */
+	boolean restore(SootMethod m, HashMap<ObjectNode, EscapeStatus> summary, PointsToGraph ptg,
+			HashMap<ObjectNode, EscapeStatus> solved, HashMap<ObjectNode, ResolutionStatus> status) {
+		byte[] record = records.get(m.getSignature());
+		if(record == null) return false;
+		try {
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+			HashMap<ObjectNode, EscapeStatus> previousSummary = new HashMap<>();
+			PointsToGraph previousPtg = SummaryCodec.read(in, previousSummary);
+			if(!sameSummary(summary, previousSummary) || !sameGraph(ptg, previousPtg)) return false;
+			SummaryCodec.readSummary(in, solved);
+			int n = in.readInt();
+			ResolutionStatus[] values = ResolutionStatus.values();
+			for(int i = 0; i < n; i++) {
+				ObjectNode obj = SummaryCodec.readNode(in);
+				int s = in.readByte();
+				if(s < 0 || s >= values.length) return false;
+				if(values[s] == ResolutionStatus.UnAttempted || values[s] == ResolutionStatus.InProgress) return false;
+				status.put(obj, values[s]);
+			}
+		} catch (IOException | RuntimeException e) {
+			// a record that does not decode against the current Scene and options
+			return false;
+		}
+		return status.keySet().equals(summary.keySet()) && solved.keySet().equals(summary.keySet());
+	}
+
+	/*
+	 * Replaces the file with the records of the given resolution. Methods
+	 * with fallback results (see Fallbacks) are left out, so they are
+	 * resolved again, along with the methods that depend on them, once
+	 * they have been analysed in full.
+	 */
+	public void save(Map<SootMethod, HashMap<ObjectNode, EscapeStatus>> existing, Map<SootMethod, PointsToGraph> ptgs,
+			Map<SootMethod, HashMap<ObjectNode, EscapeStatus>> solved,
+			Map<SootMethod, HashMap<ObjectNode, ResolutionStatus>> status) throws IOException {
+		TreeMap<String, SootMethod> methods = new TreeMap<>();
+		existing.keySet().forEach(m -> {
+			if(!Fallbacks.contains(m)) methods.put(m.getSignature(), m);
+		});
+		Path temp = file.resolveSibling(file.getFileName()+".tmp");
+		if(file.getParent() != null) Files.createDirectories(file.getParent());
+		try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(methods.size());
+			for(SootMethod m : methods.values()) {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				DataOutputStream record = new DataOutputStream(bytes);
+				SummaryCodec.write(record, existing.get(m), ptgs.get(m));
+				SummaryCodec.writeSummary(record, solved.get(m));
+				record.writeInt(status.get(m).size());
+				for(Map.Entry<ObjectNode, ResolutionStatus> e : status.get(m).entrySet()) {
+					SummaryCodec.writeNode(record, e.getKey());
+					record.writeByte(e.getValue().ordinal());
+				}
+				out.writeUTF(m.getSignature());
+				out.writeInt(bytes.size());
+				bytes.writeTo(out);
+			}
+		}
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static boolean sameSummary(HashMap<ObjectNode, EscapeStatus> a, HashMap<ObjectNode, EscapeStatus> b) {
+		if(!a.keySet().equals(b.keySet())) return false;
+		for(Map.Entry<ObjectNode, EscapeStatus> e : a.entrySet()) {
+			// CVs are interned, a set of states compares them by identity
+			if(!new HashSet<>(e.getValue().getStatus()).equals(new HashSet<>(b.get(e.getKey()).getStatus()))) return false;
+		}
+		return true;
+	}
+
+	/*
+	 * Only what SummaryCodec keeps of a graph is compared.
+	 */
+	private static boolean sameGraph(PointsToGraph a, PointsToGraph b) {
+		if(a == null) return b.fields.isEmpty() && returned(b).isEmpty();
+		return returned(a).equals(returned(b)) && a.fields.equals(b.fields);
+	}
+
+	private static ObjectSet returned(PointsToGraph ptg) {
+		ObjectSet s = ptg.vars.get(RetLocal.getInstance());
+		return (s == null)? ObjectSet.empty() : s;
+	}
+}
@@ -1,25 +1,58 @@
 package resolver;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import es.*;
 import ptg.ObjectNode;
+import ptg.ObjectSet;
 import ptg.ObjectType;
+import ptg.PersistentMap;
 import ptg.PointsToGraph;
 import ptg.RetLocal;
 import soot.SootField;
 import soot.SootMethod;
+import store.LibrarySummaries;
+import utils.AnalysisOptions;
+import utils.BoundedCache;
+import utils.StronglyConnectedComponents;
 
 public class SummaryResolver {
-	public HashMap<SootMethod, HashMap<ObjectNode, EscapeStatus>> existingSummaries, solvedSummaries;
+	public Map<SootMethod, HashMap<ObjectNode, EscapeStatus>> existingSummaries;
+	public HashMap<SootMethod, HashMap<ObjectNode, EscapeStatus>> solvedSummaries;
 	HashMap<SootMethod, HashMap<ObjectNode,ResolutionStatus>> resolutionStatus;
-	HashMap<SootMethod, PointsToGraph> ptgs;
+	Map<SootMethod, PointsToGraph> ptgs;
+	// units of work left for this resolution, see Engine
+	private AtomicLong budget;
+	// see callerIndex
+	private final ConcurrentHashMap<SootMethod, Map<CallKey, List<ObjectNode>>> callerIndices = new ConcurrentHashMap<>();
+	// see getObjs
+	private final BoundedCache<CallKey, Reach> objsCache = new BoundedCache<>(AnalysisOptions.objsCacheSize);
+	// objects made Escape because a budget ran out
+	private final AtomicInteger fallbacks = new AtomicInteger();
 
-	private void init(HashMap<SootMethod, HashMap<ObjectNode, EscapeStatus>> existingSummaries) {
+	private void init(Map<SootMethod, HashMap<ObjectNode, EscapeStatus>> existingSummaries) {
 		this.existingSummaries = existingSummaries;
 		resolutionStatus = new HashMap<SootMethod, HashMap<ObjectNode,ResolutionStatus>>();
 		this.solvedSummaries = new HashMap<>();
@@ -32,19 +65,216 @@ public class SummaryResolver {
 	
 	}
 
-	public void resolve(HashMap<SootMethod, HashMap<ObjectNode, EscapeStatus>> existingSummaries,
-			HashMap<SootMethod, PointsToGraph> ptgs) {
+	/*
+	 * Methods are resolved bottom-up over the strongly connected
+	 * components of the graph whose edges go from a method to the
+	 * methods named by the CVs in its summary. When a component is
+	 * started, every method it depends on outside of it is fully
+	 * resolved, so InProgress can only be met inside the component.
+	 * Within a component methods and objects are taken in a fixed order
+	 * (signature, then object type and ref), so the result is the same
+	 * on every run. In the parallel mode, a component is handed to the
+	 * pool as soon as the last of the components it depends on is done.
+	 * With stava.libraryDb, the library methods the CVs lead to are
+	 * resolved along with the program; they are added to copies of the
+	 * given maps.
+	 */
+	public void resolve(Map<SootMethod, HashMap<ObjectNode, EscapeStatus>> existingSummaries,
+			Map<SootMethod, PointsToGraph> ptgs) {
+		LibrarySummaries library = LibrarySummaries.get();
+		if(library != null) {
+			existingSummaries = new HashMap<>(existingSummaries);
+			ptgs = new HashMap<>(ptgs);
+			System.out.println("Library summaries: "+library.addReachable(existingSummaries, ptgs)+" method(s) used");
+		}
 		init(existingSummaries);
 		this.ptgs = ptgs;
-		existingSummaries.forEach((method,summary) -> {
+		ResolutionStore previous = null;
+		if(AnalysisOptions.summaryStore != null) {
+			previous = new ResolutionStore(Paths.get(AnalysisOptions.summaryStore, "resolution.bin"));
+			reuse(previous);
+		}
+		long limit = AnalysisOptions.resolverBudget;
+		budget = new AtomicLong((limit > 0)? limit : Long.MAX_VALUE);
+		fallbacks.set(0);
+		callerIndices.clear();
+		objsCache.clear();
+		List<SootMethod> methods = new ArrayList<>(existingSummaries.keySet());
+		methods.sort(Comparator.comparing(SootMethod::getSignature));
+		List<List<SootMethod>> components = StronglyConnectedComponents.compute(methods, this::callees);
+		if(!AnalysisOptions.parallel) {
+			components.forEach(this::resolveComponent);
+		} else {
+			resolveInParallel(components);
+		}
+		// reported along with the analysis telemetry
+		if(AnalysisOptions.telemetry != null) System.out.println("getObjs cache: "+objsCache);
+		if(fallbacks.get() > 0) {
+			System.out.println("Resolution budget exceeded: "+fallbacks.get()+" object(s) set to Escape");
+		}
+		if(previous != null) {
+			try {
+				previous.save(existingSummaries, ptgs, solvedSummaries, resolutionStatus);
+			} catch (IOException e) {
+				System.out.println("Unable to save the resolution to "+AnalysisOptions.summaryStore);
+				e.printStackTrace();
+			}
+		}
+//		printResults();
+	}
+	
+	/*
+	 * Incremental resolution. A method is reused, i.e. its statuses and
+	 * resolved summary are taken from the previous run, when its own
+	 * summary and exit graph are what they were then and the same holds
+	 * for every method its CVs lead to, directly or not. Otherwise it is
+	 * dirty: its inputs changed, it is new, or it depends on a dirty
+	 * method or on one that is gone. A strongly connected component is
+	 * therefore either reused as a whole or resolved again as a whole,
+	 * and the result is the one a full resolution would give. Reused
+	 * objects are never UnAttempted, so outOfContextSolve passes over
+	 * them.
+	 */
+	private void reuse(ResolutionStore previous) {
+		// signature -> the methods whose CVs name it
+		Map<String, List<SootMethod>> callers = new HashMap<>();
+		Set<String> present = new HashSet<>();
+		existingSummaries.forEach((m, summary) -> {
+			present.add(m.getSignature());
+			Set<String> named = new HashSet<>();
+			summary.forEach((obj, es) -> es.getStatus().forEach(e -> {
+				if(e instanceof ConditionalValue && ((ConditionalValue)e).method != null) {
+					named.add(((ConditionalValue)e).method.getSignature());
+				}
+			}));
+			for(String callee : named) callers.computeIfAbsent(callee, k -> new ArrayList<>()).add(m);
+		});
+		ArrayDeque<String> seeds = new ArrayDeque<>();
+		for(String sig : previous.signatures()) {
+			if(!present.contains(sig)) seeds.add(sig);
+		}
+		Map<SootMethod, HashMap<ObjectNode, EscapeStatus>> solved = new HashMap<>();
+		Map<SootMethod, HashMap<ObjectNode, ResolutionStatus>> status = new HashMap<>();
+		for(SootMethod m : existingSummaries.keySet()) {
+			HashMap<ObjectNode, EscapeStatus> s = new HashMap<>();
+			HashMap<ObjectNode, ResolutionStatus> r = new HashMap<>();
+			if(previous.restore(m, existingSummaries.get(m), ptgs.get(m), s, r)) {
+				solved.put(m, s);
+				status.put(m, r);
+			} else {
+				seeds.add(m.getSignature());
+			}
+		}
+		Set<String> dirty = new HashSet<>();
+		while(!seeds.isEmpty()) {
+			String sig = seeds.poll();
+			if(!dirty.add(sig)) continue;
+			for(SootMethod caller : callers.getOrDefault(sig, Collections.emptyList())) seeds.add(caller.getSignature());
+		}
+		int reused = 0;
+		for(SootMethod m : solved.keySet()) {
+			if(dirty.contains(m.getSignature())) continue;
+			solvedSummaries.put(m, solved.get(m));
+			resolutionStatus.put(m, status.get(m));
+			reused++;
+		}
+		System.out.println("Incremental resolution: "+reused+" method(s) reused, "
+				+(existingSummaries.size()-reused)+" to resolve");
+	}
+
+	/*
+	 * The analysed methods that the CVs in the summary of m refer to,
+	 * in a fixed order.
+	 */
+	private List<SootMethod> callees(SootMethod m) {
+		TreeMap<String, SootMethod> callees = new TreeMap<>();
+		existingSummaries.get(m).forEach((obj, es) -> es.getStatus().forEach(e -> {
+			if(e instanceof ConditionalValue) {
+				SootMethod callee = ((ConditionalValue)e).getMethod();
+				if(callee != null && existingSummaries.containsKey(callee)) callees.put(callee.getSignature(), callee);
+			}
+		}));
+		return new ArrayList<>(callees.values());
+	}
+	
+	private void resolveComponent(List<SootMethod> component) {
+		List<SootMethod> methods = new ArrayList<>(component);
+		methods.sort(Comparator.comparing(SootMethod::getSignature));
+		for(SootMethod method : methods) {
 //			System.out.println("--- <"+method.toString()+"> ---");
-			summary.forEach((obj, es) -> {
+			List<ObjectNode> objects = new ArrayList<>(existingSummaries.get(method).keySet());
+			objects.sort(objectOrder);
+			for(ObjectNode obj : objects) {
 //				System.out.println("normal trigger outOfContextSolve on: "+method.toString()+", "+obj.toString());
 				outOfContextSolve(obj, method);
-			});
+			}
 //			System.out.println("--- </"+method.toString()+"> ---");
-		});
-//		printResults();
+		}
+	}
+	
+	private static final Comparator<ObjectNode> objectOrder = (a, b) -> {
+		if(a.type != b.type) return Integer.compare(a.type.ordinal(), b.type.ordinal());
+		return Integer.compare(a.ref, b.ref);
+	};
+	
+	/*
+	 * The maps of a method are only written while its component is
+	 * being resolved. A component is submitted by the worker that
+	 * finished its last dependency, which orders those writes before
+	 * any read from the components above it.
+	 */
+	private void resolveInParallel(List<List<SootMethod>> components) {
+		Map<SootMethod, Integer> componentOf = new HashMap<>();
+		for(int i = 0; i < components.size(); i++) {
+			for(SootMethod m : components.get(i)) componentOf.put(m, i);
+		}
+		List<List<Integer>> dependents = new ArrayList<>(components.size());
+		AtomicInteger[] waitingFor = new AtomicInteger[components.size()];
+		for(int i = 0; i < components.size(); i++) {
+			dependents.add(new ArrayList<>());
+			waitingFor[i] = new AtomicInteger();
+		}
+		for(int i = 0; i < components.size(); i++) {
+			Set<Integer> below = new HashSet<>();
+			for(SootMethod m : components.get(i)) {
+				for(SootMethod callee : callees(m)) {
+					int j = componentOf.get(callee);
+					if(j != i && below.add(j)) dependents.get(j).add(i);
+				}
+			}
+			waitingFor[i].set(below.size());
+		}
+		ForkJoinPool pool = new ForkJoinPool(AnalysisOptions.threads);
+		Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+		class Task implements Runnable {
+			final int index;
+			Task(int index) {
+				this.index = index;
+			}
+			@Override
+			public void run() {
+				try {
+					resolveComponent(components.get(index));
+				} catch (Throwable e) {
+					failures.add(e);
+					return;
+				}
+				for(int d : dependents.get(index)) {
+					if(waitingFor[d].decrementAndGet() == 0) pool.execute(new Task(d));
+				}
+			}
+		}
+		for(int i = 0; i < components.size(); i++) {
+			if(waitingFor[i].get() == 0) pool.execute(new Task(i));
+		}
+		pool.awaitQuiescence(Long.MAX_VALUE, TimeUnit.SECONDS);
+		pool.shutdown();
+		if(!failures.isEmpty()) {
+			Throwable first = failures.peek();
+			if(first instanceof RuntimeException) throw (RuntimeException) first;
+			if(first instanceof Error) throw (Error) first;
+			throw new IllegalStateException(first);
+		}
 	}
 
 	private boolean prelimCheck(ObjectNode obj, SootMethod method) {
@@ -53,177 +283,392 @@ public class SummaryResolver {
 		return false;
 	}
 	
+	/*
+	 * Resolves obj of method and everything it depends on that is not
+	 * attempted yet. The work is bounded, see Engine.
+	 */
 	private void outOfContextSolve(ObjectNode obj, SootMethod method) {
-		if(prelimCheck(obj, method)) {
-//			System.out.println(obj.toString()+" has status " + resolutionStatus.get(method).get(obj).toString());
-			return;
-		} 
-		resolutionStatus.get(method).put(obj, ResolutionStatus.InProgress);
-		EscapeStatus es = this.existingSummaries.get(method).get(obj);
-		if(es.containsNoEscape() || es.doesEscape()) {
-//			System.out.println(obj.toString() + " of "+ method.toString() + " is already resolved to "+ es.toString());
-			resolutionStatus.get(method).put(obj, ResolutionStatus.Resolved);
-			this.solvedSummaries.get(method).put(obj, es);
-			return;
-		}
-		Iterator<EscapeState> it = es.getStatus().iterator();
-		es = new EscapeStatus();
-		while(it.hasNext()) {
-			ConditionalValue cv = (ConditionalValue)it.next();
-//			System.out.println("trigger helper on: "+cv.toString()+", of: "+obj.toString()+", of: "+method.toString()+" out of context.");
-//			EscapeState e = recursiveResolve(cv, obj, method, null, null);
-			EscapeState e = resolutionHelper(cv, obj, method);
-//			System.out.println(cv.toString() + " of "+obj.toString()+" of "+method.toString()+" resolves to "+ e.toString());
-			if(e == Escape.getInstance()) {es.setEscape(); break;}
-			else if(e instanceof ConditionalValue) es.addEscapeState(e);
-			else if(e == NoEscape.getInstance()); // Nothing to do here!
-		}
-		solvedSummaries.get(method).put(obj, es);
-		resolutionStatus.get(method).put(obj, 
-				es.containsCV()? 
-						(es.isCallerOnly()? 
-								ResolutionStatus.CallerOnly
-								:ResolutionStatus.UnResolved)
-						:ResolutionStatus.Resolved);
-//		System.out.println(obj.toString()+" of "+method.toString()+" resolves to "+es.toString()+" with status "+resolutionStatus.get(method).get(obj));
+		if(prelimCheck(obj, method)) return;
+		new Engine().solve(obj, method);
 	}
-	
-	private EscapeState resolutionHelper(ConditionalValue cv, ObjectNode obj, SootMethod method) {
-		if(cv.getMethod()!=null) {
-			SootMethod m = cv.getMethod();
-			if(m.isJavaLibraryMethod()) {
-				if(libMethodCheck(m)) return NoEscape.getInstance();
-				else return cv;
+
+	/*
+	 * Thrown by Engine.charge; carries no stack trace.
+	 */
+	private static final class BudgetExceeded extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+		static final BudgetExceeded INSTANCE = new BudgetExceeded();
+		private BudgetExceeded() {
+			super(null, null, false, false);
+		}
+	}
+
+	/*
+	 * The former outOfContextSolve -> resolutionHelper -> callerSolve
+	 * recursion, run on an explicit stack of frames so that long chains
+	 * of CVs cannot overflow the thread stack. A frame does its work in
+	 * step(): it either returns its result, or pushes the frame of the
+	 * call it needs and gets that result back through receive() before
+	 * its next step. Every object, CV or caller object examined costs one
+	 * unit of work, charged against the budget of the top-level object
+	 * (AnalysisOptions.resolverObjectBudget) and against the budget of
+	 * the whole resolution (AnalysisOptions.resolverBudget). When either
+	 * runs out, every object whose status was set during this solve is
+	 * made Resolved to Escape: those are the only objects whose results
+	 * may rest on the optimistic reading of InProgress, so nothing
+	 * resolved earlier has to be revisited.
+	 */
+	private final class Engine {
+		private final ArrayDeque<Frame> stack = new ArrayDeque<>();
+		private final List<SolveFrame> started = new ArrayList<>();
+		private long steps = 0;
+
+		void solve(ObjectNode obj, SootMethod method) {
+			stack.push(new SolveFrame(obj, method));
+			try {
+				while(!stack.isEmpty()) {
+					Frame f = stack.peek();
+					EscapeState result = f.step();
+					if(stack.peek() != f) continue; // f is waiting for a call
+					stack.pop();
+					if(!stack.isEmpty()) stack.peek().receive(result);
+				}
+			} catch (BudgetExceeded e) {
+				for(SolveFrame f : started) {
+					resolutionStatus.get(f.method).put(f.obj, ResolutionStatus.Resolved);
+					solvedSummaries.get(f.method).put(f.obj, new EscapeStatus(Escape.getInstance()));
+				}
+				fallbacks.addAndGet(started.size());
+				stack.clear();
 			}
-			Iterator<ObjectNode> i = getObjs(cv).iterator(); // these objects belong to cv.getmethod()
-			EscapeStatus temp = new EscapeStatus();
-			while(i.hasNext()) {
-				ObjectNode o = i.next();
-				ResolutionStatus s = resolutionStatus.get(m).get(o);
-				if(s==ResolutionStatus.UnAttempted) {
-//					System.out.println("helper trigger outofcontextsolve on "+o.toString()+" of "+m.toString());
-					outOfContextSolve(o, m);
+		}
+
+		private void charge() {
+			steps++;
+			long limit = AnalysisOptions.resolverObjectBudget;
+			if((limit > 0 && steps > limit) || budget.decrementAndGet() < 0) throw BudgetExceeded.INSTANCE;
+		}
+
+		private abstract class Frame {
+			abstract EscapeState step();
+
+			void receive(EscapeState result) {
+			}
+		}
+
+		/*
+		 * outOfContextSolve(obj, method).
+		 */
+		private final class SolveFrame extends Frame {
+			final ObjectNode obj;
+			final SootMethod method;
+			Iterator<EscapeState> it;
+			EscapeStatus es;
+			EscapeState received;
+			boolean waiting = false;
+
+			SolveFrame(ObjectNode obj, SootMethod method) {
+				this.obj = obj;
+				this.method = method;
+			}
+
+			@Override
+			EscapeState step() {
+				if(it == null) {
+					resolutionStatus.get(method).put(obj, ResolutionStatus.InProgress);
+					started.add(this);
+					charge();
+					EscapeStatus existing = existingSummaries.get(method).get(obj);
+					if(existing.containsNoEscape() || existing.doesEscape()) {
+						resolutionStatus.get(method).put(obj, ResolutionStatus.Resolved);
+						solvedSummaries.get(method).put(obj, existing);
+						return null;
+					}
+					it = existing.getStatus().iterator();
+					es = new EscapeStatus();
+				}
+				if(waiting) {
+					waiting = false;
+					if(received == Escape.getInstance()) {
+						es.setEscape();
+						return finish();
+					} else if(received instanceof ConditionalValue) es.addEscapeState(received);
 				}
-				s = resolutionStatus.get(m).get(o);
+				if(it.hasNext()) {
+					ConditionalValue cv = (ConditionalValue)it.next();
+					charge();
+					waiting = true;
+					stack.push(new HelperFrame(cv, obj, method));
+					return null;
+				}
+				return finish();
+			}
+
+			private EscapeState finish() {
+				solvedSummaries.get(method).put(obj, es);
+				resolutionStatus.get(method).put(obj, 
+						es.containsCV()? 
+								(es.isCallerOnly()? 
+										ResolutionStatus.CallerOnly
+										:ResolutionStatus.UnResolved)
+								:ResolutionStatus.Resolved);
+				return null;
+			}
+
+			@Override
+			void receive(EscapeState result) {
+				received = result;
+			}
+		}
+
+		/*
+		 * resolutionHelper(cv, obj, method): what cv amounts to once the
+		 * objects of cv.getMethod() it names are resolved.
+		 */
+		private final class HelperFrame extends Frame {
+			final ConditionalValue cv;
+			final ObjectNode obj;
+			final SootMethod method;
+			SootMethod m;
+			Iterator<ObjectNode> objs;
+			boolean unresolved = false;
+			// the object whose call is running, and which call it is
+			ObjectNode current;
+			boolean inCallerSolve;
+			EscapeState received;
+
+			HelperFrame(ConditionalValue cv, ObjectNode obj, SootMethod method) {
+				this.cv = cv;
+				this.obj = obj;
+				this.method = method;
+			}
+
+			@Override
+			EscapeState step() {
+				if(objs == null) {
+					// conditional value involving caller, of the form
+					// <caller, <arg,0>.f.g>: out of context it stays as it is
+					if(cv.getMethod()==null) return cv;
+					m = cv.getMethod();
+					if(m.isJavaLibraryMethod() && !existingSummaries.containsKey(m)) {
+						if(libMethodCheck(m)) return NoEscape.getInstance();
+						else return cv;
+					}
+					objs = getObjs(cv).iterator(); // these objects belong to cv.getmethod()
+				}
+				if(current != null) {
+					ObjectNode o = current;
+					current = null;
+					if(inCallerSolve) {
+						inCallerSolve = false;
+						if(received instanceof Escape) return Escape.getInstance();
+						else if(received instanceof ConditionalValue) unresolved = true;
+					} else {
+						EscapeState e = examine(o);
+						if(e != null || current != null) return e;
+					}
+				}
+				while(objs.hasNext()) {
+					ObjectNode o = objs.next();
+					charge();
+					if(resolutionStatus.get(m).get(o)==ResolutionStatus.UnAttempted) {
+						current = o;
+						stack.push(new SolveFrame(o, m));
+						return null;
+					}
+					EscapeState e = examine(o);
+					if(e != null || current != null) return e;
+				}
+				if(unresolved) return cv; // as it is unresolved
+				else return NoEscape.getInstance();
+			}
+
+			/*
+			 * Returns Escape if o decides cv, otherwise null; pushes the
+			 * caller solve of o when o depends on its caller only.
+			 */
+			private EscapeState examine(ObjectNode o) {
+				ResolutionStatus s = resolutionStatus.get(m).get(o);
 				if(s==ResolutionStatus.Resolved) {
-					EscapeStatus e = solvedSummaries.get(m).get(o);
-					if(e.doesEscape()) return Escape.getInstance();
-				} else if(s==ResolutionStatus.UnResolved) temp.addEscapeState(cv);
+					if(solvedSummaries.get(m).get(o).doesEscape()) return Escape.getInstance();
+				} else if(s==ResolutionStatus.UnResolved) unresolved = true;
 				else if(s==ResolutionStatus.InProgress); // Nothing to do here!
 				else if(s==ResolutionStatus.CallerOnly) {
-//					System.out.print("helper trigger callersolve on "+o.toString()+" of "+m.toString());
-//					System.out.println(" context:"+obj.toString()+" of "+method.toString());
-					EscapeState e = callerSolve(cv, o, m, obj, method);
-					if(e instanceof Escape) return Escape.getInstance();
-					else if(e instanceof ConditionalValue) temp.addEscapeState(cv);
+					current = o;
+					inCallerSolve = true;
+					stack.push(new CallerFrame(cv, o, m, obj, method));
 				}
+				return null;
+			}
+
+			@Override
+			void receive(EscapeState result) {
+				received = result;
 			}
-			if(temp.containsCV()) return cv; // as it is unresolved
-			else return NoEscape.getInstance();
-		} else {
-			// conditional value involving caller
-			// method is caller!
-			// may be of the form <caller, <arg,0>.f.g>
-			return cv; // case where this is called out of context
 		}
-	}
 
-	private EscapeState callerSolve(ConditionalValue cv, ObjectNode o, SootMethod m, ObjectNode callerObj,
-			SootMethod callerMethod) {
-		if(callerObj==null || callerMethod==null) return cv;
-		if(this.resolutionStatus.get(m).get(o)!=ResolutionStatus.CallerOnly) {
-			throw new IllegalArgumentException(o.toString()+" of "+m.toString()+" is not in caller only mode!");
-		}
-		// object o here is of CallerOnly status
-		// cv belongs to callerObj of callerMethod
-		// cv of the form <callerMethod.getMethod(), <parameter,0>.f.g> or <callerMethod.getMethod(), <returnValue,0>.f.g>
-		// fully solve o in the context of callerObj, callerMethod
-		EscapeStatus higherTemp = new EscapeStatus();
-		EscapeStatus es = solvedSummaries.get(m).get(o);
-		Iterator<EscapeState> it = es.getStatus().iterator();
-		while(it.hasNext()) {
-			ConditionalValue cvv = (ConditionalValue)it.next();
-			int depth = cvv.getDepth();
-			for (int i = 0; i <= depth; i++) {
-				EscapeStatus temp = new EscapeStatus();
-				Iterator<ObjectNode> it1 = getRelevantObjects(cvv, callerMethod, m, i).iterator();
-				while(it1.hasNext()) {
-					ObjectNode object = it1.next();
-					ResolutionStatus s = resolutionStatus.get(callerMethod).get(object);
-					if(s==ResolutionStatus.UnAttempted) {
-//						System.out.print("callersolve trigger outofcontextsolve on "+o.toString()+" of "+m.toString());						
-						outOfContextSolve(object, callerMethod);
-					} 
-					s = resolutionStatus.get(callerMethod).get(object);
-					if(s==ResolutionStatus.Resolved) {
-//						System.out.println("[callersolve]"+o.toString()+"is resolved to escape. Returning.");
-						if(solvedSummaries.get(callerMethod).get(object).doesEscape()) return Escape.getInstance();
-					} else if(s==ResolutionStatus.UnResolved) {
-						temp.addEscapeState(cvv);
-					} else if(s==ResolutionStatus.InProgress) {
-//						System.out.println("[callersolve]"+o.toString()+"is inProgress. Continuing.");						
-						// imples No Escape
-					} else if(s==ResolutionStatus.CallerOnly) {
-						// implies escape
-//						System.out.println("[callersolve]"+o.toString()+"depends on it's caller. This is Escape. Returning.");
-						return Escape.getInstance();
+		/*
+		 * callerSolve(cv, o, m, callerObj, callerMethod): o of m is in
+		 * caller only mode, cv belongs to callerObj of callerMethod and is
+		 * of the form <m, <parameter,0>.f.g> or <m, <returnValue,0>.f.g>.
+		 * Solves o in the context of callerMethod. As before, only the
+		 * first CV of o is looked at.
+		 */
+		private final class CallerFrame extends Frame {
+			final ConditionalValue cv;
+			final ObjectNode o;
+			final SootMethod m;
+			final ObjectNode callerObj;
+			final SootMethod callerMethod;
+			ConditionalValue cvv;
+			int depth, i;
+			Iterator<ObjectNode> relevant;
+			boolean temp = false, higherTemp = false;
+			ObjectNode current;
+
+			CallerFrame(ConditionalValue cv, ObjectNode o, SootMethod m, ObjectNode callerObj, SootMethod callerMethod) {
+				this.cv = cv;
+				this.o = o;
+				this.m = m;
+				this.callerObj = callerObj;
+				this.callerMethod = callerMethod;
+			}
+
+			@Override
+			EscapeState step() {
+				if(relevant == null) {
+					if(callerObj==null || callerMethod==null) return cv;
+					if(resolutionStatus.get(m).get(o)!=ResolutionStatus.CallerOnly) {
+						throw new IllegalArgumentException(o.toString()+" of "+m.toString()+" is not in caller only mode!");
+					}
+					Iterator<EscapeState> it = solvedSummaries.get(m).get(o).getStatus().iterator();
+					if(!it.hasNext()) return null;
+					cvv = (ConditionalValue)it.next();
+					depth = cvv.getDepth();
+					i = 0;
+					relevant = getRelevantObjects(cvv, callerMethod, m, i).iterator();
+				}
+				if(current != null) {
+					ObjectNode object = current;
+					current = null;
+					EscapeState e = examine(object);
+					if(e != null) return e;
+				}
+				while(true) {
+					while(relevant.hasNext()) {
+						ObjectNode object = relevant.next();
+						charge();
+						if(resolutionStatus.get(callerMethod).get(object)==ResolutionStatus.UnAttempted) {
+							current = object;
+							stack.push(new SolveFrame(object, callerMethod));
+							return null;
+						}
+						EscapeState e = examine(object);
+						if(e != null) return e;
 					}
+					if(temp) higherTemp = true;
+					if(++i > depth) break;
+					temp = false;
+					relevant = getRelevantObjects(cvv, callerMethod, m, i).iterator();
 				}
-				if(temp.containsCV()) higherTemp.addEscapeState(cvv);
+				if(higherTemp) return cv;
+				else return NoEscape.getInstance();
+			}
+
+			private EscapeState examine(ObjectNode object) {
+				ResolutionStatus s = resolutionStatus.get(callerMethod).get(object);
+				if(s==ResolutionStatus.Resolved) {
+					if(solvedSummaries.get(callerMethod).get(object).doesEscape()) return Escape.getInstance();
+				} else if(s==ResolutionStatus.UnResolved) {
+					temp = true;
+				} else if(s==ResolutionStatus.InProgress) {
+					// imples No Escape
+				} else if(s==ResolutionStatus.CallerOnly) {
+					// implies escape
+					return Escape.getInstance();
+				}
+				return null;
 			}
-			if(higherTemp.containsCV()) return cv;
-			else return NoEscape.getInstance();
 		}
-//		Iterator<ObjectNode> = getRelevantObjectsFromCaller()
-		return null;
 	}
 
+	/*
+	 * The objects of cv.getMethod() that cv (<m, <parameter,0>.f.g> or
+	 * <m, <returnValue,0>.f.g>) stands for: its root objects and the
+	 * objects met at every field along the path. The walk starts from
+	 * the longest prefix of the path that is in objsCache, and the
+	 * result of every prefix it goes through is cached in turn.
+	 */
 	private Iterable<ObjectNode> getObjs(ConditionalValue cv) {
-		Iterable<ObjectNode> _ret = new LinkedHashSet<ObjectNode>();
-		Collection<ObjectNode> c = (Collection<ObjectNode>) _ret;
-		// <m, <parameter,0>.f.g> or <m,<returnValue,0>.f.g>
-		LinkedList<ObjectNode> workList = new LinkedList<ObjectNode>();
-		PointsToGraph ptg;
-		ptg = this.ptgs.get(cv.getMethod());			
-		if(ptg == null ) {
-//			System.out.println("the method of "+ cv.toString() + " doesn't have a ptg defined!");
-			return new LinkedList<ObjectNode>();
-//			throw new IllegalArgumentException("the method of "+ cv.toString() + " doesn't have a ptg defined!");
-		}
-		if(cv.object.equals(new ObjectNode(0, ObjectType.returnValue))) {
-			c.addAll(ptg.vars.get(RetLocal.getInstance()));
-		} else {
-			c.add(cv.object);
-		}
-		workList.addAll(c);
-		LinkedList<ObjectNode> temp;
-		LinkedList<ObjectNode> workListNext = new LinkedList<ObjectNode>();
-		if(cv.fieldList!=null) {
-			Iterator<SootField> i = cv.fieldList.iterator();
-			while(i.hasNext()) {
-				SootField f = i.next();
-				Iterator<ObjectNode> itr = workList.iterator();
-				while(itr.hasNext()) {
-					ObjectNode o = itr.next();
-					if(ptg.fields.containsKey(o) && ptg.fields.get(o).containsKey(f)) {
-						ptg.fields.get(o).get(f).forEach(obj -> {
-							if(!c.contains(obj)) c.add(obj);
-						});
-						workListNext.addAll(ptg.fields.get(o).get(f));
-					}
-				}
-				workList.clear();
-				temp = workListNext; workListNext = workList; workList = temp;
-			}			
+		SootMethod m = cv.getMethod();
+		PointsToGraph ptg = this.ptgs.get(m);
+		if(ptg == null) return Collections.emptyList();
+		ArrayDeque<FieldPath> missing = new ArrayDeque<>();
+		FieldPath p = (cv.fieldPath==null)? FieldPath.ROOT : cv.fieldPath;
+		Reach reach;
+		while((reach = objsCache.get(new CallKey(m, cv.object, p))) == null && p.depth > 0) {
+			missing.push(p);
+			p = p.parent;
+		}
+		if(reach == null) {
+			reach = Reach.root(ptg, cv.object);
+			objsCache.put(new CallKey(m, cv.object, FieldPath.ROOT), reach);
 		}
-		return _ret;
+		while(!missing.isEmpty()) {
+			p = missing.pop();
+			reach = reach.step(ptg, p.field);
+			objsCache.put(new CallKey(m, cv.object, p), reach);
+		}
+		return reach.objects;
 	}
 
+	/*
+	 * What a root and a field path reach in a points-to graph: every
+	 * object seen so far, in the order they were met, and the objects at
+	 * the end of the path, from which the next field is followed.
+	 */
+	private static final class Reach {
+		final List<ObjectNode> objects;
+		final List<ObjectNode> frontier;
+
+		private Reach(Collection<ObjectNode> objects, Collection<ObjectNode> frontier) {
+			this.objects = Collections.unmodifiableList(new ArrayList<>(objects));
+			this.frontier = (objects == frontier)? this.objects : new ArrayList<>(frontier);
+		}
+
+		static Reach root(PointsToGraph ptg, ObjectNode object) {
+			LinkedHashSet<ObjectNode> roots = new LinkedHashSet<>();
+			if(object.equals(ObjectNode.getInstance(0, ObjectType.returnValue))) {
+				ObjectSet returned = ptg.vars.get(RetLocal.getInstance());
+				if(returned != null) roots.addAll(returned);
+			} else {
+				roots.add(object);
+			}
+			return new Reach(roots, roots);
+		}
+
+		Reach step(PointsToGraph ptg, SootField f) {
+			LinkedHashSet<ObjectNode> all = new LinkedHashSet<>(objects);
+			LinkedHashSet<ObjectNode> next = new LinkedHashSet<>();
+			for(ObjectNode o : frontier) {
+				PersistentMap<SootField, ObjectSet> fieldMap = ptg.fields.get(o);
+				ObjectSet targets = (fieldMap == null)? null : fieldMap.get(f);
+				if(targets == null) continue;
+				all.addAll(targets);
+				next.addAll(targets);
+			}
+			return new Reach(all, next);
+		}
+	}
+
+	/*
+	 * The objects of callerMethod whose summary has a real CV on the
+	 * object of calleeMethod that cv (<caller, <arg, 0>.f.g.h> or
+	 * <caller, <returnValue, 0>.f.g.h>) stands for, with the first depth
+	 * fields of the path of cv, in the terms of compareAtDepth. A path
+	 * of cv asked for at depth 0 matches nothing.
+	 */
 	private Iterable<ObjectNode> getRelevantObjects(ConditionalValue cv, SootMethod callerMethod, SootMethod calleeMethod, int depth) {
-		Iterable<ObjectNode> list = new LinkedHashSet<>();
-		// cv can be of the form
-		// <caller, <arg, 0>.f.g.h>
-		// <caller, <returnValue, 0>.f.g.h>
 		ObjectType t = null;
 		if(cv.object.type==ObjectType.argument) {
 			t = ObjectType.parameter;
@@ -232,18 +677,75 @@ public class SummaryResolver {
 		} else {
 			throw new IllegalArgumentException("Invalid Objectype in cv:"+cv.toString());
 		}
-		ObjectNode comparison = new ObjectNode(cv.object.ref, t);
-		ConditionalValue desired = new ConditionalValue(calleeMethod, comparison, (cv.fieldList==null)?null:cv.fieldList.subList(0, depth), new Boolean(true));
-		existingSummaries.get(callerMethod).forEach((object, es) -> {
+		FieldPath path = null;
+		if(cv.fieldPath!=null) {
+			if(depth==0) return Collections.emptyList();
+			path = cv.fieldPath.prefix(depth);
+		}
+		List<ObjectNode> objects = callerIndex(callerMethod).get(new CallKey(calleeMethod, ObjectNode.getInstance(cv.object.ref, t), path));
+		return (objects==null)? Collections.<ObjectNode>emptyList() : objects;
+	}
+
+	/*
+	 * Key of the caller index and of objsCache: a callee, one of its
+	 * objects, and a field path. In the caller index null stands for
+	 * any path.
+	 */
+	private static final class CallKey {
+		final SootMethod callee;
+		final ObjectNode object;
+		final FieldPath path;
+
+		CallKey(SootMethod callee, ObjectNode object, FieldPath path) {
+			this.callee = callee;
+			this.object = object;
+			this.path = path;
+		}
+
+		@Override
+		public int hashCode() {
+			return (callee.hashCode() * 31 + object.hashCode()) * 31 + Objects.hashCode(path);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if(!(other instanceof CallKey)) return false;
+			CallKey k = (CallKey) other;
+			// objects and paths are interned
+			return callee.equals(k.callee) && object == k.object && path == k.path;
+		}
+	}
+
+	/*
+	 * Every real CV <callee, o, .f1...fn> in the summary of caller is
+	 * filed under (callee, o, any path) and under (callee, o, .f1...fi)
+	 * for every 1 <= i <= n. The objects of a key keep the order of the
+	 * summary, as the scan this replaces did. Built once per caller; the
+	 * summaries do not change during resolution.
+	 */
+	private Map<CallKey, List<ObjectNode>> callerIndex(SootMethod caller) {
+		Map<CallKey, List<ObjectNode>> index = callerIndices.get(caller);
+		if(index != null) return index;
+		Map<CallKey, LinkedHashSet<ObjectNode>> sets = new HashMap<>();
+		existingSummaries.get(caller).forEach((object, es) -> {
 			es.getStatus().forEach(e -> {
-				if(e instanceof ConditionalValue) {
-					if(desired.compareAtDepth((ConditionalValue)e, depth))
-						((LinkedHashSet<ObjectNode>)list).add(object);
+				if(!(e instanceof ConditionalValue)) return;
+				ConditionalValue cv = (ConditionalValue) e;
+				if(cv.method==null || !cv.isReal.booleanValue()) return;
+				sets.computeIfAbsent(new CallKey(cv.method, cv.object, null), k -> new LinkedHashSet<>()).add(object);
+				for(FieldPath p = cv.fieldPath; p != null && p.depth > 0; p = p.parent) {
+					sets.computeIfAbsent(new CallKey(cv.method, cv.object, p), k -> new LinkedHashSet<>()).add(object);
 				}
 			});
 		});
-		return list;
-	}	
+		index = new HashMap<>(2*sets.size());
+		for(Map.Entry<CallKey, LinkedHashSet<ObjectNode>> entry : sets.entrySet()) {
+			index.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+		}
+		Map<CallKey, List<ObjectNode>> other = callerIndices.putIfAbsent(caller, index);
+		return (other == null)? index : other;
+	}
+
 	private boolean libMethodCheck(SootMethod m) {
 		String methodName = m.getName();
 		String className = m.getDeclaringClass().getName();
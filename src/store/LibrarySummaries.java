@@ -0,0 +1,188 @@
+package store;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import es.ConditionalValue;
+import es.EscapeState;
+import es.EscapeStatus;
+import output.HashTableFile;
+import ptg.ObjectNode;
+import ptg.PointsToGraph;
+import soot.Scene;
+import soot.SootMethod;
+import utils.AnalysisOptions;
+
+/*
+ * Summaries of JDK methods, computed once by analysing the class library
+ * (stava.libraryDbOut) and read by later runs (stava.libraryDb). The
+ * handlers treat a library callee that is in the database like any
+ * other callee, and the resolver adds the summaries and exit graphs of
+ * the library methods the CVs of the program lead to.
+ *
+ * The file is mapped, not read: only the records that are asked for are
+ * decoded. It is an output.HashTableFile with magic "STVL", keyed by
+ * method signature. The extra header is the identity of the JDK the
+ * summaries were computed from, see jdk(); a file made from another JDK
+ * is not used. The value of an entry is
+ *   int length, a SummaryCodec record.
+ */
+public class LibrarySummaries {
+	private static final int MAGIC = 0x5354564c; // "STVL"
+	private static final int VERSION = 2;
+	// length of the JDK identity, a SHA-256
+	private static final int IDENTITY = 32;
+
+	private static LibrarySummaries instance;
+	private static boolean opened = false;
+	private static byte[] jdk;
+
+	private final HashTableFile file;
+	private final ByteBuffer buffer;
+	// whether the database has a method, asked on every library call
+	private final Map<SootMethod, Boolean> known = new ConcurrentHashMap<>();
+
+	private LibrarySummaries(ByteBuffer buffer) throws IOException {
+		this.file = new HashTableFile(buffer, MAGIC, VERSION, IDENTITY, "library summary file");
+		this.buffer = buffer;
+		if(!Arrays.equals(file.extra(), jdk())) throw new IOException("Summaries of another JDK than the one on the class path");
+	}
+
+	/*
+	 * The database of stava.libraryDb, mapped on first use. Null when the
+	 * option is not set or the file cannot be used.
+	 */
+	public static synchronized LibrarySummaries get() {
+		if(!opened) {
+			opened = true;
+			if(AnalysisOptions.libraryDb != null) {
+				Path file = Paths.get(AnalysisOptions.libraryDb);
+				try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+					// a mapping stays valid once its channel is closed
+					instance = new LibrarySummaries(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+					System.out.println("Library summaries: "+instance.file.size()+" method(s) in "+file);
+				} catch (IOException e) {
+					System.out.println("Unable to use the library summaries in "+file+": "+e.getMessage());
+				}
+			}
+		}
+		return instance;
+	}
+
+	/*
+	 * Whether a call to the library method m is treated like a call to
+	 * an application method, with CVs on m: m is in the database, or the
+	 * database is being built and the library is what is analysed.
+	 */
+	public static boolean covers(SootMethod m) {
+		if(AnalysisOptions.libraryDbOut != null) return true;
+		LibrarySummaries db = get();
+		return db != null && db.known.computeIfAbsent(m, k -> db.file.find(k.getSignature()) >= 0);
+	}
+
+	/*
+	 * Adds to summaries and ptgs the library methods named by the CVs in
+	 * summaries, then those named by the CVs of the added ones, and so
+	 * on. A method whose record does not decode against the Scene is
+	 * left out. Returns the number of methods added.
+	 */
+	public int addReachable(Map<SootMethod, HashMap<ObjectNode, EscapeStatus>> summaries,
+			Map<SootMethod, PointsToGraph> ptgs) {
+		ArrayDeque<SootMethod> work = new ArrayDeque<>();
+		summaries.values().forEach(s -> callees(s, work));
+		int added = 0;
+		while(!work.isEmpty()) {
+			SootMethod m = work.poll();
+			if(summaries.containsKey(m) || !m.isJavaLibraryMethod()) continue;
+			int entry = file.find(m.getSignature());
+			if(entry < 0) continue;
+			HashMap<ObjectNode, EscapeStatus> summary = new HashMap<>();
+			try {
+				byte[] record = new byte[buffer.getInt(entry)];
+				for(int i = 0; i < record.length; i++) record[i] = buffer.get(entry + 4 + i);
+				ptgs.put(m, SummaryCodec.read(new DataInputStream(new ByteArrayInputStream(record)), summary));
+			} catch (IOException | RuntimeException e) {
+				continue;
+			}
+			summaries.put(m, summary);
+			callees(summary, work);
+			added++;
+		}
+		return added;
+	}
+
+	private static void callees(HashMap<ObjectNode, EscapeStatus> summary, ArrayDeque<SootMethod> work) {
+		for(EscapeStatus es : summary.values()) {
+			for(EscapeState e : es.getStatus()) {
+				if(e instanceof ConditionalValue && ((ConditionalValue) e).getMethod() != null) {
+					work.add(((ConditionalValue) e).getMethod());
+				}
+			}
+		}
+	}
+
+	/*
+	 * The identity of the JDK being analysed: the SHA-256 of the first
+	 * rt.jar (lib/modules on a modular JDK) on the soot class path, all
+	 * zeros when there is none.
+	 */
+	private static synchronized byte[] jdk() {
+		if(jdk == null) {
+			jdk = new byte[IDENTITY];
+			for(String entry : Scene.v().getSootClassPath().split(File.pathSeparator)) {
+				File f = new File(entry);
+				if((f.getName().equals("rt.jar") || f.getName().equals("modules")) && f.isFile()) {
+					try(InputStream in = Files.newInputStream(f.toPath())) {
+						jdk = SummaryStore.digest(in);
+					} catch (IOException e) {
+						System.out.println("Unable to hash "+f+": "+e.getMessage());
+					}
+					break;
+				}
+			}
+		}
+		return jdk;
+	}
+
+	/*
+	 * Writes the summaries and exit graphs of the library methods among
+	 * summaries to file, replacing it. Returns the number of methods
+	 * written.
+	 */
+	public static int write(Map<SootMethod, PointsToGraph> ptgs,
+			Map<SootMethod, HashMap<ObjectNode, EscapeStatus>> summaries, Path file) throws IOException {
+		List<SootMethod> methods = new ArrayList<>();
+		for(SootMethod m : summaries.keySet()) {
+			if(m.isJavaLibraryMethod()) methods.add(m);
+		}
+		methods.sort((a, b) -> a.getSignature().compareTo(b.getSignature()));
+		try(HashTableFile.Writer w = new HashTableFile.Writer(file, MAGIC, VERSION, jdk(), methods.size())) {
+			for(SootMethod m : methods) {
+				ByteArrayOutputStream record = new ByteArrayOutputStream();
+				SummaryCodec.write(new DataOutputStream(record), summaries.get(m), ptgs.get(m));
+				DataOutputStream out = w.entry(m.getSignature());
+				out.writeInt(record.size());
+				record.writeTo(out);
+			}
+		}
+		return methods.size();
+	}
+}
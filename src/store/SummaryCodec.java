@@ -0,0 +1,217 @@
+package store;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import es.ConditionalValue;
+import es.Escape;
+import es.EscapeState;
+import es.EscapeStatus;
+import es.FieldPath;
+import es.NoEscape;
+import ptg.ObjectNode;
+import ptg.ObjectSet;
+import ptg.ObjectType;
+import ptg.PersistentMap;
+import ptg.PointsToGraph;
+import ptg.RetLocal;
+import soot.Scene;
+import soot.SootField;
+import soot.SootMethod;
+
+/*
+ * Binary form of the result of one method: its summary and the part of
+ * its exit points-to graph that later phases read, i.e. the returned
+ * objects and the field edges. Locals other than the return value are
+ * dropped, they mean nothing outside the body.
+ *
+ * Methods and fields are written as their signatures. Every signature
+ * is spelled out the first time a record uses it and referred to by
+ * number afterwards, so a record can be decoded on its own. Decoding
+ * looks the signatures up in the Scene; a record naming a method or a
+ * field the Scene does not have is rejected with an IOException.
+ */
+public class SummaryCodec {
+
+	private static final byte ESCAPE = 1;
+	private static final byte NOESCAPE = 2;
+
+	private final Map<String, Integer> written = new HashMap<>();
+	private final List<String> read = new ArrayList<>();
+
+	private SummaryCodec() {
+	}
+
+	public static void write(DataOutputStream out, HashMap<ObjectNode, EscapeStatus> summary,
+			PointsToGraph ptg) throws IOException {
+		SummaryCodec c = new SummaryCodec();
+		c.encodeSummary(out, summary);
+		ObjectSet returned = (ptg == null)? null : ptg.vars.get(RetLocal.getInstance());
+		writeSet(out, (returned == null)? ObjectSet.empty() : returned);
+		if(ptg == null) {
+			out.writeInt(0);
+			return;
+		}
+		out.writeInt(ptg.fields.size());
+		for(Map.Entry<ObjectNode, PersistentMap<SootField, ObjectSet>> e : ptg.fields.entrySet()) {
+			writeNode(out, e.getKey());
+			out.writeInt(e.getValue().size());
+			for(Map.Entry<SootField, ObjectSet> f : e.getValue().entrySet()) {
+				c.writeString(out, f.getKey().getSignature());
+				writeSet(out, f.getValue());
+			}
+		}
+	}
+
+	/*
+	 * Reads a record written by write into summary and returns the graph.
+	 */
+	public static PointsToGraph read(DataInputStream in, HashMap<ObjectNode, EscapeStatus> summary) throws IOException {
+		SummaryCodec c = new SummaryCodec();
+		c.decodeSummary(in, summary);
+		PointsToGraph ptg = new PointsToGraph();
+		ObjectSet returned = readSet(in);
+		if(!returned.isEmpty()) ptg.vars = ptg.vars.plus(RetLocal.getInstance(), returned);
+		int n = in.readInt();
+		for(int i = 0; i < n; i++) {
+			ObjectNode obj = readNode(in);
+			int m = in.readInt();
+			PersistentMap<SootField, ObjectSet> fieldMap = PersistentMap.empty();
+			for(int j = 0; j < m; j++) {
+				fieldMap = fieldMap.plus(c.readField(in), readSet(in));
+			}
+			ptg.fields = ptg.fields.plus(obj, fieldMap);
+		}
+		return ptg;
+	}
+
+	/*
+	 * A summary on its own, e.g. a resolved one.
+	 */
+	public static void writeSummary(DataOutputStream out, Map<ObjectNode, EscapeStatus> summary) throws IOException {
+		new SummaryCodec().encodeSummary(out, summary);
+	}
+
+	public static void readSummary(DataInputStream in, Map<ObjectNode, EscapeStatus> summary) throws IOException {
+		new SummaryCodec().decodeSummary(in, summary);
+	}
+
+	private void encodeSummary(DataOutputStream out, Map<ObjectNode, EscapeStatus> summary) throws IOException {
+		out.writeInt(summary.size());
+		for(Map.Entry<ObjectNode, EscapeStatus> e : summary.entrySet()) {
+			writeNode(out, e.getKey());
+			writeStatus(out, e.getValue());
+		}
+	}
+
+	private void decodeSummary(DataInputStream in, Map<ObjectNode, EscapeStatus> summary) throws IOException {
+		int n = in.readInt();
+		for(int i = 0; i < n; i++) {
+			ObjectNode obj = readNode(in);
+			summary.put(obj, readStatus(in));
+		}
+	}
+
+	private void writeStatus(DataOutputStream out, EscapeStatus es) throws IOException {
+		byte flags = 0;
+		if(es.doesEscape()) flags |= ESCAPE;
+		if(es.containsNoEscape()) flags |= NOESCAPE;
+		List<ConditionalValue> cvs = new ArrayList<>();
+		for(EscapeState e : es.getStatus()) {
+			if(e instanceof ConditionalValue) cvs.add((ConditionalValue) e);
+		}
+		out.writeByte(flags);
+		out.writeInt(cvs.size());
+		for(ConditionalValue cv : cvs) {
+			out.writeBoolean(cv.method != null);
+			if(cv.method != null) writeString(out, cv.method.getSignature());
+			writeNode(out, cv.object);
+			out.writeInt((cv.fieldPath == null)? -1 : cv.fieldPath.depth);
+			if(cv.fieldPath != null) {
+				for(SootField f : cv.fieldPath) writeString(out, f.getSignature());
+			}
+			out.writeBoolean(cv.isReal.booleanValue());
+		}
+	}
+
+	private EscapeStatus readStatus(DataInputStream in) throws IOException {
+		byte flags = in.readByte();
+		List<EscapeState> states = new ArrayList<>();
+		if((flags & ESCAPE) != 0) states.add(Escape.getInstance());
+		if((flags & NOESCAPE) != 0) states.add(NoEscape.getInstance());
+		int n = in.readInt();
+		for(int i = 0; i < n; i++) {
+			SootMethod m = null;
+			if(in.readBoolean()) {
+				String sig = readString(in);
+				m = Scene.v().grabMethod(sig);
+				if(m == null) throw new IOException("No method "+sig+" in the Scene");
+			}
+			ObjectNode obj = readNode(in);
+			int depth = in.readInt();
+			FieldPath path = (depth < 0)? null : FieldPath.ROOT;
+			for(int d = 0; d < depth; d++) path = path.append(readField(in));
+			states.add(ConditionalValue.getInstance(m, obj, path, in.readBoolean()));
+		}
+		EscapeStatus es = new EscapeStatus();
+		es.setStatus(states);
+		return es;
+	}
+
+	private SootField readField(DataInputStream in) throws IOException {
+		String sig = readString(in);
+		SootField f = Scene.v().grabField(sig);
+		if(f == null) throw new IOException("No field "+sig+" in the Scene");
+		return f;
+	}
+
+	private void writeString(DataOutputStream out, String s) throws IOException {
+		Integer index = written.get(s);
+		if(index != null) {
+			out.writeInt(index);
+			return;
+		}
+		written.put(s, written.size());
+		out.writeInt(-1);
+		out.writeUTF(s);
+	}
+
+	private String readString(DataInputStream in) throws IOException {
+		int index = in.readInt();
+		if(index >= 0) {
+			if(index >= read.size()) throw new IOException("Bad string reference "+index);
+			return read.get(index);
+		}
+		String s = in.readUTF();
+		read.add(s);
+		return s;
+	}
+
+	public static void writeNode(DataOutputStream out, ObjectNode obj) throws IOException {
+		out.writeByte(obj.type.ordinal());
+		out.writeInt(obj.ref);
+	}
+
+	public static ObjectNode readNode(DataInputStream in) throws IOException {
+		int type = in.readByte();
+		if(type < 0 || type >= ObjectType.values().length) throw new IOException("Bad object type "+type);
+		return ObjectNode.getInstance(in.readInt(), ObjectType.values()[type]);
+	}
+
+	private static void writeSet(DataOutputStream out, ObjectSet set) throws IOException {
+		out.writeInt(set.size());
+		for(ObjectNode obj : set) writeNode(out, obj);
+	}
+
+	private static ObjectSet readSet(DataInputStream in) throws IOException {
+		int n = in.readInt();
+		List<ObjectNode> objects = new ArrayList<>(n);
+		for(int i = 0; i < n; i++) objects.add(readNode(in));
+		return ObjectSet.from(objects);
+	}
+}
@@ -0,0 +1,398 @@
+package store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import es.EscapeStatus;
+import ptg.ObjectNode;
+import ptg.PointsToGraph;
+import soot.Body;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.Stmt;
+import soot.jimple.internal.JAssignStmt;
+import soot.jimple.internal.JNewExpr;
+import soot.options.Options;
+import utils.AnalysisOptions;
+import utils.Fallbacks;
+
+/*
+ * Results of earlier runs, one file per class in a directory:
+ * <dir>/<class name>.sum holds the SHA-256 of the class file the
+ * results were computed from, a fingerprint of the options and class
+ * path of the run, and a SummaryCodec record per method.
+ *
+ * A method's summary and exit graph depend on its body, and also on
+ * the classes its analysis consults: the classes it allocates, with
+ * their superclasses and interfaces (ClassFacts), and the classes its
+ * calls are resolved in, with their superclasses. Each record lists
+ * those classes with the hashes of their class files, and is only used
+ * while all of them, the method's own class and the fingerprint are
+ * unchanged. A consulted class without a class file in the process
+ * dirs (a library class) is covered by the class path in the
+ * fingerprint.
+ *
+ * Class files are looked up in the -process-dir entries (directories
+ * or jars). A class that is not found there is never stored. A file
+ * that cannot be read, or a record that does not decode against the
+ * current Scene, is treated as absent and the method is analysed.
+ */
+public class SummaryStore {
+	private static final int MAGIC = 0x53545653; // "STVS"
+	// bump whenever the analysis or the record format changes
+	private static final int VERSION = 2;
+
+	private final Path dir;
+	// class name -> hash of its class file, a null value when it has none
+	private final Map<String, Hash> hashes = new ConcurrentHashMap<>();
+	// class name -> stored records, by method signature
+	private final Map<String, Map<String, Stored>> stored = new ConcurrentHashMap<>();
+	// method -> names of the classes its analysis consulted, see consults
+	private final Map<SootMethod, String[]> consulted = new ConcurrentHashMap<>();
+	private String fingerprint;
+	private Map<String, ZipFile> jars;
+	// class name -> number of methods in the file last written for it
+	private final Map<String, Integer> written = new HashMap<>();
+	private int restored = 0;
+
+	private static final class Hash {
+		final byte[] value;
+
+		Hash(byte[] value) {
+			this.value = value;
+		}
+	}
+
+	private static final class Stored {
+		// consulted class -> hash of its class file then, null for none
+		final Map<String, byte[]> classes;
+		final byte[] record;
+
+		Stored(Map<String, byte[]> classes, byte[] record) {
+			this.classes = classes;
+			this.record = record;
+		}
+	}
+
+	public SummaryStore(Path dir) {
+		this.dir = dir;
+	}
+
+	/*
+	 * Puts the stored results of m into ptgs and summaries if its class
+	 * is unchanged. Called on the soot thread.
+	 */
+	public boolean restore(SootMethod m, Map<SootMethod, PointsToGraph> ptgs,
+			Map<SootMethod, HashMap<ObjectNode, EscapeStatus>> summaries) {
+		String cls = m.getDeclaringClass().getName();
+		Stored stored = records(cls).get(m.getSignature());
+		if(stored == null) return false;
+		for(Map.Entry<String, byte[]> e : stored.classes.entrySet()) {
+			Hash h = hash(e.getKey());
+			if(!Arrays.equals((h == null)? null : h.value, e.getValue())) return false;
+		}
+		HashMap<ObjectNode, EscapeStatus> summary = new HashMap<>();
+		PointsToGraph ptg;
+		try {
+			ptg = SummaryCodec.read(new DataInputStream(new ByteArrayInputStream(stored.record)), summary);
+		} catch (IOException | RuntimeException e) {
+			// e.g. a CV on a library method the current options do not cover
+			System.out.println("Stored summary of "+m.getSignature()+" not used: "+e.getMessage());
+			return false;
+		}
+		ptgs.put(m, ptg);
+		summaries.put(m, summary);
+		consulted.put(m, stored.classes.keySet().toArray(new String[0]));
+		restored++;
+		return true;
+	}
+
+	/*
+	 * Notes the classes the analysis of body consults, see above. Called
+	 * on the soot thread before body is analysed. A method whose classes
+	 * cannot be told is not stored.
+	 */
+	public void consults(Body body) {
+		Set<String> classes = new TreeSet<>();
+		try {
+			collect(body, classes);
+		} catch (RuntimeException e) {
+			return;
+		}
+		consulted.put(body.getMethod(), classes.toArray(new String[0]));
+	}
+
+	private static void collect(Body body, Set<String> classes) {
+		for(Unit u : body.getUnits()) {
+			Stmt s = (Stmt) u;
+			if(s.containsInvokeExpr()) {
+				for(SootClass c = s.getInvokeExpr().getMethodRef().getDeclaringClass(); c != null; c = c.hasSuperclass()? c.getSuperclass() : null) {
+					classes.add(c.getName());
+				}
+			}
+			if(u instanceof JAssignStmt && ((JAssignStmt) u).getRightOp() instanceof JNewExpr) {
+				addHierarchy(((JNewExpr) ((JAssignStmt) u).getRightOp()).getBaseType().getSootClass(), classes);
+			}
+		}
+	}
+
+	private static void addHierarchy(SootClass c, Set<String> classes) {
+		for(; c != null && classes.add(c.getName()); c = c.hasSuperclass()? c.getSuperclass() : null) {
+			for(SootClass i : c.getInterfaces()) addHierarchy(i, classes);
+		}
+	}
+
+	/*
+	 * Writes the results of every method whose class file was found and
+	 * whose consulted classes are known, one file per class, except the
+	 * fallback results of Fallbacks. A file is written next to its final
+	 * name and then moved over it, so an interrupted run leaves every file either
+	 * as it was or complete. Only classes that have gained methods since
+	 * the last save are written again, so saving while the analysis is
+	 * running (a checkpoint) costs in proportion to what is new.
+	 */
+	public synchronized void save(Map<SootMethod, PointsToGraph> ptgs,
+			Map<SootMethod, HashMap<ObjectNode, EscapeStatus>> summaries) throws IOException {
+		Map<String, TreeMap<String, SootMethod>> byClass = new TreeMap<>();
+		for(SootMethod m : summaries.keySet()) {
+			if(!consulted.containsKey(m) || Fallbacks.contains(m)) continue;
+			byClass.computeIfAbsent(m.getDeclaringClass().getName(), k -> new TreeMap<>()).put(m.getSignature(), m);
+		}
+		Files.createDirectories(dir);
+		for(Map.Entry<String, TreeMap<String, SootMethod>> e : byClass.entrySet()) {
+			if(Integer.valueOf(e.getValue().size()).equals(written.get(e.getKey()))) continue;
+			Hash hash = hash(e.getKey());
+			if(hash == null) continue;
+			Path file = file(e.getKey());
+			Path temp = file.resolveSibling(file.getFileName()+".tmp");
+			try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				writeHash(out, hash.value);
+				out.writeUTF(fingerprint());
+				out.writeInt(e.getValue().size());
+				for(SootMethod m : e.getValue().values()) {
+					ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+					SummaryCodec.write(new DataOutputStream(bytes), summaries.get(m), ptgs.get(m));
+					out.writeUTF(m.getSignature());
+					String[] classes = consulted.get(m);
+					out.writeInt(classes.length);
+					for(String c : classes) {
+						Hash h = hash(c);
+						out.writeUTF(c);
+						writeHash(out, (h == null)? null : h.value);
+					}
+					out.writeInt(bytes.size());
+					bytes.writeTo(out);
+				}
+			}
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			written.put(e.getKey(), e.getValue().size());
+		}
+	}
+
+	/*
+	 * Releases the jars opened to hash class files. Call once the last
+	 * save is done.
+	 */
+	public void close() {
+		closeJars();
+	}
+
+	public int getRestored() {
+		return restored;
+	}
+
+	/*
+	 * Number of methods in the files written so far.
+	 */
+	public synchronized int getSaved() {
+		int saved = 0;
+		for(int n : written.values()) saved += n;
+		return saved;
+	}
+
+	private Path file(String cls) {
+		return dir.resolve(cls+".sum");
+	}
+
+	/*
+	 * The records stored for cls, empty when there are none, the class
+	 * file has changed since, or cls is listed in stava.changed.
+	 */
+	private Map<String, Stored> records(String cls) {
+		Map<String, Stored> records = stored.get(cls);
+		if(records != null) return records;
+		records = new HashMap<>();
+		Hash hash = hash(cls);
+		Path file = file(cls);
+		if(hash != null && !AnalysisOptions.changed.contains(cls) && Files.isRegularFile(file)) {
+			try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+				if(in.readInt() == MAGIC && in.readInt() == VERSION
+						&& Arrays.equals(readHash(in), hash.value) && in.readUTF().equals(fingerprint())) {
+					int n = in.readInt();
+					for(int i = 0; i < n; i++) {
+						String sig = in.readUTF();
+						Map<String, byte[]> classes = new HashMap<>();
+						int k = in.readInt();
+						for(int j = 0; j < k; j++) {
+							String c = in.readUTF();
+							classes.put(c, readHash(in));
+						}
+						byte[] record = new byte[in.readInt()];
+						in.readFully(record);
+						records.put(sig, new Stored(classes, record));
+					}
+				}
+			} catch (IOException | RuntimeException e) {
+				// e.g. a truncated file, or a negative length
+				System.out.println("Unable to read stored summaries from "+file);
+				records.clear();
+			}
+		}
+		stored.put(cls, records);
+		return records;
+	}
+
+	/*
+	 * What the results depend on besides classes: the options that
+	 * change the analysis of a body, and the class path the library
+	 * classes come from.
+	 */
+	private synchronized String fingerprint() {
+		if(fingerprint == null) {
+			StringBuilder sb = new StringBuilder();
+			sb.append("classpath=").append(Scene.v().getSootClassPath());
+			sb.append(";libraryDbOut=").append(AnalysisOptions.libraryDbOut != null);
+			sb.append(";finalizerEscapes=").append(AnalysisOptions.finalizerEscapes);
+			sb.append(";libraryDb=");
+			if(AnalysisOptions.libraryDb != null) {
+				Path db = Paths.get(AnalysisOptions.libraryDb);
+				sb.append(db.toAbsolutePath());
+				try {
+					sb.append(':').append(Files.size(db)).append(':').append(Files.getLastModifiedTime(db).toMillis());
+				} catch (IOException e) {
+					sb.append(":missing");
+				}
+			}
+			fingerprint = sb.toString();
+		}
+		return fingerprint;
+	}
+
+	private static void writeHash(DataOutputStream out, byte[] hash) throws IOException {
+		if(hash == null) {
+			out.writeInt(-1);
+			return;
+		}
+		out.writeInt(hash.length);
+		out.write(hash);
+	}
+
+	private static byte[] readHash(DataInputStream in) throws IOException {
+		int n = in.readInt();
+		if(n < 0) return null;
+		byte[] hash = new byte[n];
+		in.readFully(hash);
+		return hash;
+	}
+
+	private Hash hash(String cls) {
+		Hash h = hashes.get(cls);
+		if(h == null) {
+			h = new Hash(classFileHash(cls));
+			hashes.put(cls, h);
+		}
+		return (h.value == null)? null : h;
+	}
+
+	private byte[] classFileHash(String cls) {
+		String entry = cls.replace('.', '/')+".class";
+		List<String> dirs = Options.v().process_dir();
+		for(String d : dirs) {
+			File f = new File(d);
+			try {
+				if(f.isDirectory()) {
+					Path p = Paths.get(d, entry);
+					if(Files.isRegularFile(p)) {
+						try(InputStream in = Files.newInputStream(p)) {
+							return digest(in);
+						}
+					}
+				} else if(f.isFile()) {
+					ZipFile jar = jar(d);
+					ZipEntry z = jar.getEntry(entry);
+					if(z != null) {
+						try(InputStream in = jar.getInputStream(z)) {
+							return digest(in);
+						}
+					}
+				}
+			} catch (IOException e) {
+				System.out.println("Unable to hash the class file of "+cls+" in "+d);
+				return null;
+			}
+		}
+		return null;
+	}
+
+	private synchronized ZipFile jar(String path) throws IOException {
+		if(jars == null) jars = new HashMap<>();
+		ZipFile jar = jars.get(path);
+		if(jar == null) {
+			jar = new ZipFile(path);
+			jars.put(path, jar);
+		}
+		return jar;
+	}
+
+	private synchronized void closeJars() {
+		if(jars == null) return;
+		for(ZipFile jar : jars.values()) {
+			try {
+				jar.close();
+			} catch (IOException e) {
+				// nothing left to read from it
+			}
+		}
+		jars = null;
+	}
+
+	static byte[] digest(InputStream in) throws IOException {
+		MessageDigest md;
+		try {
+			md = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		byte[] buffer = new byte[8192];
+		int n;
+		while((n = in.read(buffer)) > 0) md.update(buffer, 0, n);
+		return md.digest();
+	}
+}
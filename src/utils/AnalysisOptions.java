@@ -0,0 +1,127 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Switches for the analysis. Every option is read from a system
+ * property (e.g. -Dstava.parallel=true) so that the positional
+ * arguments understood by GetSootArgs stay as they are.
+ */
+public class AnalysisOptions {
+	/*
+	 * Analyse method bodies on a work-stealing pool instead of the
+	 * thread that runs the soot packs, and resolve independent
+	 * components of the summary graph side by side.
+	 */
+	public static boolean parallel = Boolean.getBoolean("stava.parallel");
+
+	/*
+	 * Number of workers used by the parallel modes.
+	 */
+	public static int threads = Integer.getInteger("stava.threads", Runtime.getRuntime().availableProcessors());
+
+	/*
+	 * Revisit units with only the edges that reached them since their
+	 * last visit instead of the whole in-graph.
+	 */
+	public static boolean delta = Boolean.getBoolean("stava.delta");
+
+	/*
+	 * Keep points-to graphs per basic block instead of per unit.
+	 * Takes precedence over delta.
+	 */
+	public static boolean blocks = Boolean.getBoolean("stava.blocks");
+
+	/*
+	 * Units of work (objects and CVs examined) the resolver may spend on
+	 * one object together with the objects it pulls in, and on the whole
+	 * resolution. The objects still open when a budget runs out are set
+	 * to Escape. Zero or less means no limit.
+	 */
+	public static long resolverObjectBudget = Long.getLong("stava.resolverObjectBudget", 0);
+	public static long resolverBudget = Long.getLong("stava.resolverBudget", 0);
+
+	/*
+	 * Number of (method, object, field path) walks the resolver keeps
+	 * in its getObjs cache.
+	 */
+	public static int objsCacheSize = Integer.getInteger("stava.objsCacheSize", 1 << 16);
+
+	/*
+	 * Directory of the summary store. Methods of a class whose class
+	 * file is unchanged since the last run are not analysed again but
+	 * read from there. Off when not set.
+	 */
+	public static String summaryStore = System.getProperty("stava.summaryStore");
+
+	/*
+	 * Classes (comma separated names) to analyse again even though the
+	 * summary store holds results for their class files.
+	 */
+	public static List<String> changed = Arrays.asList(System.getProperty("stava.changed", "").split(","));
+
+	/*
+	 * Treat instances of classes with a finalizer as escaping when they
+	 * are allocated: the finalizer thread gets them.
+	 */
+	public static boolean finalizerEscapes = Boolean.getBoolean("stava.finalizerEscapes");
+
+	/*
+	 * Directory to write <class>.res to, the NoEscape objects of the
+	 * methods of each class, as soon as all of them are analysed. Off
+	 * when not set.
+	 */
+	public static String resultDir = System.getProperty("stava.resultDir");
+
+	/*
+	 * File to write the cost of analysing every method to, as JSON if
+	 * its name ends in .json and as CSV otherwise. The telemetryTop
+	 * slowest methods are also printed. Off when not set.
+	 */
+	public static String telemetry = System.getProperty("stava.telemetry");
+	public static int telemetryTop = Integer.getInteger("stava.telemetryTop", 20);
+
+	/*
+	 * Limits on the fixpoint of one method: worklist sweeps, unit (or
+	 * block) visits, entries of the largest graph, and wall time. A
+	 * method that goes over one is not analysed further, its objects
+	 * are set to Escape. Zero or less means no limit.
+	 */
+	public static int maxSweeps = Integer.getInteger("stava.maxSweeps", 0);
+	public static long maxVisits = Long.getLong("stava.maxVisits", 0);
+	public static int maxGraph = Integer.getInteger("stava.maxGraph", 0);
+	public static long maxMillis = Long.getLong("stava.maxMillis", 0);
+
+	/*
+	 * A method whose analysis throws is given conservative results and
+	 * the run goes on. Set this to stop at the first failure instead.
+	 */
+	public static boolean failFast = Boolean.getBoolean("stava.failFast");
+
+	/*
+	 * Seconds between two writes of the summary store while the analysis
+	 * runs. A run that is interrupted resumes from the last one when
+	 * started again with the same store. Off when zero or less, needs
+	 * summaryStore.
+	 */
+	public static long checkpointEvery = Long.getLong("stava.checkpointEvery", 0);
+
+	/*
+	 * Library summary database (see store.LibrarySummaries) to read, and
+	 * to write the summaries of the analysed library methods to. Off
+	 * when not set.
+	 */
+	public static String libraryDb = System.getProperty("stava.libraryDb");
+	public static String libraryDbOut = System.getProperty("stava.libraryDbOut");
+
+	/*
+	 * Analyse the methods callees first, one strongly connected component
+	 * of the call graph at a time, after soot has handed over every body.
+	 * Call sites then use the final summaries of the callees outside their
+	 * own component (see handlers.CalleeSummaries), so fewer CVs are made
+	 * and left to the resolver. The methods are analysed on one thread and
+	 * the summary store is not used.
+	 */
+	public static boolean bottomUp = Boolean.getBoolean("stava.bottomUp");
+}
@@ -0,0 +1,67 @@
+package utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * A map that keeps at most capacity entries and drops the least
+ * recently used one to make room. It counts hits, misses and evictions
+ * so that its use can be reported. All methods are synchronized; the
+ * values are expected to be immutable once they are put.
+ */
+public class BoundedCache<K,V> {
+	private final LinkedHashMap<K,V> map;
+	private long hits, misses, evictions;
+
+	public BoundedCache(final int capacity) {
+		map = new LinkedHashMap<K,V>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K,V> eldest) {
+				if(size() <= capacity) return false;
+				evictions++;
+				return true;
+			}
+		};
+	}
+
+	/*
+	 * The value of key, or null; counts as a hit or a miss.
+	 */
+	public synchronized V get(K key) {
+		V value = map.get(key);
+		if(value == null) misses++;
+		else hits++;
+		return value;
+	}
+
+	public synchronized void put(K key, V value) {
+		map.put(key, value);
+	}
+
+	public synchronized void clear() {
+		map.clear();
+		hits = misses = evictions = 0;
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	@Override
+	public synchronized String toString() {
+		long lookups = hits + misses;
+		double rate = (lookups == 0)? 0 : hits*100.0/lookups;
+		return String.format("%d hits, %d misses (%.2f%% hit rate), %d evictions, %d entries",
+				hits, misses, rate, evictions, map.size());
+	}
+}
@@ -0,0 +1,159 @@
+package utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+
+/*
+ * Facts about the classes of the Scene that the handlers ask for again
+ * on every visit of a statement: whether instances are runnable by a
+ * thread, whether they have a finalizer, and which classes extend or
+ * implement a class (for the targets of virtual calls). build()
+ * computes them once per class, on the soot thread, before the
+ * analysis; after that an allocation or a call site costs a map
+ * lookup. A class that is added to the Scene later, or was not resolved
+ * far enough then, is computed when first asked for.
+ */
+public class ClassFacts {
+	private static final int MULTITHREADED = 1, FINALIZER = 2;
+	private static final String FINALIZE = "void finalize()";
+
+	private static final Map<SootClass, Integer> flags = new ConcurrentHashMap<>();
+	// class -> the classes that extend or implement it directly
+	private static final Map<SootClass, List<SootClass>> subtypes = new ConcurrentHashMap<>();
+	// method -> the concrete methods a virtual call to it may run
+	private static final Map<SootMethod, List<SootMethod>> targets = new ConcurrentHashMap<>();
+	private static volatile boolean built = false;
+
+	/*
+	 * Computes the facts of every class in the Scene whose hierarchy is
+	 * resolved. Call on the soot thread once the classes are loaded;
+	 * later calls do nothing.
+	 */
+	public static synchronized void build() {
+		if(built) return;
+		Map<SootClass, List<SootClass>> subs = new HashMap<>();
+		for(SootClass c : new ArrayList<>(Scene.v().getClasses())) {
+			if(c.resolvingLevel() < SootClass.HIERARCHY) continue;
+			flags.put(c, compute(c));
+			if(c.hasSuperclass()) subs.computeIfAbsent(c.getSuperclass(), k -> new ArrayList<>()).add(c);
+			for(SootClass i : c.getInterfaces()) subs.computeIfAbsent(i, k -> new ArrayList<>()).add(c);
+		}
+		subtypes.putAll(subs);
+		built = true;
+	}
+
+	public static synchronized void clear() {
+		flags.clear();
+		subtypes.clear();
+		targets.clear();
+		built = false;
+	}
+
+	/*
+	 * Instances of a Runnable escape as soon as they are allocated: a
+	 * thread may run them. With stava.finalizerEscapes, so do instances
+	 * of a class with a finalizer, which the finalizer thread gets.
+	 */
+	public static boolean escapesOnAllocation(SootClass c) {
+		int f = flags(c);
+		return (f & MULTITHREADED) != 0 || (AnalysisOptions.finalizerEscapes && (f & FINALIZER) != 0);
+	}
+
+	public static boolean isMultiThreaded(SootClass c) {
+		return (flags(c) & MULTITHREADED) != 0;
+	}
+
+	/*
+	 * Whether c or a superclass below Object declares finalize().
+	 */
+	public static boolean hasFinalizer(SootClass c) {
+		return (flags(c) & FINALIZER) != 0;
+	}
+
+	/*
+	 * The concrete methods a virtual or interface call to m may run: m
+	 * itself unless it is abstract, and for every concrete class that
+	 * extends or implements the class of m, the method its instances
+	 * run, see implementations.
+	 */
+	public static List<SootMethod> targets(SootMethod m) {
+		return targets.computeIfAbsent(m, ClassFacts::dispatch);
+	}
+
+	private static int flags(SootClass c) {
+		Integer f = flags.get(c);
+		if(f == null) {
+			f = compute(c);
+			flags.put(c, f);
+		}
+		return f;
+	}
+
+	private static int compute(SootClass c) {
+		int f = IsMultiThreadedClass.check(c)? MULTITHREADED : 0;
+		for(SootClass k = c; k != null && !k.getName().equals("java.lang.Object"); k = k.hasSuperclass()? k.getSuperclass() : null) {
+			// the methods of a class below SIGNATURES are not known
+			if(k.resolvingLevel() >= SootClass.SIGNATURES && k.declaresMethod(FINALIZE)) return f | FINALIZER;
+		}
+		return f;
+	}
+
+	private static List<SootMethod> dispatch(SootMethod m) {
+		if(m.isStatic()) return Collections.singletonList(m);
+		Set<SootMethod> result = new LinkedHashSet<>();
+		if(!m.isAbstract()) result.add(m);
+		String sub = m.getSubSignature();
+		Set<SootClass> seen = new HashSet<>();
+		ArrayDeque<SootClass> work = new ArrayDeque<>();
+		work.add(m.getDeclaringClass());
+		while(!work.isEmpty()) {
+			SootClass c = work.pop();
+			if(!seen.add(c)) continue;
+			if(!c.isInterface() && !c.isAbstract()) implementations(c, sub, result);
+			work.addAll(subtypes.getOrDefault(c, Collections.emptyList()));
+		}
+		return new ArrayList<>(result);
+	}
+
+	/*
+	 * Adds the method that a call with subsignature sub runs on an
+	 * instance of the concrete class c, as soot's resolveConcreteDispatch
+	 * finds it: the first declaration up the superclass chain of c. That
+	 * may be in a class that is not below the class of the called method
+	 * at all, e.g. when c implements an interface method through its
+	 * superclass. When no class of the chain declares it, the default
+	 * methods of the interfaces of the chain are added.
+	 */
+	private static void implementations(SootClass c, String sub, Set<SootMethod> result) {
+		List<SootClass> interfaces = new ArrayList<>();
+		for(SootClass k = c; k != null; k = k.hasSuperclass()? k.getSuperclass() : null) {
+			SootMethod o = k.getMethodUnsafe(sub);
+			if(o != null && !o.isStatic()) {
+				if(!o.isAbstract()) result.add(o);
+				return;
+			}
+			interfaces.addAll(k.getInterfaces());
+		}
+		Set<SootClass> seen = new HashSet<>();
+		ArrayDeque<SootClass> work = new ArrayDeque<>(interfaces);
+		while(!work.isEmpty()) {
+			SootClass i = work.pop();
+			if(!seen.add(i)) continue;
+			SootMethod o = i.getMethodUnsafe(sub);
+			if(o != null && !o.isStatic() && !o.isAbstract()) result.add(o);
+			work.addAll(i.getInterfaces());
+		}
+	}
+}
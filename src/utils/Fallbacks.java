@@ -0,0 +1,30 @@
+package utils;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import soot.SootMethod;
+
+/*
+ * The methods of the current run whose results are the conservative
+ * fallback of analyser.MethodLimits: their analysis went over a
+ * fixpoint limit or threw. The results are sound but say nothing about
+ * the method itself, so the summary store and the resolution store do
+ * not keep them; the next run analyses and resolves these methods
+ * again.
+ */
+public class Fallbacks {
+	private static final Set<SootMethod> methods = ConcurrentHashMap.newKeySet();
+
+	public static void mark(SootMethod m) {
+		methods.add(m);
+	}
+
+	public static boolean contains(SootMethod m) {
+		return methods.contains(m);
+	}
+
+	public static void clear() {
+		methods.clear();
+	}
+}
@@ -0,0 +1,76 @@
+package utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/*
+ * Tarjan's algorithm with an explicit stack, so that deep graphs do not
+ * overflow the thread stack. Components come out in reverse topological
+ * order: a component is listed after every component it has an edge to,
+ * i.e. callees before callers for a call graph. For the same nodes in
+ * the same order the result is always the same.
+ */
+public class StronglyConnectedComponents {
+
+	public static <N> List<List<N>> compute(Collection<N> nodes, Function<N, ? extends Iterable<N>> succs) {
+		Map<N, int[]> info = new HashMap<>(2*nodes.size()); // {index, lowlink, onStack}
+		ArrayDeque<N> stack = new ArrayDeque<>();
+		List<List<N>> components = new ArrayList<>();
+		int[] counter = {0};
+		for(N root : nodes) {
+			if(info.containsKey(root)) continue;
+			ArrayDeque<N> callNodes = new ArrayDeque<>();
+			ArrayDeque<Iterator<N>> callSuccs = new ArrayDeque<>();
+			visit(root, info, stack, counter);
+			callNodes.push(root);
+			callSuccs.push(succs.apply(root).iterator());
+			while(!callNodes.isEmpty()) {
+				N v = callNodes.peek();
+				Iterator<N> it = callSuccs.peek();
+				if(it.hasNext()) {
+					N w = it.next();
+					int[] wi = info.get(w);
+					if(wi == null) {
+						visit(w, info, stack, counter);
+						callNodes.push(w);
+						callSuccs.push(succs.apply(w).iterator());
+					} else if(wi[2] == 1) {
+						int[] vi = info.get(v);
+						vi[1] = Math.min(vi[1], wi[0]);
+					}
+					continue;
+				}
+				callNodes.pop();
+				callSuccs.pop();
+				int[] vi = info.get(v);
+				if(!callNodes.isEmpty()) {
+					int[] parent = info.get(callNodes.peek());
+					parent[1] = Math.min(parent[1], vi[1]);
+				}
+				if(vi[1] == vi[0]) {
+					List<N> component = new ArrayList<>();
+					N w;
+					do {
+						w = stack.pop();
+						info.get(w)[2] = 0;
+						component.add(w);
+					} while(w != v);
+					components.add(component);
+				}
+			}
+		}
+		return components;
+	}
+
+	private static <N> void visit(N v, Map<N, int[]> info, ArrayDeque<N> stack, int[] counter) {
+		int i = counter[0]++;
+		info.put(v, new int[] {i, i, 1});
+		stack.push(v);
+	}
+}